@@ -3,18 +3,27 @@ package com.classteam.skopjetourismguide.controller;
 import com.classteam.skopjetourismguide.dto.PageResponseDTO;
 import com.classteam.skopjetourismguide.dto.PlaceDTO;
 import com.classteam.skopjetourismguide.dto.PlaceDetailDTO;
+import com.classteam.skopjetourismguide.dto.PlaceFacetsDTO;
+import com.classteam.skopjetourismguide.dto.PlaceFilterDTO;
+import com.classteam.skopjetourismguide.dto.PlaceSuggestionDTO;
 import com.classteam.skopjetourismguide.dto.ReviewDTO;
 import com.classteam.skopjetourismguide.model.Place;
 import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.service.CatalogVersionService;
+import com.classteam.skopjetourismguide.service.IdempotencyService;
 import com.classteam.skopjetourismguide.service.PlacesService;
 import com.classteam.skopjetourismguide.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -25,13 +34,21 @@ public class PlacesController {
 
     private final PlacesService placesService;
     private final ReviewService reviewService;
+    private final CatalogVersionService catalogVersionService;
+    private final IdempotencyService idempotencyService;
     private static final int DEFAULT_PAGE_SIZE = 20;
     private static final int DEFAULT_REVIEW_PREVIEW_SIZE = 3;
 
+    // Browsers and CDNs may store responses but must revalidate them with the ETag
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
     @Autowired
-    public PlacesController(PlacesService placesService, ReviewService reviewService) {
+    public PlacesController(PlacesService placesService, ReviewService reviewService,
+                            CatalogVersionService catalogVersionService, IdempotencyService idempotencyService) {
         this.placesService = placesService;
         this.reviewService = reviewService;
+        this.catalogVersionService = catalogVersionService;
+        this.idempotencyService = idempotencyService;
     }
 
     // ORIGINAL ENDPOINTS (For backward compatibility)
@@ -42,6 +59,40 @@ public class PlacesController {
         return ResponseEntity.ok(places);
     }
 
+    // Streaming variants of the bulk legacy endpoints, chosen with Accept: application/x-ndjson.
+    // Places are written one flat JSON object per line as they are read, so heap use does not grow with the catalog.
+
+    @GetMapping(value = "/legacy", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPlacesLegacy() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(placesService::streamAllPlaces);
+    }
+
+    @GetMapping(value = "/legacy/type/{placeType}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPlacesByTypeLegacy(@PathVariable String placeType) {
+        try {
+            PlaceType type = PlaceType.valueOf(placeType.toUpperCase());
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> placesService.streamPlacesByType(type, out));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/legacy/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchPlacesLegacy(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String address,
+            @RequestParam(required = false) String description,
+            @RequestParam(required = false) String sentimentTag) {
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> placesService.streamPlacesSearch(name, address, description, sentimentTag, out));
+    }
+
     @GetMapping("/legacy/{id}")
     public ResponseEntity<Place> getPlaceByIdLegacy(@PathVariable Long id) {
         return placesService.getPlaceById(id)
@@ -105,6 +156,17 @@ public class PlacesController {
         return ResponseEntity.ok(places);
     }
 
+    // Fetch missing opening hours from Google in the background
+    @PostMapping("/opening-hours/refresh")
+    public ResponseEntity<Void> refreshOpeningHours(@RequestParam(defaultValue = "100") int limit) {
+        try {
+            placesService.requestOpeningHoursRefresh(limit);
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<Place> createPlace(@RequestBody Place place) {
         Place newPlace = placesService.createPlace(place);
@@ -135,22 +197,44 @@ public class PlacesController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "averageRating") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
+
+        if (webRequest.checkNotModified(catalogVersionService.etag())) {
+            return notModified();
+        }
+
+        // Any cursor parameter (empty for the first page) switches to keyset pagination in rating order
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok().cacheControl(REVALIDATE)
+                        .body(placesService.getAllPlacesByCursor(cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
 
         Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
         PageResponseDTO<PlaceDTO> response = placesService.getAllPlacesPaginated(pageable);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(response);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<PlaceDetailDTO> getPlaceById(
             @PathVariable Long id,
-            @RequestParam(defaultValue = "3") int previewReviews) {
+            @RequestParam(defaultValue = "3") int previewReviews,
+            WebRequest webRequest) {
+
+        // Answered before the place is even looked up
+        if (webRequest.checkNotModified(catalogVersionService.etag())) {
+            return notModified();
+        }
 
         return placesService.getPlaceWithLimitedReviews(id, previewReviews)
-                .map(ResponseEntity::ok)
+                .map(place -> ResponseEntity.ok().cacheControl(REVALIDATE).body(place))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -160,10 +244,14 @@ public class PlacesController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "averageRating") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor) {
 
         try {
             PlaceType type = PlaceType.valueOf(placeType.toUpperCase());
+            if (cursor != null) {
+                return ResponseEntity.ok(placesService.getPlacesByTypeByCursor(type, cursor, size));
+            }
             Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
             Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
@@ -176,6 +264,7 @@ public class PlacesController {
 
     @GetMapping("/search")
     public ResponseEntity<PageResponseDTO<PlaceDTO>> searchPlaces(
+            @RequestParam(required = false) String q,
             @RequestParam(required = false) String name,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -185,13 +274,91 @@ public class PlacesController {
         Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
-        if (name != null && !name.isEmpty()) {
+        if (q != null && !q.isBlank()) {
+            // Free-text search is always ordered by relevance
+            return ResponseEntity.ok(placesService.searchPlaces(q, PageRequest.of(page, size)));
+        } else if (name != null && !name.isEmpty()) {
             return ResponseEntity.ok(placesService.searchPlacesByNamePaginated(name, pageable));
         } else {
             return ResponseEntity.ok(placesService.getAllPlacesPaginated(pageable));
         }
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<PlaceFacetsDTO> getPlaceFacets(PlaceFilterDTO filter) {
+        try {
+            return ResponseEntity.ok(placesService.getPlaceFacets(filter));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<PageResponseDTO<PlaceDTO>> filterPlaces(
+            PlaceFilterDTO filter,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            return ResponseEntity.ok(placesService.filterPlaces(filter, PageRequest.of(page, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<PlaceSuggestionDTO>> autocompletePlaces(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+
+        try {
+            return ResponseEntity.ok(placesService.autocomplete(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<PageResponseDTO<PlaceDTO>> getNearbyPlaces(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "1000") double radius,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Float minRating,
+            @RequestParam(defaultValue = "distance") String sortBy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            PlaceType placeType = type != null ? PlaceType.valueOf(type.toUpperCase()) : null;
+            return ResponseEntity.ok(placesService.findNearbyPlaces(
+                    lat, lng, radius, placeType, minRating, sortBy, PageRequest.of(page, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/bbox")
+    public ResponseEntity<PageResponseDTO<PlaceDTO>> getPlacesInBoundingBox(
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Float minRating,
+            @RequestParam(defaultValue = "rating") String sortBy,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            PlaceType placeType = type != null ? PlaceType.valueOf(type.toUpperCase()) : null;
+            return ResponseEntity.ok(placesService.findPlacesInBoundingBox(
+                    south, west, north, east, placeType, minRating, sortBy, PageRequest.of(page, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Add the dedicated reviews endpoint
     @GetMapping("/{placeId}/reviews")
     public ResponseEntity<PageResponseDTO<ReviewDTO>> getPlaceReviews(
@@ -199,7 +366,17 @@ public class PlacesController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "timestamp") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String cursor) {
+
+        // Any cursor parameter (empty for the first page) switches to keyset pagination, newest first
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(reviewService.getReviewsByPlaceIdByCursor(placeId, cursor, size));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
 
         Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
@@ -210,10 +387,21 @@ public class PlacesController {
     @PostMapping("/{placeId}/reviews")
     public ResponseEntity<ReviewDTO> createReview(
             @PathVariable Long placeId,
-            @RequestBody ReviewDTO reviewDTO // or ReviewCreateDTO if you have it
+            @RequestBody ReviewDTO reviewDTO, // or ReviewCreateDTO if you have it
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
-        ReviewDTO createdReview = reviewService.createReview(placeId, reviewDTO);
-        return ResponseEntity.ok(createdReview);
+        try {
+            // A retry with the same key gets the review created the first time
+            ReviewDTO createdReview = idempotencyService.execute("reviews", idempotencyKey,
+                    List.of(placeId, reviewDTO), () -> reviewService.createReview(placeId, reviewDTO));
+            return ResponseEntity.ok(createdReview);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
-}
\ No newline at end of file
+    // checkNotModified has already set the ETag; keep Cache-Control on the 304 too
+    private static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+    }
+}
@@ -1,14 +1,27 @@
 
 package com.classteam.skopjetourismguide.controller;
 
+import com.classteam.skopjetourismguide.service.CatalogVersionService;
+import com.classteam.skopjetourismguide.service.IdempotencyService;
+import com.classteam.skopjetourismguide.service.TourGenerationMetrics;
+import com.classteam.skopjetourismguide.service.TourJobService;
 import com.classteam.skopjetourismguide.service.ToursService;
+import com.classteam.skopjetourismguide.dto.PageResponseDTO;
+import com.classteam.skopjetourismguide.dto.TourBulkEditDTO;
 import com.classteam.skopjetourismguide.dto.TourDTO;
 import com.classteam.skopjetourismguide.dto.TourCreateDTO;
+import com.classteam.skopjetourismguide.dto.TourGenerationMetricsDTO;
+import com.classteam.skopjetourismguide.dto.TourJobDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -17,10 +30,23 @@ import java.util.List;
 public class ToursController {
 
     private final ToursService tourService;
+    private final TourJobService tourJobService;
+    private final TourGenerationMetrics generationMetrics;
+    private final CatalogVersionService catalogVersionService;
+    private final IdempotencyService idempotencyService;
+
+    // Tours are per user: only the browser may store them, and it must revalidate with the ETag
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
 
     @Autowired
-    public ToursController(ToursService tourService) {
+    public ToursController(ToursService tourService, TourJobService tourJobService,
+                           TourGenerationMetrics generationMetrics, CatalogVersionService catalogVersionService,
+                           IdempotencyService idempotencyService) {
         this.tourService = tourService;
+        this.tourJobService = tourJobService;
+        this.generationMetrics = generationMetrics;
+        this.catalogVersionService = catalogVersionService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping
@@ -29,10 +55,26 @@ public class ToursController {
         return ResponseEntity.ok(tours);
     }
 
+    // A cursor parameter (empty for the first page) switches each listing to keyset pages, newest first
+    @GetMapping(params = "cursor")
+    public ResponseEntity<PageResponseDTO<TourDTO>> getAllToursByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(tourService.getAllToursByCursor(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<TourDTO> getTourById(@PathVariable Long id) {
+    public ResponseEntity<TourDTO> getTourById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersionService.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+
         TourDTO tour = tourService.getTourById(id);
-        return ResponseEntity.ok(tour);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(tour);
     }
 
     @GetMapping("/user/{userId}")
@@ -41,30 +83,115 @@ public class ToursController {
         return ResponseEntity.ok(tours);
     }
 
+    @GetMapping(value = "/user/{userId}", params = "cursor")
+    public ResponseEntity<PageResponseDTO<TourDTO>> getToursByUserByCursor(
+            @PathVariable Long userId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(tourService.getToursByUserByCursor(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/preference/{preferenceId}")
     public ResponseEntity<List<TourDTO>> getToursByPreference(@PathVariable Long preferenceId) {
         List<TourDTO> tours = tourService.getToursByPreference(preferenceId);
         return ResponseEntity.ok(tours);
     }
 
+    @GetMapping(value = "/preference/{preferenceId}", params = "cursor")
+    public ResponseEntity<PageResponseDTO<TourDTO>> getToursByPreferenceByCursor(
+            @PathVariable Long preferenceId,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(tourService.getToursByPreferenceByCursor(preferenceId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<TourDTO>> searchToursByTitle(@RequestParam("title") String title) {
         List<TourDTO> tours = tourService.searchToursByTitle(title);
         return ResponseEntity.ok(tours);
     }
 
+    @GetMapping(value = "/search", params = "cursor")
+    public ResponseEntity<PageResponseDTO<TourDTO>> searchToursByTitleByCursor(
+            @RequestParam("title") String title,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(tourService.searchToursByTitleByCursor(title, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // A retry with the same Idempotency-Key waits for or replays the first request instead of generating again
     @PostMapping
-    public ResponseEntity<TourDTO> createTour(@RequestBody TourCreateDTO tourCreateDTO) {
-        TourDTO createdTour = tourService.createTour(tourCreateDTO);
+    public ResponseEntity<TourDTO> createTour(
+            @RequestBody TourCreateDTO tourCreateDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        TourDTO createdTour = idempotencyService.execute("tours", idempotencyKey, tourCreateDTO,
+                () -> tourService.createTour(tourCreateDTO));
         return new ResponseEntity<>(createdTour, HttpStatus.CREATED);
     }
 
+    // Async mode: generation runs in the background, poll the job or subscribe to its events
+    @PostMapping(params = "async=true")
+    public ResponseEntity<TourJobDTO> createTourAsync(
+            @RequestBody TourCreateDTO tourCreateDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        TourJobDTO job = idempotencyService.execute("tour-jobs", idempotencyKey, tourCreateDTO,
+                () -> tourJobService.submit(tourCreateDTO));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/tours/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    // Precompute the templates of the most requested preference combinations in the background
+    @PostMapping("/templates/rebuild")
+    public ResponseEntity<Void> rebuildTemplates() {
+        tourService.requestTemplateRebuild();
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<TourGenerationMetricsDTO> getGenerationMetrics() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(generationMetrics.snapshot());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<TourJobDTO> getTourJob(@PathVariable Long jobId) {
+        TourJobDTO job = tourJobService.getJob(jobId);
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(job);
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToTourJob(@PathVariable Long jobId) {
+        return tourJobService.subscribe(jobId);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<TourDTO> updateTour(@PathVariable Long id, @RequestBody TourCreateDTO tourUpdateDTO) {
         TourDTO updatedTour = tourService.updateTour(id, tourUpdateDTO);
         return ResponseEntity.ok(updatedTour);
     }
 
+    // Add, remove and reorder the stops of many tours in one request
+    @PatchMapping
+    public ResponseEntity<List<TourDTO>> editTours(@RequestBody TourBulkEditDTO bulkEdit) {
+        try {
+            return ResponseEntity.ok(tourService.editTours(bulkEdit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTour(@PathVariable Long id) {
         tourService.deleteTour(id);
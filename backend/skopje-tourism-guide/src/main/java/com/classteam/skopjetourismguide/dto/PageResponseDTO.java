@@ -1,6 +1,7 @@
 // PageResponseDTO.java
 package com.classteam.skopjetourismguide.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import java.util.List;
 
@@ -16,5 +17,9 @@ public class PageResponseDTO<T> {
         private long totalElements;
         private int totalPages;
         private boolean last;
+
+        // Only set in cursor mode, where page is always 0 and the totals may be approximate
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String nextCursor;
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.classteam.skopjetourismguide.dto;
+
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+
+/**
+ * Immutable, read-only view of a place as held by the in-memory place catalog.
+ * Only carries the columns the listing endpoints need, never the lazy relationships.
+ */
+public record PlaceCatalogEntry(
+        Long id,
+        String name,
+        String description,
+        PlaceType placeType,
+        Double latitude,
+        Double longitude,
+        String address,
+        String vicinity,
+        Float averageRating,
+        Integer userRatingsTotal,
+        String sentimentTag,
+        String photoReference,
+        Boolean openNow,
+        int reviewCount) {
+
+    public PlaceCatalogEntry withReviewCount(int newReviewCount) {
+        return new PlaceCatalogEntry(id, name, description, placeType, latitude, longitude,
+                address, vicinity, averageRating, userRatingsTotal, sentimentTag, photoReference, openNow,
+                newReviewCount);
+    }
+}
@@ -2,6 +2,7 @@
 package com.classteam.skopjetourismguide.dto;
 
 import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 @Data
@@ -16,4 +17,7 @@ public class PlaceDTO {
     private Float averageRating;
     private String photoReference;
     private Integer reviewCount; // Just the count, not the reviews themselves
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceMeters; // Only set by the nearby and viewport queries
 }
\ No newline at end of file
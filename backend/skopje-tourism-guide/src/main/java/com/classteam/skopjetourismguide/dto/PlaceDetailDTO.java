@@ -21,5 +21,7 @@ public class PlaceDetailDTO {
     private String photoReference;
     private String sentimentTag;
     private Integer reviewCount;
+    private Float userAverageRating; // Average of our users' reviews, next to the Google averageRating
+    private int[] ratingHistogram; // Review count per star, index 0 = one star
     private List<ReviewDTO> recentReviews; // Limited preview of reviews
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.classteam.skopjetourismguide.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class PlaceFacetsDTO {
+    private int totalMatches;
+    private Map<String, List<FacetValue>> facets; // Facet parameter name -> values in display order
+
+    @Data
+    public static class FacetValue {
+        private String value;
+        private int count;
+    }
+}
@@ -0,0 +1,15 @@
+package com.classteam.skopjetourismguide.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Facet filters bound from query parameters; values of one facet are OR-ed, facets are AND-ed
+@Data
+public class PlaceFilterDTO {
+    private List<String> type;
+    private List<String> sentiment;
+    private List<String> rating;
+    private List<String> reviews;
+    private List<String> openNow;
+}
@@ -0,0 +1,28 @@
+package com.classteam.skopjetourismguide.dto;
+
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+
+/**
+ * All scalar columns of a place, without the reviews and tours relationships.
+ * One line of the NDJSON variant of the legacy bulk endpoints.
+ */
+public record PlaceFlatDTO(
+        Long id,
+        String name,
+        String description,
+        PlaceType placeType,
+        String googlePlaceId,
+        Double latitude,
+        Double longitude,
+        String vicinity,
+        String photoReference,
+        Boolean openNow,
+        Integer userRatingsTotal,
+        String address,
+        String phoneNumber,
+        String websiteURL,
+        String socialMedia,
+        Float averageRating,
+        String sentimentTag,
+        Integer reviewCount) {
+}
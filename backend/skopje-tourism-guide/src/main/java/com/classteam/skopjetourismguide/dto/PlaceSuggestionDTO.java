@@ -0,0 +1,14 @@
+package com.classteam.skopjetourismguide.dto;
+
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import lombok.Data;
+
+// Lightweight row for the search box dropdown
+@Data
+public class PlaceSuggestionDTO {
+    private Long id;
+    private String name;
+    private String vicinity;
+    private PlaceType placeType;
+    private Float averageRating;
+}
@@ -0,0 +1,20 @@
+package com.classteam.skopjetourismguide.dto;
+
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+
+/**
+ * Constructor projection of exactly the {@link PlaceDTO} columns, used by the paginated
+ * listing queries so they never hydrate or track full {@code Place} entities.
+ */
+public record PlaceSummary(
+        Long id,
+        String name,
+        String description,
+        PlaceType placeType,
+        Double latitude,
+        Double longitude,
+        String address,
+        Float averageRating,
+        String photoReference,
+        Integer reviewCount) {
+}
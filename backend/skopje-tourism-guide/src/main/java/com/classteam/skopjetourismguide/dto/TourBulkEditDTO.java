@@ -0,0 +1,25 @@
+package com.classteam.skopjetourismguide.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class TourBulkEditDTO {
+    private List<Edit> edits = new ArrayList<>();
+
+    /**
+     * Changes to the stops of one tour, applied in this order: removals, additions, reordering
+     */
+    @Data
+    public static class Edit {
+        private Long tourId;
+        // Every stop at one of these places is removed
+        private List<Long> removePlaceIds;
+        // Appended after the remaining stops
+        private List<Long> addPlaceIds;
+        // The resulting stops in their new order; must be the same places as after removals and additions
+        private List<Long> order;
+    }
+}
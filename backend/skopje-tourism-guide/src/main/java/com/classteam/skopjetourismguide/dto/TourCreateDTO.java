@@ -1,7 +1,9 @@
 package com.classteam.skopjetourismguide.dto;
 
+import com.classteam.skopjetourismguide.model.enumerations.RecommenderEngine;
 import lombok.Data;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -11,4 +13,15 @@ public class TourCreateDTO {
     private Long preferenceId;
     private PreferenceDTO preferenceDTO;
     private List<Long> placeIds;
+    // Optional, overrides tours.recommender.engine for this request
+    private RecommenderEngine engine;
+    // Optional fixed start and end of the walking route, such as the tourist's hotel
+    private Double startLatitude;
+    private Double startLongitude;
+    private Double endLatitude;
+    private Double endLongitude;
+    // Reorder the given placeIds into a walking route; generated tours are always reordered
+    private Boolean optimizeRoute;
+    // Local time in Skopje the tour starts; defaults to the next tours.schedule.day-start
+    private LocalDateTime startTime;
 }
@@ -11,9 +11,33 @@ public class TourDTO {
     private Long id;
     private String title;
     private LocalDateTime dateCreated;
+    private LocalDateTime startTime;
     private Long userId;
     private String userName;
     private Long preferenceId;
     private String preferenceDescription;
     private List<PlaceDTO> places = new ArrayList<>();
+    // Straight-line walking distance of all days, from the first to the last place of each day
+    private Double totalDistanceMeters;
+    private List<Day> days = new ArrayList<>();
+
+    @Data
+    public static class Day {
+        // 1-based
+        private int day;
+        // Ids of the day's entries in places, in route order
+        private List<Long> placeIds = new ArrayList<>();
+        private Double distanceMeters;
+        // Timed stops, when the tour has a start time
+        private List<Stop> stops = new ArrayList<>();
+    }
+
+    @Data
+    public static class Stop {
+        private Long placeId;
+        private LocalDateTime arrival;
+        private LocalDateTime departure;
+        // Whether the place is open for the visit; null when its opening hours are unknown
+        private Boolean open;
+    }
 }
@@ -0,0 +1,65 @@
+package com.classteam.skopjetourismguide.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class TourGenerationMetricsDTO {
+    private CacheStats recommendationCache;
+    // Keyed by source: CACHE, AI, LOCAL, FALLBACK or USER_SELECTED
+    private Map<String, GenerationStats> generations;
+    private AiCallStats aiCalls;
+    // Whole createTour call, from the read phase to the saved tour
+    private GenerationStats endToEnd;
+    // Tour, tour job and review creations run under an Idempotency-Key
+    private IdempotencyStats idempotency;
+
+    @Data
+    public static class CacheStats {
+        private long hits;
+        private long misses;
+        private long invalidations;
+        private long expirations;
+        private long evictions;
+        private int size;
+        private double hitRate;
+    }
+
+    @Data
+    public static class IdempotencyStats {
+        private long executions;
+        // Retries answered from a finished request
+        private long replays;
+        // Retries that waited for the request still running
+        private long coalesced;
+        private int size;
+    }
+
+    @Data
+    public static class AiCallStats {
+        private long count;
+        private long promptTokens;
+        private long completionTokens;
+        private double averagePromptTokens;
+        private double averageCompletionTokens;
+        private double averageMillis;
+        private double maxMillis;
+        private long deadlineMisses;
+        private long backgroundUpgrades;
+    }
+
+    @Data
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class GenerationStats {
+        private long count;
+        private double averageMillis;
+        private double maxMillis;
+        // Average quality of the selected tours, null when not measured
+        private Double averageRating;
+        private Double typeDiversity;
+        private Double coverage;
+        private Double meanSpreadMeters;
+    }
+}
@@ -0,0 +1,18 @@
+package com.classteam.skopjetourismguide.dto;
+
+import com.classteam.skopjetourismguide.model.enumerations.TourJobStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TourJobDTO {
+    private Long id;
+    private TourJobStatus status;
+    private Long tourId;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,11 @@
+package com.classteam.skopjetourismguide.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotentRequestInProgressException extends RuntimeException {
+    public IdempotentRequestInProgressException(String idempotencyKey) {
+        super("A request with this idempotency key is still being processed, please retry later: " + idempotencyKey);
+    }
+}
@@ -0,0 +1,11 @@
+package com.classteam.skopjetourismguide.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class TourJobNotFoundException extends RuntimeException {
+    public TourJobNotFoundException(Long id) {
+        super("Tour job not found with id: " + id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.classteam.skopjetourismguide.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TourJobRejectedException extends RuntimeException {
+    public TourJobRejectedException() {
+        super("Too many tours are being generated, please try again later");
+    }
+}
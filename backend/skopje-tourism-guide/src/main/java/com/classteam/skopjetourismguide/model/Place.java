@@ -20,6 +20,8 @@ import java.util.List;
 @Setter
 @ToString(exclude = {"reviews", "tours"}) // Prevent toString() recursion
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+@JsonIgnoreProperties(value = {"reviewCount", "userReviewCount", "userRatingSum", "oneStarCount", "twoStarCount",
+        "threeStarCount", "fourStarCount", "fiveStarCount"}, allowGetters = true)
 public class Place {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -48,6 +50,11 @@ public class Place {
 
     private Boolean openNow;
 
+    // Weekly opening hours from Google place details, in the OpeningHours format;
+    // null when never fetched, blank when Google has none
+    @Column(columnDefinition = "TEXT")
+    private String openingHours;
+
     private Integer userRatingsTotal;
 
     @Column(columnDefinition = "TEXT")
@@ -66,6 +73,33 @@ public class Place {
     @Column(columnDefinition = "TEXT")
     private String sentimentTag;
 
+    // Review aggregates. Entity saves never write them (updatable = false); they only change
+    // through the atomic updates in PlaceRepository, so a stale Place can't overwrite a newer count.
+    // Google reviews count towards the total and the histogram, but not towards the user average.
+    @Column(updatable = false)
+    private Integer reviewCount = 0;
+
+    @Column(updatable = false)
+    private Integer userReviewCount = 0;
+
+    @Column(updatable = false)
+    private Long userRatingSum = 0L;
+
+    @Column(updatable = false)
+    private Integer oneStarCount = 0;
+
+    @Column(updatable = false)
+    private Integer twoStarCount = 0;
+
+    @Column(updatable = false)
+    private Integer threeStarCount = 0;
+
+    @Column(updatable = false)
+    private Integer fourStarCount = 0;
+
+    @Column(updatable = false)
+    private Integer fiveStarCount = 0;
+
     @OneToMany(mappedBy = "place", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnoreProperties("place")
     private List<Review> reviews = new ArrayList<>();
@@ -88,6 +122,25 @@ public class Place {
         this.sentimentTag = sentimentTag;
     }
 
+    // Average of our own users' ratings, next to the Google averageRating; null without user reviews
+    public Float getUserAverageRating() {
+        if (userReviewCount == null || userReviewCount == 0 || userRatingSum == null) {
+            return null;
+        }
+        return (float) userRatingSum / userReviewCount;
+    }
+
+    // Review count per star rating, index 0 holding one-star reviews
+    public int[] getRatingHistogram() {
+        return new int[]{
+                oneStarCount != null ? oneStarCount : 0,
+                twoStarCount != null ? twoStarCount : 0,
+                threeStarCount != null ? threeStarCount : 0,
+                fourStarCount != null ? fourStarCount : 0,
+                fiveStarCount != null ? fiveStarCount : 0
+        };
+    }
+
     // Helper methods to maintain bidirectional relationship
     public void addReview(Review review) {
         reviews.add(review);
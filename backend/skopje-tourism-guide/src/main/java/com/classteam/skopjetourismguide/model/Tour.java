@@ -29,6 +29,12 @@ public class Tour {
     @Column(nullable = false)
     private LocalDateTime dateCreated = LocalDateTime.now();
 
+    // Days the places are spread over; the places are stored day after day (see TourItineraryPlanner)
+    private Integer dayCount;
+
+    // When the first day starts, local time in Skopje; later days start at the same time of day
+    private LocalDateTime startTime;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
@@ -47,6 +53,7 @@ public class Tour {
             joinColumns = @JoinColumn(name = "tour_id"),
             inverseJoinColumns = @JoinColumn(name = "place_id")
     )
+    @OrderColumn(name = "stop_order") // Position of the place in the walking route
     @JsonIgnoreProperties("tours")
     private List<Place> places = new ArrayList<>();
 
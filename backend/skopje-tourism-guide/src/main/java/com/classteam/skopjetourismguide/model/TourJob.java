@@ -0,0 +1,45 @@
+package com.classteam.skopjetourismguide.model;
+
+import com.classteam.skopjetourismguide.model.enumerations.TourJobStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * An asynchronous tour generation request. The request itself is stored so that
+ * jobs still pending or running when the application stops are resumed on the next start.
+ */
+@Entity
+@Table(name = "tour_jobs")
+@Getter @Setter
+@ToString(exclude = "request")
+public class TourJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TourJobStatus status = TourJobStatus.PENDING;
+
+    // The TourCreateDTO as JSON
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String request;
+
+    private Long tourId;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
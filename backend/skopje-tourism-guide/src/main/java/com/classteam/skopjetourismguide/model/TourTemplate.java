@@ -0,0 +1,52 @@
+package com.classteam.skopjetourismguide.model;
+
+import com.classteam.skopjetourismguide.model.enumerations.RecommenderEngine;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A precomputed tour for a frequently requested preference combination. New tours with that
+ * combination copy its places instead of being generated.
+ * <p>
+ * The places are kept as ids, day after day in walking-route order, so a template never
+ * stands in the way of deleting a place.
+ */
+@Entity
+@Table(name = "tour_templates")
+@Getter @Setter
+@ToString(exclude = "placeIds")
+public class TourTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Text form of the preference combination, see PreferenceKey
+    @Column(nullable = false, unique = true, length = 512)
+    private String preferenceKey;
+
+    // Tours requested with this combination when the template was built
+    @Column(nullable = false)
+    private long requestCount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecommenderEngine engine;
+
+    @Column(nullable = false)
+    private int dayCount;
+
+    @ElementCollection
+    @CollectionTable(name = "tour_template_places", joinColumns = @JoinColumn(name = "template_id"))
+    @OrderColumn(name = "stop_order")
+    @Column(name = "place_id")
+    private List<Long> placeIds = new ArrayList<>();
+
+    @Column(nullable = false)
+    private LocalDateTime builtAt = LocalDateTime.now();
+}
@@ -0,0 +1,9 @@
+package com.classteam.skopjetourismguide.model.enumerations;
+
+/**
+ * Which engine picks the places of a generated tour
+ */
+public enum RecommenderEngine {
+    AI,     // Azure OpenAI, with the local engine as fallback
+    LOCAL   // In-process recommender only, no network call
+}
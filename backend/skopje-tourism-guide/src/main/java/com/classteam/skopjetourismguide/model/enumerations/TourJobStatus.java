@@ -0,0 +1,12 @@
+package com.classteam.skopjetourismguide.model.enumerations;
+
+public enum TourJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
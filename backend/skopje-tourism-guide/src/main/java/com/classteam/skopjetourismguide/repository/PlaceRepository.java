@@ -1,18 +1,25 @@
 package com.classteam.skopjetourismguide.repository;
 
+import com.classteam.skopjetourismguide.dto.PlaceFlatDTO;
+import com.classteam.skopjetourismguide.dto.PlaceSummary;
 import com.classteam.skopjetourismguide.model.Place;
 import com.classteam.skopjetourismguide.model.Review;
 import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface PlaceRepository extends JpaRepository<Place, Long> {
@@ -25,6 +32,7 @@ public interface PlaceRepository extends JpaRepository<Place, Long> {
     List<Place> findBySentimentTagContainingIgnoreCase(String sentimentTag);
     Optional<Place> findByGooglePlaceId(String placeId);
     List<Place> findByPlaceTypeOrderByAverageRatingDesc(PlaceType placeType);
+    List<Place> findByOpeningHoursIsNullAndGooglePlaceIdIsNotNullOrderByIdAsc(Pageable pageable);
     List<Place> findTop10ByPlaceTypeOrderByAverageRatingDesc(PlaceType placeType);
 
     // Updated paginated queries with default sorting by rating
@@ -37,6 +45,55 @@ public interface PlaceRepository extends JpaRepository<Place, Long> {
     @Query("SELECT p FROM Place p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) ORDER BY p.averageRating DESC")
     Page<Place> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
 
+    // Projection variants of the paginated queries above: only the PlaceDTO columns, no managed entities
+    String PLACE_SUMMARY_SELECT = "SELECT new com.classteam.skopjetourismguide.dto.PlaceSummary(" +
+            "p.id, p.name, p.description, p.placeType, p.latitude, p.longitude, p.address, " +
+            "p.averageRating, p.photoReference, p.reviewCount) FROM Place p";
+
+    @Query(value = PLACE_SUMMARY_SELECT + " ORDER BY p.averageRating DESC NULLS LAST",
+            countQuery = "SELECT COUNT(p) FROM Place p")
+    Page<PlaceSummary> findAllSummaries(Pageable pageable);
+
+    @Query(value = PLACE_SUMMARY_SELECT + " WHERE p.placeType = :placeType ORDER BY p.averageRating DESC NULLS LAST",
+            countQuery = "SELECT COUNT(p) FROM Place p WHERE p.placeType = :placeType")
+    Page<PlaceSummary> findSummariesByPlaceType(@Param("placeType") PlaceType placeType, Pageable pageable);
+
+    @Query(value = PLACE_SUMMARY_SELECT + " WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%')) ORDER BY p.averageRating DESC NULLS LAST",
+            countQuery = "SELECT COUNT(p) FROM Place p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    Page<PlaceSummary> findSummariesByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
+
+    // Streaming variants of the legacy bulk queries. Rows are projected, so nothing accumulates in the
+    // persistence context, and fetched from the cursor in batches; consume inside a read-only transaction.
+    String PLACE_FLAT_SELECT = "SELECT new com.classteam.skopjetourismguide.dto.PlaceFlatDTO(" +
+            "p.id, p.name, p.description, p.placeType, p.googlePlaceId, p.latitude, p.longitude, p.vicinity, " +
+            "p.photoReference, p.openNow, p.userRatingsTotal, p.address, p.phoneNumber, p.websiteURL, " +
+            "p.socialMedia, p.averageRating, p.sentimentTag, p.reviewCount) FROM Place p";
+    String STREAM_FETCH_SIZE = "500";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(PLACE_FLAT_SELECT + " ORDER BY p.id")
+    Stream<PlaceFlatDTO> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(PLACE_FLAT_SELECT + " WHERE p.placeType = :placeType ORDER BY p.id")
+    Stream<PlaceFlatDTO> streamByPlaceType(@Param("placeType") PlaceType placeType);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(PLACE_FLAT_SELECT + " WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :text, '%')) ORDER BY p.id")
+    Stream<PlaceFlatDTO> streamByNameContaining(@Param("text") String text);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(PLACE_FLAT_SELECT + " WHERE LOWER(p.address) LIKE LOWER(CONCAT('%', :text, '%')) ORDER BY p.id")
+    Stream<PlaceFlatDTO> streamByAddressContaining(@Param("text") String text);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(PLACE_FLAT_SELECT + " WHERE LOWER(p.description) LIKE LOWER(CONCAT('%', :text, '%')) ORDER BY p.id")
+    Stream<PlaceFlatDTO> streamByDescriptionContaining(@Param("text") String text);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(PLACE_FLAT_SELECT + " WHERE LOWER(p.sentimentTag) LIKE LOWER(CONCAT('%', :text, '%')) ORDER BY p.id")
+    Stream<PlaceFlatDTO> streamBySentimentTagContaining(@Param("text") String text);
+
     // Place with ID query
     @Query("SELECT p FROM Place p WHERE p.id = :id")
     Optional<Place> findPlaceById(@Param("id") Long id);
@@ -50,6 +107,43 @@ public interface PlaceRepository extends JpaRepository<Place, Long> {
     @Query("SELECT COUNT(r) FROM Review r WHERE r.place.id = :placeId")
     int countReviewsByPlaceId(@Param("placeId") Long placeId);
 
+    /**
+     * Add one review to the aggregate columns in a single UPDATE, so concurrent reviews never lose a count.
+     * {@code userReview} is 0 for imported Google reviews, which stay out of the user average.
+     */
+    @Modifying
+    @Query("UPDATE Place p SET p.reviewCount = COALESCE(p.reviewCount, 0) + 1, " +
+            "p.userReviewCount = COALESCE(p.userReviewCount, 0) + :userReview, " +
+            "p.userRatingSum = COALESCE(p.userRatingSum, 0) + :userReview * :rating, " +
+            "p.oneStarCount = COALESCE(p.oneStarCount, 0) + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "p.twoStarCount = COALESCE(p.twoStarCount, 0) + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "p.threeStarCount = COALESCE(p.threeStarCount, 0) + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "p.fourStarCount = COALESCE(p.fourStarCount, 0) + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "p.fiveStarCount = COALESCE(p.fiveStarCount, 0) + CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+            "WHERE p.id = :placeId")
+    int recordReview(@Param("placeId") Long placeId, @Param("rating") int rating, @Param("userReview") int userReview);
+
+    /**
+     * Overwrite the aggregate columns, used by the one-off backfill of rows created before they existed
+     */
+    @Modifying
+    @Query("UPDATE Place p SET p.reviewCount = :reviewCount, p.userReviewCount = :userReviewCount, " +
+            "p.userRatingSum = :userRatingSum, p.oneStarCount = :oneStar, p.twoStarCount = :twoStar, " +
+            "p.threeStarCount = :threeStar, p.fourStarCount = :fourStar, p.fiveStarCount = :fiveStar " +
+            "WHERE p.id = :placeId")
+    int setReviewAggregates(@Param("placeId") Long placeId,
+                            @Param("reviewCount") int reviewCount,
+                            @Param("userReviewCount") int userReviewCount,
+                            @Param("userRatingSum") long userRatingSum,
+                            @Param("oneStar") int oneStar,
+                            @Param("twoStar") int twoStar,
+                            @Param("threeStar") int threeStar,
+                            @Param("fourStar") int fourStar,
+                            @Param("fiveStar") int fiveStar);
+
+    @Query("SELECT p.id FROM Place p WHERE p.reviewCount IS NULL")
+    List<Long> findIdsWithoutReviewAggregates();
+
     // For fetching a place with minimal data (no relationships)
     @Query("SELECT p FROM Place p WHERE p.id = :id")
     Optional<Place> findPlaceWithMinimalData(@Param("id") Long id);
@@ -5,6 +5,7 @@ import com.classteam.skopjetourismguide.model.User;
 import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
 import com.classteam.skopjetourismguide.model.enumerations.TourLength;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +16,20 @@ public interface PreferenceRepository extends JpaRepository<Preference, Long> {
     List<Preference> findByBudgetLevel(BudgetLevel budgetLevel);
     List<Preference> findByTourLength(TourLength tourLength);
     List<Preference> findByIncludeShoppingMalls(Boolean includeShoppingMalls);
+
+    // Request statistics: id, tour length, budget level, malls, the number of tours made with each preference and its description
+    @Query("SELECT p.id, p.tourLength, p.budgetLevel, p.includeShoppingMalls, COUNT(t), p.description " +
+            "FROM Preference p LEFT JOIN p.tours t " +
+            "GROUP BY p.id, p.tourLength, p.budgetLevel, p.includeShoppingMalls, p.description")
+    List<Object[]> countToursByPreference();
+
+    // Preference id and type pairs of the chosen types, one query per collection instead of one per preference
+    @Query("SELECT p.id, a FROM Preference p JOIN p.attractionTypePreferences a")
+    List<Object[]> findAttractionTypePairs();
+
+    @Query("SELECT p.id, f FROM Preference p JOIN p.foodTypePreferences f")
+    List<Object[]> findFoodTypePairs();
+
+    @Query("SELECT p.id, d FROM Preference p JOIN p.drinkTypePreferences d")
+    List<Object[]> findDrinkTypePairs();
 }
\ No newline at end of file
@@ -5,10 +5,13 @@ import com.classteam.skopjetourismguide.model.User;
 import com.classteam.skopjetourismguide.model.Place;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -23,6 +26,38 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT r FROM Review r WHERE r.place.id = ?1")
     Page<Review> findByPlaceId(Long placeId, Pageable pageable);
 
+    // Keyset pagination, newest first; neither query issues a COUNT
+    // Reviews without a timestamp come last, as they do on the place cursor's unrated places
+    @Query("SELECT r FROM Review r WHERE r.place.id = :placeId ORDER BY r.timestamp DESC NULLS LAST, r.id DESC")
+    List<Review> findFirstPageByPlaceId(@Param("placeId") Long placeId, Pageable pageable);
+
+    @Query("SELECT r FROM Review r WHERE r.place.id = :placeId " +
+            "AND (r.timestamp < :timestamp OR (r.timestamp = :timestamp AND r.id < :id) OR r.timestamp IS NULL) " +
+            "ORDER BY r.timestamp DESC NULLS LAST, r.id DESC")
+    List<Review> findPageByPlaceIdAfter(@Param("placeId") Long placeId,
+                                        @Param("timestamp") LocalDateTime timestamp,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    // The page after a review without a timestamp: only such reviews follow it
+    @Query("SELECT r FROM Review r WHERE r.place.id = :placeId AND r.timestamp IS NULL AND r.id < :id " +
+            "ORDER BY r.id DESC")
+    List<Review> findPageByPlaceIdAfterUntimed(@Param("placeId") Long placeId,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+
     @Query("SELECT COUNT(r) FROM Review r WHERE r.place.id = ?1")
     Integer countByPlaceId(Long placeId);
+
+    // Review aggregates of the given places in one pass: id, count, user count, user rating sum, 1..5 star counts.
+    // Reviews written as the Google user are imported ones and left out of the user count and sum.
+    @Query("SELECT r.place.id, COUNT(r), " +
+            "SUM(CASE WHEN r.user.id = :googleUserId THEN 0 ELSE 1 END), " +
+            "SUM(CASE WHEN r.user.id = :googleUserId THEN 0 ELSE r.rating END), " +
+            "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END) " +
+            "FROM Review r WHERE r.place.id IN :placeIds GROUP BY r.place.id")
+    List<Object[]> aggregateReviewsByPlaceIds(@Param("placeIds") Collection<Long> placeIds,
+                                              @Param("googleUserId") Long googleUserId);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.classteam.skopjetourismguide.repository;
+
+import com.classteam.skopjetourismguide.model.TourJob;
+import com.classteam.skopjetourismguide.model.enumerations.TourJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TourJobRepository extends JpaRepository<TourJob, Long> {
+    List<TourJob> findByStatusInOrderByIdAsc(Collection<TourJobStatus> statuses);
+}
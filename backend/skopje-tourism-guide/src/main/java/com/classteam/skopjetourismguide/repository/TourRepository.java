@@ -3,9 +3,13 @@ package com.classteam.skopjetourismguide.repository;
 import com.classteam.skopjetourismguide.model.Preference;
 import com.classteam.skopjetourismguide.model.Tour;
 import com.classteam.skopjetourismguide.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +17,38 @@ public interface TourRepository extends JpaRepository<Tour, Long> {
     List<Tour> findByUser(User user);
     List<Tour> findByPreference(Preference preference);
     List<Tour> findByTitleContainingIgnoreCase(String title);
+
+    // Keyset pagination, newest first: tours with an id below beforeId, user and preference fetched
+    // in the same query. The places are fetched for the whole page at once with fetchPlaces.
+    @Query("SELECT t FROM Tour t JOIN FETCH t.user JOIN FETCH t.preference " +
+            "WHERE t.id < :beforeId ORDER BY t.id DESC")
+    List<Tour> findPageBefore(@Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("SELECT t FROM Tour t JOIN FETCH t.user JOIN FETCH t.preference " +
+            "WHERE t.user.id = :userId AND t.id < :beforeId ORDER BY t.id DESC")
+    List<Tour> findPageByUserIdBefore(@Param("userId") Long userId, @Param("beforeId") Long beforeId,
+                                      Pageable pageable);
+
+    @Query("SELECT t FROM Tour t JOIN FETCH t.user JOIN FETCH t.preference " +
+            "WHERE t.preference.id = :preferenceId AND t.id < :beforeId ORDER BY t.id DESC")
+    List<Tour> findPageByPreferenceIdBefore(@Param("preferenceId") Long preferenceId,
+                                            @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("SELECT t FROM Tour t JOIN FETCH t.user JOIN FETCH t.preference " +
+            "WHERE LOWER(t.title) LIKE LOWER(CONCAT('%', :title, '%')) AND t.id < :beforeId ORDER BY t.id DESC")
+    List<Tour> findPageByTitleBefore(@Param("title") String title, @Param("beforeId") Long beforeId,
+                                     Pageable pageable);
+
+    // Initializes the places of tours already in the persistence context, in one query for all of them
+    @Query("SELECT DISTINCT t FROM Tour t LEFT JOIN FETCH t.places WHERE t IN :tours")
+    List<Tour> fetchPlaces(@Param("tours") Collection<Tour> tours);
+
+    // Tours to edit, with everything their DTOs show, in one query
+    @Query("SELECT DISTINCT t FROM Tour t JOIN FETCH t.user JOIN FETCH t.preference LEFT JOIN FETCH t.places " +
+            "WHERE t.id IN :ids")
+    List<Tour> findAllWithPlacesById(@Param("ids") Collection<Long> ids);
+
+    long countByUserId(Long userId);
+    long countByPreferenceId(Long preferenceId);
+    long countByTitleContainingIgnoreCase(String title);
 }
\ No newline at end of file
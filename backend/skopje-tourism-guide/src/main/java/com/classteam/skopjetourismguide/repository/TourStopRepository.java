@@ -0,0 +1,84 @@
+package com.classteam.skopjetourismguide.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Writes changes to the stops of tours straight to the {@code tour_places_skopje} join table,
+ * one row per (tour, stop_order), as three JDBC batches whatever the number of tours. Used
+ * instead of replacing {@code Tour.places}, which makes Hibernate delete and reinsert every row.
+ * The tours' loaded place lists are not updated.
+ */
+@Repository
+public class TourStopRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TourStopRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Apply the changed stops; {@code updates} and {@code inserts} carry the new place,
+     * {@code deletes} only the position. Returns the number of rows written.
+     */
+    public int apply(List<Stop> updates, List<Stop> deletes, List<Stop> inserts) {
+        int rows = 0;
+        if (!updates.isEmpty()) {
+            rows += sum(jdbcTemplate.batchUpdate(
+                    "UPDATE tour_places_skopje SET place_id = ? WHERE tour_id = ? AND stop_order = ?",
+                    updates.stream().map(stop -> new Object[]{stop.placeId(), stop.tourId(), stop.stopOrder()}).toList()));
+        }
+        if (!deletes.isEmpty()) {
+            rows += sum(jdbcTemplate.batchUpdate(
+                    "DELETE FROM tour_places_skopje WHERE tour_id = ? AND stop_order = ?",
+                    deletes.stream().map(stop -> new Object[]{stop.tourId(), stop.stopOrder()}).toList()));
+        }
+        if (!inserts.isEmpty()) {
+            rows += sum(jdbcTemplate.batchUpdate(
+                    "INSERT INTO tour_places_skopje (tour_id, place_id, stop_order) VALUES (?, ?, ?)",
+                    inserts.stream().map(stop -> new Object[]{stop.tourId(), stop.placeId(), stop.stopOrder()}).toList()));
+        }
+        return rows;
+    }
+
+    /**
+     * Number the places of tours saved before stops were ordered. Those tours were loaded as
+     * an unordered bag, i.e. in the physical row order of the table, so that order is kept by
+     * numbering by {@code ctid}. A ctid only identifies a row until it is updated or the table
+     * is vacuumed, which is fine for numbering done in a single statement. The statement is
+     * PostgreSQL-only; other databases (H2 in tests) never held unordered stops, so nothing is
+     * done there.
+     */
+    public int numberUnorderedStops() {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return 0;
+        }
+        return jdbcTemplate.update("UPDATE tour_places_skopje t SET stop_order = numbered.position " +
+                "FROM (SELECT ctid AS row_id, ROW_NUMBER() OVER (PARTITION BY tour_id ORDER BY ctid) - 1 AS position " +
+                "      FROM tour_places_skopje " +
+                "      WHERE tour_id IN (SELECT tour_id FROM tour_places_skopje WHERE stop_order IS NULL)) numbered " +
+                "WHERE t.ctid = numbered.row_id");
+    }
+
+    // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+    private static int sum(int[] counts) {
+        int rows = 0;
+        for (int count : counts) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return rows;
+    }
+
+    /**
+     * One row of the join table: the place at a position of a tour's route
+     */
+    public record Stop(long tourId, int stopOrder, Long placeId) {
+    }
+}
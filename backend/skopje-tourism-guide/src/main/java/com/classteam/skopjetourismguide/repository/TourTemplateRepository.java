@@ -0,0 +1,14 @@
+package com.classteam.skopjetourismguide.repository;
+
+import com.classteam.skopjetourismguide.model.TourTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TourTemplateRepository extends JpaRepository<TourTemplate, Long> {
+    @Query("SELECT DISTINCT t FROM TourTemplate t LEFT JOIN FETCH t.placeIds")
+    List<TourTemplate> findAllWithPlaceIds();
+}
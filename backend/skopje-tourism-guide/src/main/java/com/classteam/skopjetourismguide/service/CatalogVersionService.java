@@ -0,0 +1,36 @@
+package com.classteam.skopjetourismguide.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counter of everything the place and tour read endpoints return. It is bumped
+ * after every committed place, review or tour mutation and drives their ETags, so a
+ * conditional GET can be answered with 304 without touching the database.
+ * <p>
+ * The boot id keeps ETags from a previous run (whose counter also started at zero)
+ * from ever matching after a restart.
+ */
+@Service
+public class CatalogVersionService {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    // Strong ETag for the current version
+    public String etag() {
+        return "\"" + bootId + "-" + version.get() + "\"";
+    }
+
+    /**
+     * Record a mutation; takes effect once the surrounding transaction (if any) commits
+     */
+    public void bump() {
+        TransactionHooks.afterCommit(version::incrementAndGet);
+    }
+}
@@ -7,7 +7,9 @@ import com.classteam.skopjetourismguide.model.Review;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -24,7 +26,63 @@ public class DtoMapper {
         dto.setAddress(place.getAddress());
         dto.setAverageRating(place.getAverageRating());
         dto.setPhotoReference(place.getPhotoReference());
-        dto.setReviewCount(place.getReviews() != null ? place.getReviews().size() : 0);
+        dto.setReviewCount(place.getReviewCount() != null ? place.getReviewCount() : 0);
+        return dto;
+    }
+
+    public PlaceDTO toPlaceDto(PlaceCatalogEntry entry) {
+        PlaceDTO dto = new PlaceDTO();
+        dto.setId(entry.id());
+        dto.setName(entry.name());
+        dto.setDescription(entry.description());
+        dto.setPlaceType(entry.placeType());
+        dto.setLatitude(entry.latitude());
+        dto.setLongitude(entry.longitude());
+        dto.setAddress(entry.address());
+        dto.setAverageRating(entry.averageRating());
+        dto.setPhotoReference(entry.photoReference());
+        dto.setReviewCount(entry.reviewCount());
+        return dto;
+    }
+
+    public PlaceDTO toPlaceDto(PlaceSummary summary) {
+        PlaceDTO dto = new PlaceDTO();
+        dto.setId(summary.id());
+        dto.setName(summary.name());
+        dto.setDescription(summary.description());
+        dto.setPlaceType(summary.placeType());
+        dto.setLatitude(summary.latitude());
+        dto.setLongitude(summary.longitude());
+        dto.setAddress(summary.address());
+        dto.setAverageRating(summary.averageRating());
+        dto.setPhotoReference(summary.photoReference());
+        dto.setReviewCount(summary.reviewCount() != null ? summary.reviewCount() : 0);
+        return dto;
+    }
+
+    public PlaceSuggestionDTO toPlaceSuggestionDto(PlaceCatalogEntry entry) {
+        PlaceSuggestionDTO dto = new PlaceSuggestionDTO();
+        dto.setId(entry.id());
+        dto.setName(entry.name());
+        dto.setVicinity(entry.vicinity());
+        dto.setPlaceType(entry.placeType());
+        dto.setAverageRating(entry.averageRating());
+        return dto;
+    }
+
+    public PlaceFacetsDTO toPlaceFacetsDto(PlaceCatalog.FacetCounts facetCounts) {
+        PlaceFacetsDTO dto = new PlaceFacetsDTO();
+        dto.setTotalMatches(facetCounts.totalMatches());
+
+        Map<String, List<PlaceFacetsDTO.FacetValue>> facets = new LinkedHashMap<>();
+        facetCounts.counts().forEach((facet, counts) -> facets.put(facet.parameter(),
+                counts.entrySet().stream().map(count -> {
+                    PlaceFacetsDTO.FacetValue value = new PlaceFacetsDTO.FacetValue();
+                    value.setValue(count.getKey());
+                    value.setCount(count.getValue());
+                    return value;
+                }).collect(Collectors.toList())));
+        dto.setFacets(facets);
         return dto;
     }
 
@@ -43,7 +101,9 @@ public class DtoMapper {
         dto.setAverageRating(place.getAverageRating());
         dto.setPhotoReference(place.getPhotoReference());
         dto.setSentimentTag(place.getSentimentTag());
-        dto.setReviewCount(place.getReviews() != null ? place.getReviews().size() : 0);
+        dto.setReviewCount(place.getReviewCount() != null ? place.getReviewCount() : 0);
+        dto.setUserAverageRating(place.getUserAverageRating());
+        dto.setRatingHistogram(place.getRatingHistogram());
 
         // Map only the recent reviews
         if (recentReviews != null) {
@@ -86,4 +146,22 @@ public class DtoMapper {
         response.setPagination(paginationInfo);
         return response;
     }
-}
\ No newline at end of file
+
+    // Cursor pages skip the COUNT query; approximateTotal comes from the in-memory catalog
+    public <D> PageResponseDTO<D> toCursorPageResponse(List<D> dtoContent, int size, String nextCursor,
+                                                       long approximateTotal) {
+        PageResponseDTO<D> response = new PageResponseDTO<>();
+        response.setContent(dtoContent);
+
+        PageResponseDTO.PaginationInfo paginationInfo = new PageResponseDTO.PaginationInfo();
+        paginationInfo.setPage(0);
+        paginationInfo.setSize(size);
+        paginationInfo.setTotalElements(approximateTotal);
+        paginationInfo.setTotalPages((int) ((approximateTotal + size - 1) / size));
+        paginationInfo.setLast(nextCursor == null);
+        paginationInfo.setNextCursor(nextCursor);
+
+        response.setPagination(paginationInfo);
+        return response;
+    }
+}
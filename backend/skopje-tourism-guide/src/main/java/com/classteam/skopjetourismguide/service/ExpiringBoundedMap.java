@@ -0,0 +1,131 @@
+package com.classteam.skopjetourismguide.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe map whose entries expire a fixed TTL after they were put and whose oldest
+ * entries are evicted beyond a size limit; oldest by last access in access order, by
+ * insertion otherwise. Expired entries are dropped when they are looked up. Values the
+ * {@code evictable} predicate rejects are skipped by eviction, so the map may then exceed
+ * its limit until they become evictable and another entry is put.
+ */
+final class ExpiringBoundedMap<K, V> {
+
+    private final Duration ttl;
+    private final int maxSize;
+    private final Predicate<V> evictable;
+    private final Map<K, Timed<V>> entries;
+
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    ExpiringBoundedMap(Duration ttl, int maxSize, boolean accessOrder) {
+        this(ttl, maxSize, accessOrder, value -> true);
+    }
+
+    ExpiringBoundedMap(Duration ttl, int maxSize, boolean accessOrder, Predicate<V> evictable) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.evictable = evictable;
+        this.entries = new LinkedHashMap<>(16, 0.75f, accessOrder);
+    }
+
+    /**
+     * The live value of the key, or null
+     */
+    V get(K key) {
+        synchronized (entries) {
+            return live(key);
+        }
+    }
+
+    void put(K key, V value) {
+        Timed<V> timed = new Timed<>(value, System.nanoTime() + ttl.toNanos());
+        synchronized (entries) {
+            entries.put(key, timed);
+            evictOverflow();
+        }
+    }
+
+    /**
+     * Store the value unless the key has a live one; returns that live value, or null when stored
+     */
+    V putIfAbsent(K key, V value) {
+        Timed<V> timed = new Timed<>(value, System.nanoTime() + ttl.toNanos());
+        synchronized (entries) {
+            V current = live(key);
+            if (current == null) {
+                entries.put(key, timed);
+                evictOverflow();
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Remove the key if it still maps to this value
+     */
+    boolean remove(K key, V value) {
+        synchronized (entries) {
+            Timed<V> timed = entries.get(key);
+            if (timed == null || timed.value() != value) {
+                return false;
+            }
+            entries.remove(key);
+            return true;
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long expirations() {
+        return expirations.get();
+    }
+
+    long evictions() {
+        return evictions.get();
+    }
+
+    // Callers hold the lock; drops the oldest evictable entries beyond the size limit
+    private void evictOverflow() {
+        Iterator<Timed<V>> oldestFirst = entries.values().iterator();
+        while (entries.size() > maxSize && oldestFirst.hasNext()) {
+            if (evictable.test(oldestFirst.next().value())) {
+                oldestFirst.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // Callers hold the lock
+    private V live(K key) {
+        Timed<V> timed = entries.get(key);
+        if (timed == null) {
+            return null;
+        }
+        if (timed.expiresAt() < System.nanoTime()) {
+            entries.remove(key);
+            expirations.incrementAndGet();
+            return null;
+        }
+        return timed.value();
+    }
+
+    private record Timed<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.classteam.skopjetourismguide.service;
+
+/**
+ * Great-circle distance helpers for place coordinates
+ */
+public final class GeoDistance {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    public static final double METERS_PER_DEGREE_LATITUDE = Math.PI * EARTH_RADIUS_METERS / 180.0;
+
+    private GeoDistance() {
+    }
+
+    /**
+     * Haversine distance in meters between two WGS84 coordinates
+     */
+    public static double haversineMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Degrees of longitude spanned by the given distance at the given latitude
+     */
+    public static double metersToLongitudeDegrees(double meters, double latitude) {
+        double cos = Math.cos(Math.toRadians(latitude));
+        return cos < 1e-9 ? 360.0 : meters / (METERS_PER_DEGREE_LATITUDE * cos);
+    }
+}
@@ -0,0 +1,142 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.exception.IdempotencyKeyReusedException;
+import com.classteam.skopjetourismguide.exception.IdempotentRequestInProgressException;
+import com.classteam.skopjetourismguide.exception.InvalidIdempotencyKeyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a create request at most once per {@code Idempotency-Key}, so a client retrying after a
+ * timeout gets the original response instead of a second tour or review. The first request
+ * with a key runs the action; a retry that arrives while it is still running waits a bounded
+ * time for that same computation and is answered 409 if it is still running by then, and a
+ * later retry gets its result straight away.
+ * <p>
+ * Keys are scoped per endpoint and remembered together with the SHA-256 of the request body as
+ * JSON: the same key with a different body is rejected. A request that fails is forgotten, so its retry
+ * runs again. Entries expire after a TTL and the oldest finished ones are evicted beyond the size
+ * limit; running ones are never evicted, so their retries cannot run the action a second time.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+    private final Duration waitTimeout;
+    private final ExpiringBoundedMap<Key, Entry> entries;
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public IdempotencyService(ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${idempotency.max-size:10000}") int maxSize,
+                              @Value("${idempotency.wait-timeout:PT2S}") Duration waitTimeout) {
+        this.objectMapper = objectMapper;
+        this.waitTimeout = waitTimeout;
+        this.entries = new ExpiringBoundedMap<>(ttl, maxSize, false, entry -> entry.result().isDone());
+    }
+
+    /**
+     * The result of {@code action}, run once per scope and key; without a key it simply runs
+     */
+    public <T> T execute(String scope, String idempotencyKey, Object request, Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(MAX_KEY_LENGTH);
+        }
+
+        Key key = new Key(scope, idempotencyKey);
+        // Taken now: the action may modify the request object
+        byte[] fingerprint = fingerprint(request);
+        Entry created = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing = entries.putIfAbsent(key, created);
+        boolean first = existing == null;
+        Entry entry = first ? created : existing;
+        if (!Arrays.equals(entry.fingerprint(), fingerprint)) {
+            throw new IdempotencyKeyReusedException(idempotencyKey);
+        }
+
+        if (first) {
+            executions.incrementAndGet();
+            try {
+                T result = action.get();
+                entry.result().complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                entries.remove(key, entry);
+                entry.result().completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        (entry.result().isDone() ? replays : coalesced).incrementAndGet();
+        try {
+            @SuppressWarnings("unchecked")
+            T result = (T) entry.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return result;
+        } catch (TimeoutException e) {
+            // Don't hold a request thread for the whole of a long-running original
+            throw new IdempotentRequestInProgressException(idempotencyKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotentRequestInProgressException(idempotencyKey);
+        } catch (ExecutionException e) {
+            // The original request failed; its exception (and response status) is the answer
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(executions.get(), replays.get(), coalesced.get(), entries.size());
+    }
+
+    // SHA-256 of the request as JSON, so equal bodies match whatever their object identity
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be serialized", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every JVM ships SHA-256
+        }
+    }
+
+    /**
+     * Counters since startup: actions run, retries answered from a finished request and
+     * retries that waited for a running one, and the number of keys remembered
+     */
+    public record Stats(long executions, long replays, long coalesced, int size) {
+    }
+
+    private record Key(String scope, String idempotencyKey) {
+    }
+
+    private record Entry(byte[] fingerprint, CompletableFuture<Object> result) {
+    }
+}
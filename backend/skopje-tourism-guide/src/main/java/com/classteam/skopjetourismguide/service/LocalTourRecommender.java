@@ -0,0 +1,234 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.SentimentTag;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * In-process tour recommender, used instead of the AI or as its fallback.
+ * Places are picked greedily: every round takes the candidate with the best score, where the
+ * score starts from the candidate's rating confidence, review volume and sentiment match
+ * (see {@link TourCandidateRanker}) and is then
+ * <ul>
+ *     <li>decayed for every place of the same type already picked (type diversity),</li>
+ *     <li>decayed with the distance from the centre of the places picked so far (compactness),</li>
+ *     <li>boosted while a requested category (sights, food, drinks, shopping) is still missing.</li>
+ * </ul>
+ * Food and drink places are capped to a quarter of the tour each, malls to one.
+ */
+@Service
+public class LocalTourRecommender {
+
+    private static final double SAME_TYPE_DECAY = 0.7;
+    private static final double COMPACTNESS_SCALE_METERS = 2_000;
+    private static final double MISSING_COORDINATES_FACTOR = 0.75;
+    private static final double COVERAGE_BONUS = 0.25;
+
+    enum Category {
+        SIGHTS, FOOD, DRINKS, SHOPPING;
+
+        static Category of(PlaceType placeType) {
+            if (placeType == null) {
+                return SIGHTS;
+            }
+            return switch (placeType) {
+                case RESTAURANT -> FOOD;
+                case CAFE_BAR, BAR -> DRINKS;
+                case MALL -> SHOPPING;
+                default -> SIGHTS;
+            };
+        }
+    }
+
+    /**
+     * Up to {@code maxPlaces} places for the preference, in the order they were picked
+     */
+    public List<Place> recommend(Preference preference, List<Place> eligiblePlaces, int maxPlaces) {
+        Set<SentimentTag> wantedTags = TourCandidateRanker.wantedSentiments(preference);
+        Set<Category> requested = requestedCategories(preference);
+
+        // Deduplicated candidates with their static part of the score
+        Map<Long, Place> unique = new LinkedHashMap<>();
+        for (Place place : eligiblePlaces) {
+            unique.putIfAbsent(place.getId(), place);
+        }
+        Place[] candidates = unique.values().toArray(new Place[0]);
+        int count = candidates.length;
+
+        // Flat per-candidate state so the O(candidates x maxPlaces) loop below does no boxing or map lookups.
+        // Coordinates are projected to meters on a plane through the first located place, which is
+        // exact enough within a city and saves a haversine per candidate and round.
+        double[] baseScores = new double[count];
+        int[] typeIndex = new int[count];
+        int[] categoryIndex = new int[count];
+        double[] x = new double[count];
+        double[] y = new double[count];
+        boolean[] located = new boolean[count];
+        double originLat = Double.NaN;
+        double originLng = 0;
+        double metersPerDegreeLongitude = 0;
+        for (int i = 0; i < count; i++) {
+            Place place = candidates[i];
+            baseScores[i] = TourCandidateRanker.score(place, wantedTags);
+            typeIndex[i] = place.getPlaceType() != null ? place.getPlaceType().ordinal() : PlaceType.values().length;
+            categoryIndex[i] = Category.of(place.getPlaceType()).ordinal();
+            if (hasCoordinates(place)) {
+                if (Double.isNaN(originLat)) {
+                    originLat = place.getLatitude();
+                    originLng = place.getLongitude();
+                    metersPerDegreeLongitude = GeoDistance.METERS_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians(originLat));
+                }
+                x[i] = (place.getLongitude() - originLng) * metersPerDegreeLongitude;
+                y[i] = (place.getLatitude() - originLat) * GeoDistance.METERS_PER_DEGREE_LATITUDE;
+                located[i] = true;
+            }
+        }
+
+        int[] caps = new int[Category.values().length];
+        Arrays.fill(caps, Integer.MAX_VALUE);
+        caps[Category.FOOD.ordinal()] = Math.max(1, maxPlaces / 4);
+        caps[Category.DRINKS.ordinal()] = Math.max(1, maxPlaces / 4);
+        caps[Category.SHOPPING.ordinal()] = 1;
+        boolean[] requestedCategory = new boolean[Category.values().length];
+        for (Category category : requested) {
+            requestedCategory[category.ordinal()] = true;
+        }
+        double[] typeDecay = new double[maxPlaces + 1];
+        for (int n = 0; n <= maxPlaces; n++) {
+            typeDecay[n] = Math.pow(SAME_TYPE_DECAY, n);
+        }
+
+        List<Place> selected = new ArrayList<>(maxPlaces);
+        boolean[] taken = new boolean[count];
+        int[] perType = new int[PlaceType.values().length + 1];
+        int[] perCategory = new int[Category.values().length];
+        double xSum = 0;
+        double ySum = 0;
+        int locatedCount = 0;
+
+        while (selected.size() < maxPlaces) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            double centerX = locatedCount > 0 ? xSum / locatedCount : 0;
+            double centerY = locatedCount > 0 ? ySum / locatedCount : 0;
+            for (int i = 0; i < count; i++) {
+                int category = categoryIndex[i];
+                if (taken[i] || perCategory[category] >= caps[category]) {
+                    continue;
+                }
+
+                double score = baseScores[i] * typeDecay[perType[typeIndex[i]]];
+                if (locatedCount > 0) {
+                    score *= located[i]
+                            ? compactness(Math.hypot(x[i] - centerX, y[i] - centerY))
+                            : MISSING_COORDINATES_FACTOR;
+                }
+                if (perCategory[category] == 0 && requestedCategory[category]) {
+                    score += COVERAGE_BONUS;
+                }
+                if (score > bestScore || (score == bestScore && candidates[i].getId() < candidates[best].getId())) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+
+            taken[best] = true;
+            selected.add(candidates[best]);
+            perType[typeIndex[best]]++;
+            perCategory[categoryIndex[best]]++;
+            if (located[best]) {
+                xSum += x[best];
+                ySum += y[best];
+                locatedCount++;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Quality measures of a tour, used to compare the recommendation engines
+     */
+    public static TourQuality evaluate(Preference preference, List<Place> places) {
+        if (places.isEmpty()) {
+            return new TourQuality(0, 0, 0, 0);
+        }
+
+        double ratingSum = 0;
+        int rated = 0;
+        Set<PlaceType> types = EnumSet.noneOf(PlaceType.class);
+        Set<Category> covered = EnumSet.noneOf(Category.class);
+        for (Place place : places) {
+            if (place.getAverageRating() != null) {
+                ratingSum += place.getAverageRating();
+                rated++;
+            }
+            if (place.getPlaceType() != null) {
+                types.add(place.getPlaceType());
+            }
+            covered.add(Category.of(place.getPlaceType()));
+        }
+
+        Set<Category> requested = requestedCategories(preference);
+        long coveredRequested = requested.stream().filter(covered::contains).count();
+
+        double distanceSum = 0;
+        int pairs = 0;
+        for (int i = 0; i < places.size(); i++) {
+            for (int j = i + 1; j < places.size(); j++) {
+                Place a = places.get(i);
+                Place b = places.get(j);
+                if (hasCoordinates(a) && hasCoordinates(b)) {
+                    distanceSum += GeoDistance.haversineMeters(a.getLatitude(), a.getLongitude(),
+                            b.getLatitude(), b.getLongitude());
+                    pairs++;
+                }
+            }
+        }
+
+        return new TourQuality(
+                rated == 0 ? 0 : ratingSum / rated,
+                (double) types.size() / places.size(),
+                requested.isEmpty() ? 1 : (double) coveredRequested / requested.size(),
+                pairs == 0 ? 0 : distanceSum / pairs);
+    }
+
+    /**
+     * Average rating, share of distinct place types, share of requested categories covered
+     * and mean distance in meters between any two places of the tour
+     */
+    public record TourQuality(double averageRating, double typeDiversity, double coverage, double meanSpreadMeters) {
+    }
+
+    private static Set<Category> requestedCategories(Preference preference) {
+        Set<Category> requested = EnumSet.noneOf(Category.class);
+        if (preference.getAttractionTypePreferences() != null && !preference.getAttractionTypePreferences().isEmpty()) {
+            requested.add(Category.SIGHTS);
+        }
+        if (preference.getFoodTypePreferences() != null && !preference.getFoodTypePreferences().isEmpty()) {
+            requested.add(Category.FOOD);
+        }
+        if (preference.getDrinkTypePreferences() != null && !preference.getDrinkTypePreferences().isEmpty()) {
+            requested.add(Category.DRINKS);
+        }
+        if (Boolean.TRUE.equals(preference.getIncludeShoppingMalls())) {
+            requested.add(Category.SHOPPING);
+        }
+        return requested;
+    }
+
+    // 1 at the centre, falling towards 0.5 a few kilometres away
+    private static double compactness(double distanceMeters) {
+        return 0.5 + 0.5 * Math.exp(-distanceMeters / COMPACTNESS_SCALE_METERS);
+    }
+
+    private static boolean hasCoordinates(Place place) {
+        return place.getLatitude() != null && place.getLongitude() != null;
+    }
+}
@@ -0,0 +1,176 @@
+package com.classteam.skopjetourismguide.service;
+
+import java.time.DayOfWeek;
+import java.util.*;
+
+/**
+ * Weekly opening hours of a place, as stored in {@code Place.openingHours}: comma-separated
+ * periods such as {@code "MON 09:00-17:00, FRI 22:00-02:00, SAT 08:00-MON 06:00"}, where a
+ * closing time without a day is on the opening day, or the next day when it is not later than
+ * the opening time. {@code "24/7"} means always open.
+ * <p>
+ * Parsed into sorted, merged intervals in minutes of the week, Monday 00:00 being minute 0.
+ */
+public final class OpeningHours {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    public static final String ALWAYS_OPEN = "24/7";
+
+    private static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+
+    // Start and end minute pairs; an interval may run past the end of the week
+    private final int[] intervals;
+
+    private OpeningHours(int[] intervals) {
+        this.intervals = intervals;
+    }
+
+    /**
+     * The opening hours in the stored format, or null when they are unknown (blank)
+     */
+    public static OpeningHours parse(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        if (ALWAYS_OPEN.equals(text.trim())) {
+            return new OpeningHours(new int[]{0, 2 * MINUTES_PER_WEEK});
+        }
+
+        List<int[]> periods = new ArrayList<>();
+        for (String period : text.split(",")) {
+            String[] openAndClose = period.trim().split("-");
+            if (openAndClose.length != 2) {
+                throw new IllegalArgumentException("Invalid opening period: " + period);
+            }
+            int open = minuteOfWeek(openAndClose[0].trim(), -1);
+            int close = minuteOfWeek(openAndClose[1].trim(), open / MINUTES_PER_DAY);
+            while (close <= open) {
+                close += openAndClose[1].trim().length() > 5 ? MINUTES_PER_WEEK : MINUTES_PER_DAY;
+            }
+            periods.add(new int[]{open, close});
+        }
+        return new OpeningHours(merge(periods));
+    }
+
+    /**
+     * Google Place Details {@code opening_hours.periods} in the stored format. Days there
+     * count from Sunday (0) and times are "HHMM"; a single period without a close is 24/7.
+     */
+    @SuppressWarnings("unchecked")
+    public static String fromGooglePeriods(List<Map<String, Object>> periods) {
+        if (periods == null || periods.isEmpty()) {
+            return null;
+        }
+        List<String> formatted = new ArrayList<>();
+        for (Map<String, Object> period : periods) {
+            Map<String, Object> open = (Map<String, Object>) period.get("open");
+            Map<String, Object> close = (Map<String, Object>) period.get("close");
+            if (open == null) {
+                continue;
+            }
+            if (close == null) {
+                return ALWAYS_OPEN;
+            }
+            int openMinute = googleMinuteOfWeek(open);
+            int closeMinute = googleMinuteOfWeek(close);
+            if (closeMinute <= openMinute) {
+                closeMinute += MINUTES_PER_WEEK;
+            }
+            formatted.add(format(openMinute, closeMinute));
+        }
+        return formatted.isEmpty() ? null : String.join(", ", formatted);
+    }
+
+    /**
+     * Earliest minute from {@code minuteOfWeek} at which a visit of {@code duration} minutes
+     * fits into one opening period, or -1 when none does within a week. The result may lie
+     * past the end of the week.
+     */
+    public int earliestStart(int minuteOfWeek, int duration) {
+        int from = Math.floorMod(minuteOfWeek, MINUTES_PER_WEEK);
+        int shift = minuteOfWeek - from;
+        // Periods of this week and the next, so visits can run into next Monday
+        for (int week = -1; week <= 1; week++) {
+            for (int i = 0; i < intervals.length; i += 2) {
+                int start = intervals[i] + week * MINUTES_PER_WEEK;
+                int end = intervals[i + 1] + week * MINUTES_PER_WEEK;
+                int begin = Math.max(start, from);
+                if (begin + duration <= end) {
+                    return begin + shift;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public static int minuteOfWeek(DayOfWeek day, int minuteOfDay) {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + minuteOfDay;
+    }
+
+    // "MON 09:00", or "09:00" on the given day
+    private static int minuteOfWeek(String text, int defaultDay) {
+        String[] parts = text.split("\\s+");
+        int day;
+        String time;
+        if (parts.length == 2) {
+            day = Arrays.asList(DAYS).indexOf(parts[0].toUpperCase(Locale.ROOT));
+            time = parts[1];
+        } else {
+            day = defaultDay;
+            time = parts[0];
+        }
+        String[] hoursAndMinutes = time.split(":");
+        if (day < 0 || hoursAndMinutes.length != 2) {
+            throw new IllegalArgumentException("Invalid opening time: " + text);
+        }
+        return day * MINUTES_PER_DAY + Integer.parseInt(hoursAndMinutes[0]) * 60 + Integer.parseInt(hoursAndMinutes[1]);
+    }
+
+    private static int googleMinuteOfWeek(Map<String, Object> dayAndTime) {
+        int googleDay = ((Number) dayAndTime.get("day")).intValue();
+        String time = (String) dayAndTime.get("time");
+        int day = (googleDay + 6) % 7; // Sunday 0 -> 6
+        return day * MINUTES_PER_DAY + Integer.parseInt(time.substring(0, 2)) * 60 + Integer.parseInt(time.substring(2, 4));
+    }
+
+    private static String format(int open, int close) {
+        String closeText = close - open < MINUTES_PER_DAY
+                ? time(close)
+                : DAYS[(close / MINUTES_PER_DAY) % 7] + " " + time(close);
+        return DAYS[open / MINUTES_PER_DAY] + " " + time(open) + "-" + closeText;
+    }
+
+    private static String time(int minute) {
+        int minuteOfDay = minute % MINUTES_PER_DAY;
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    // Sorted intervals, overlapping or touching ones merged, including across the end of the week
+    private static int[] merge(List<int[]> periods) {
+        List<int[]> all = new ArrayList<>(periods);
+        for (int[] period : periods) {
+            if (period[1] > MINUTES_PER_WEEK) {
+                // The part past Sunday night also opens the start of the week
+                all.add(new int[]{period[0] - MINUTES_PER_WEEK, period[1] - MINUTES_PER_WEEK});
+            }
+        }
+        all.sort(Comparator.comparingInt(period -> period[0]));
+
+        List<int[]> merged = new ArrayList<>();
+        for (int[] period : all) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && period[0] <= last[1]) {
+                last[1] = Math.max(last[1], period[1]);
+            } else {
+                merged.add(new int[]{period[0], period[1]});
+            }
+        }
+        int[] intervals = new int[merged.size() * 2];
+        for (int i = 0; i < merged.size(); i++) {
+            intervals[2 * i] = merged.get(i)[0];
+            intervals[2 * i + 1] = merged.get(i)[1];
+        }
+        return intervals;
+    }
+}
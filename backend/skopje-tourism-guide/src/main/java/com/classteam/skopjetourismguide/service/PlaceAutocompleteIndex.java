@@ -0,0 +1,360 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+
+import java.util.*;
+
+/**
+ * Typo-tolerant prefix index over place names and vicinities for search-box autocomplete.
+ * Tokens are folded with {@link TextNormalizer#foldForMatching}, so Cyrillic and Latin
+ * spellings meet. Candidate tokens come from a sorted token dictionary (prefix hits) and
+ * a trigram index (typo hits), then get verified with a bounded edit distance.
+ * <p>
+ * The index is immutable. {@link #withUpsert} and {@link #withRemoval} return a new index
+ * that shares everything except the postings and trigram lists touched by the changed place.
+ */
+final class PlaceAutocompleteIndex {
+
+    private static final double NAME_FIELD_WEIGHT = 1.0;
+    private static final double VICINITY_FIELD_WEIGHT = 0.6;
+    private static final int MAX_PREFIX_CANDIDATES = 512;
+
+    // Token -> sorted (placeId << 1 | 1 if the token is in the name, 0 if in the vicinity)
+    private final Map<String, long[]> postings;
+    // Padded trigram -> tokens containing it
+    private final Map<String, String[]> trigramTokens;
+    private final String[] sortedTokens;
+
+    private PlaceAutocompleteIndex(Map<String, long[]> postings, Map<String, String[]> trigramTokens, String[] sortedTokens) {
+        this.postings = postings;
+        this.trigramTokens = trigramTokens;
+        this.sortedTokens = sortedTokens;
+    }
+
+    static PlaceAutocompleteIndex build(Collection<PlaceCatalogEntry> entries) {
+        Map<String, List<Long>> building = new HashMap<>();
+        for (PlaceCatalogEntry entry : entries) {
+            for (Map.Entry<String, Long> code : codesOf(entry).entrySet()) {
+                building.computeIfAbsent(code.getKey(), t -> new ArrayList<>()).add(code.getValue());
+            }
+        }
+
+        Map<String, long[]> postings = new HashMap<>(building.size() * 2);
+        Map<String, List<String>> trigrams = new HashMap<>();
+        building.forEach((token, codes) -> {
+            long[] sorted = codes.stream().mapToLong(Long::longValue).sorted().toArray();
+            postings.put(token, sorted);
+            for (String trigram : trigramsOf(token)) {
+                trigrams.computeIfAbsent(trigram, t -> new ArrayList<>()).add(token);
+            }
+        });
+
+        Map<String, String[]> trigramTokens = new HashMap<>(trigrams.size() * 2);
+        trigrams.forEach((trigram, tokens) -> trigramTokens.put(trigram, tokens.toArray(new String[0])));
+
+        String[] sortedTokens = postings.keySet().toArray(new String[0]);
+        Arrays.sort(sortedTokens);
+        return new PlaceAutocompleteIndex(postings, trigramTokens, sortedTokens);
+    }
+
+    /**
+     * Index with {@code current} replacing {@code previous} (which may be null for a new place)
+     */
+    PlaceAutocompleteIndex withUpsert(PlaceCatalogEntry previous, PlaceCatalogEntry current) {
+        return apply(previous != null ? codesOf(previous) : Map.of(), codesOf(current));
+    }
+
+    PlaceAutocompleteIndex withRemoval(PlaceCatalogEntry previous) {
+        return apply(codesOf(previous), Map.of());
+    }
+
+    private PlaceAutocompleteIndex apply(Map<String, Long> removedCodes, Map<String, Long> addedCodes) {
+        Map<String, long[]> newPostings = new HashMap<>(postings);
+        Set<String> vanishedTokens = new HashSet<>();
+        Set<String> newTokens = new HashSet<>();
+
+        for (Map.Entry<String, Long> code : removedCodes.entrySet()) {
+            if (code.getValue().equals(addedCodes.get(code.getKey()))) {
+                continue;
+            }
+            long[] current = newPostings.get(code.getKey());
+            long[] updated = current != null ? without(current, code.getValue()) : null;
+            if (updated == null || updated.length == 0) {
+                newPostings.remove(code.getKey());
+                vanishedTokens.add(code.getKey());
+            } else {
+                newPostings.put(code.getKey(), updated);
+            }
+        }
+        for (Map.Entry<String, Long> code : addedCodes.entrySet()) {
+            if (code.getValue().equals(removedCodes.get(code.getKey()))) {
+                continue;
+            }
+            long[] current = newPostings.get(code.getKey());
+            if (current == null) {
+                newPostings.put(code.getKey(), new long[]{code.getValue()});
+                if (!vanishedTokens.remove(code.getKey())) {
+                    newTokens.add(code.getKey());
+                }
+            } else {
+                newPostings.put(code.getKey(), with(current, code.getValue()));
+            }
+        }
+
+        if (vanishedTokens.isEmpty() && newTokens.isEmpty()) {
+            return new PlaceAutocompleteIndex(newPostings, trigramTokens, sortedTokens);
+        }
+
+        Map<String, String[]> newTrigrams = new HashMap<>(trigramTokens);
+        for (String token : vanishedTokens) {
+            for (String trigram : trigramsOf(token)) {
+                String[] tokens = newTrigrams.get(trigram);
+                if (tokens != null) {
+                    String[] remaining = Arrays.stream(tokens).filter(t -> !t.equals(token)).toArray(String[]::new);
+                    if (remaining.length == 0) {
+                        newTrigrams.remove(trigram);
+                    } else {
+                        newTrigrams.put(trigram, remaining);
+                    }
+                }
+            }
+        }
+        for (String token : newTokens) {
+            for (String trigram : trigramsOf(token)) {
+                String[] tokens = newTrigrams.getOrDefault(trigram, new String[0]);
+                String[] extended = Arrays.copyOf(tokens, tokens.length + 1);
+                extended[tokens.length] = token;
+                newTrigrams.put(trigram, extended);
+            }
+        }
+
+        List<String> tokens = new ArrayList<>(sortedTokens.length + newTokens.size());
+        for (String token : sortedTokens) {
+            if (!vanishedTokens.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        for (String token : newTokens) {
+            int at = Collections.binarySearch(tokens, token);
+            tokens.add(-at - 1, token);
+        }
+        return new PlaceAutocompleteIndex(newPostings, newTrigrams, tokens.toArray(new String[0]));
+    }
+
+    /**
+     * Top {@code limit} places for what the user has typed so far. Every query word must
+     * match a name or vicinity word; the last word may be incomplete. Words of 4-6 letters
+     * tolerate one typo, longer words two.
+     */
+    List<PlaceCatalogEntry> suggest(String query, int limit, Map<Long, PlaceCatalogEntry> byId) {
+        List<String> queryTokens = TextNormalizer.split(TextNormalizer.foldForMatching(query));
+        if (queryTokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        Map<Long, Double> scores = null;
+        for (int i = 0; i < queryTokens.size(); i++) {
+            boolean prefix = lastIsPrefix && i == queryTokens.size() - 1;
+            Map<Long, Double> tokenScores = matchToken(queryTokens.get(i), prefix);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                Map<Long, Double> combined = new HashMap<>();
+                for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                    Double other = tokenScores.get(score.getKey());
+                    if (other != null) {
+                        combined.put(score.getKey(), score.getValue() + other);
+                    }
+                }
+                scores = combined;
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        PriorityQueue<Map.Entry<PlaceCatalogEntry, Double>> best =
+                new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            PlaceCatalogEntry entry = byId.get(score.getKey());
+            if (entry == null) {
+                continue;
+            }
+            best.add(Map.entry(entry, score.getValue() + popularityTiebreak(entry)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<PlaceCatalogEntry> suggestions = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            suggestions.add(best.poll().getKey());
+        }
+        Collections.reverse(suggestions);
+        return suggestions;
+    }
+
+    int tokenCount() {
+        return sortedTokens.length;
+    }
+
+    // Best match quality per place for one query word
+    private Map<Long, Double> matchToken(String queryToken, boolean prefix) {
+        int maxTypos = queryToken.length() <= 3 ? 0 : queryToken.length() <= 6 ? 1 : 2;
+        Map<String, Integer> matched = new HashMap<>();
+
+        if (prefix) {
+            int from = Arrays.binarySearch(sortedTokens, queryToken);
+            from = from >= 0 ? from : -from - 1;
+            for (int i = from; i < sortedTokens.length && i < from + MAX_PREFIX_CANDIDATES
+                    && sortedTokens[i].startsWith(queryToken); i++) {
+                matched.put(sortedTokens[i], 0);
+            }
+        } else if (postings.containsKey(queryToken)) {
+            matched.put(queryToken, 0);
+        }
+
+        if (maxTypos > 0) {
+            List<String> queryTrigrams = trigramsOf(queryToken);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                for (String token : trigramTokens.getOrDefault(trigram, new String[0])) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+            // Each edit destroys at most three trigrams
+            int threshold = Math.max(1, queryTrigrams.size() - 3 * maxTypos);
+            for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+                String token = candidate.getKey();
+                if (candidate.getValue() < threshold || matched.containsKey(token)) {
+                    continue;
+                }
+                int distance = prefix
+                        ? prefixDistance(queryToken, token, maxTypos)
+                        : distance(queryToken, token, maxTypos);
+                if (distance <= maxTypos) {
+                    matched.put(token, distance);
+                }
+            }
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Integer> match : matched.entrySet()) {
+            int typos = match.getValue();
+            double quality = typos == 0 ? 1.0 : typos == 1 ? 0.75 : 0.5;
+            if (typos == 0 && match.getKey().equals(queryToken)) {
+                quality += 0.1; // Whole-word hit beats a longer word sharing the prefix
+            }
+            for (long code : postings.get(match.getKey())) {
+                double score = quality * ((code & 1) == 1 ? NAME_FIELD_WEIGHT : VICINITY_FIELD_WEIGHT);
+                scores.merge(code >>> 1, score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    // Small enough to only break ties between equally good text matches
+    private static double popularityTiebreak(PlaceCatalogEntry entry) {
+        double rating = entry.averageRating() != null ? entry.averageRating() : 0;
+        double votes = entry.userRatingsTotal() != null ? Math.max(0, entry.userRatingsTotal()) : 0;
+        return 0.01 * rating + 0.01 * Math.log10(1 + votes);
+    }
+
+    private static Map<String, Long> codesOf(PlaceCatalogEntry entry) {
+        Map<String, Long> codes = new HashMap<>();
+        long id = entry.id();
+        for (String token : TextNormalizer.split(TextNormalizer.foldForMatching(entry.vicinity()))) {
+            codes.put(token, id << 1);
+        }
+        // Name wins when a word appears in both fields
+        for (String token : TextNormalizer.split(TextNormalizer.foldForMatching(entry.name()))) {
+            codes.put(token, (id << 1) | 1);
+        }
+        return codes;
+    }
+
+    private static List<String> trigramsOf(String token) {
+        String padded = "$$" + token;
+        List<String> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static long[] with(long[] sorted, long code) {
+        int at = Arrays.binarySearch(sorted, code);
+        if (at >= 0) {
+            return sorted;
+        }
+        int insert = -at - 1;
+        long[] result = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, insert);
+        result[insert] = code;
+        System.arraycopy(sorted, insert, result, insert + 1, sorted.length - insert);
+        return result;
+    }
+
+    private static long[] without(long[] sorted, long code) {
+        int at = Arrays.binarySearch(sorted, code);
+        if (at < 0) {
+            return sorted;
+        }
+        long[] result = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, at);
+        System.arraycopy(sorted, at + 1, result, at, sorted.length - at - 1);
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent transpositions),
+     * giving up with {@code max + 1} as soon as the bound is exceeded
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[][] d = alignment(a, b, max);
+        return d == null ? max + 1 : Math.min(max + 1, d[a.length()][b.length()]);
+    }
+
+    /**
+     * Smallest distance between {@code typed} and any prefix of {@code token}
+     */
+    static int prefixDistance(String typed, String token, int max) {
+        int[][] d = alignment(typed, token, max);
+        if (d == null) {
+            return max + 1;
+        }
+        int best = max + 1;
+        for (int j = 0; j <= token.length(); j++) {
+            best = Math.min(best, d[typed.length()][j]);
+        }
+        return best;
+    }
+
+    private static int[][] alignment(String a, String b, int max) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            d[i][0] = i;
+            int rowMin = d[i][0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, d[i - 2][j - 2] + 1);
+                }
+                d[i][j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return null;
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,221 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Immutable snapshot of the whole place catalog.
+ * Places are pre-sorted by average rating (highest first, unrated last, ties by id)
+ * and additionally indexed by id, by place type, by location and by text. A snapshot is never modified;
+ * every write produces a new snapshot that is swapped in by {@link PlaceCatalogService}.
+ */
+public final class PlaceCatalog {
+
+    static final Comparator<PlaceCatalogEntry> BY_RATING_DESC = Comparator
+            .comparing(PlaceCatalogEntry::averageRating, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(PlaceCatalogEntry::id);
+
+    private static final PlaceCatalog EMPTY = of(List.of());
+
+    private final List<PlaceCatalogEntry> byRating;
+    private final Map<Long, PlaceCatalogEntry> byId;
+    private final Map<PlaceType, List<PlaceCatalogEntry>> byType;
+    private final PlaceSpatialIndex spatialIndex;
+    private final PlaceSearchIndex searchIndex;
+    private final PlaceAutocompleteIndex autocompleteIndex;
+    private final PlaceFacetIndex facetIndex;
+
+    private PlaceCatalog(List<PlaceCatalogEntry> sortedEntries, PlaceAutocompleteIndex autocompleteIndex) {
+        this.byRating = List.copyOf(sortedEntries);
+
+        Map<Long, PlaceCatalogEntry> ids = new HashMap<>(sortedEntries.size() * 2);
+        Map<PlaceType, List<PlaceCatalogEntry>> types = new EnumMap<>(PlaceType.class);
+        for (PlaceCatalogEntry entry : sortedEntries) {
+            ids.put(entry.id(), entry);
+            if (entry.placeType() != null) {
+                types.computeIfAbsent(entry.placeType(), t -> new ArrayList<>()).add(entry);
+            }
+        }
+        types.replaceAll((type, entries) -> List.copyOf(entries));
+
+        this.byId = Collections.unmodifiableMap(ids);
+        this.byType = Collections.unmodifiableMap(types);
+        this.spatialIndex = new PlaceSpatialIndex(byRating);
+        this.searchIndex = new PlaceSearchIndex(byRating);
+        this.autocompleteIndex = autocompleteIndex;
+        this.facetIndex = new PlaceFacetIndex(byRating);
+    }
+
+    public static PlaceCatalog empty() {
+        return EMPTY;
+    }
+
+    public static PlaceCatalog of(Collection<PlaceCatalogEntry> entries) {
+        List<PlaceCatalogEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(BY_RATING_DESC);
+        return new PlaceCatalog(sorted, PlaceAutocompleteIndex.build(sorted));
+    }
+
+    // Copy-on-write: returns a new snapshot with the entry added or replaced
+    public PlaceCatalog withUpsert(PlaceCatalogEntry entry) {
+        List<PlaceCatalogEntry> entries = new ArrayList<>(byRating.size() + 1);
+        for (PlaceCatalogEntry existing : byRating) {
+            if (!existing.id().equals(entry.id())) {
+                entries.add(existing);
+            }
+        }
+        int insertAt = Collections.binarySearch(entries, entry, BY_RATING_DESC);
+        entries.add(insertAt < 0 ? -insertAt - 1 : insertAt, entry);
+        return new PlaceCatalog(entries, autocompleteIndex.withUpsert(byId.get(entry.id()), entry));
+    }
+
+    // Copy-on-write: returns a new snapshot without the given place
+    public PlaceCatalog withRemoval(Long placeId) {
+        if (!byId.containsKey(placeId)) {
+            return this;
+        }
+        List<PlaceCatalogEntry> entries = new ArrayList<>(byRating.size());
+        for (PlaceCatalogEntry existing : byRating) {
+            if (!existing.id().equals(placeId)) {
+                entries.add(existing);
+            }
+        }
+        return new PlaceCatalog(entries, autocompleteIndex.withRemoval(byId.get(placeId)));
+    }
+
+    public int size() {
+        return byRating.size();
+    }
+
+    public List<PlaceCatalogEntry> all() {
+        return byRating;
+    }
+
+    public List<PlaceCatalogEntry> ofType(PlaceType placeType) {
+        return byType.getOrDefault(placeType, List.of());
+    }
+
+    public Optional<PlaceCatalogEntry> findById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    // Case-insensitive substring match on the name, keeps rating order
+    public List<PlaceCatalogEntry> searchByName(String name) {
+        String needle = name.toLowerCase(Locale.ROOT);
+        List<PlaceCatalogEntry> matches = new ArrayList<>();
+        for (PlaceCatalogEntry entry : byRating) {
+            if (entry.name() != null && entry.name().toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Relevance-ranked full-text search over name, sentiment tag, address and description
+     */
+    public List<SearchHit> search(String query) {
+        return searchIndex.search(query);
+    }
+
+    /**
+     * Best {@code limit} typo-tolerant prefix matches on name and vicinity, for search-as-you-type
+     */
+    public List<PlaceCatalogEntry> suggest(String query, int limit) {
+        return autocompleteIndex.suggest(query, limit, byId);
+    }
+
+    /**
+     * Places matching the facet selection, in rating order
+     */
+    public List<PlaceCatalogEntry> filter(Map<PlaceFacet, Set<String>> selection) {
+        BitSet matches = facetIndex.matching(selection);
+        List<PlaceCatalogEntry> entries = new ArrayList<>(matches.cardinality());
+        for (int position = matches.nextSetBit(0); position >= 0; position = matches.nextSetBit(position + 1)) {
+            entries.add(byRating.get(position));
+        }
+        return entries;
+    }
+
+    /**
+     * Match count and per-value counts of every facet for the given selection
+     */
+    public FacetCounts facetCounts(Map<PlaceFacet, Set<String>> selection) {
+        return facetIndex.count(selection);
+    }
+
+    /**
+     * Places within {@code radiusMeters} of a point, in rating order
+     */
+    public List<GeoMatch> nearby(double latitude, double longitude, double radiusMeters,
+                                 Predicate<PlaceCatalogEntry> filter) {
+        return spatialIndex.within(latitude, longitude, radiusMeters, filter);
+    }
+
+    /**
+     * Places inside a viewport, in rating order
+     */
+    public List<GeoMatch> inBoundingBox(double south, double west, double north, double east,
+                                        Predicate<PlaceCatalogEntry> filter) {
+        return spatialIndex.inBox(south, west, north, east, filter);
+    }
+
+    /**
+     * Slice a rating-sorted list into a page without copying it.
+     * When {@code ascending} is set the rated and the unrated places are each walked back
+     * to front, so unrated places stay last either way, like {@code NULLS LAST} in the
+     * database queries, and ties come in descending id order.
+     */
+    public static Page<PlaceCatalogEntry> page(List<PlaceCatalogEntry> sorted, Pageable pageable, boolean ascending) {
+        int total = sorted.size();
+        long offset = pageable.getOffset();
+        if (offset >= total) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+
+        int rated = positionAfter(sorted, null, Long.MIN_VALUE);
+        int from = (int) offset;
+        int to = Math.min(total, from + pageable.getPageSize());
+        List<PlaceCatalogEntry> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int position = !ascending ? i : i < rated ? rated - 1 - i : total + rated - 1 - i;
+            content.add(sorted.get(position));
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Index of the first entry of a rating-sorted list that comes after the given sort key,
+     * used to resume a keyset-paginated listing
+     */
+    public static int positionAfter(List<PlaceCatalogEntry> sorted, Float averageRating, Long id) {
+        PlaceCatalogEntry probe = new PlaceCatalogEntry(id, null, null, null, null, null,
+                null, null, averageRating, null, null, null, null, 0);
+        int found = Collections.binarySearch(sorted, probe, BY_RATING_DESC);
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    /**
+     * A place returned by a geo query; {@code position} is its index in rating order
+     */
+    public record GeoMatch(int position, PlaceCatalogEntry entry, double distanceMeters) {
+    }
+
+    /**
+     * Result of a facet query: the number of matching places and, per facet, the count of each value
+     */
+    public record FacetCounts(int totalMatches, Map<PlaceFacet, Map<String, Integer>> counts) {
+    }
+
+    /**
+     * A place returned by a text search, with its popularity-boosted relevance score
+     */
+    public record SearchHit(int position, PlaceCatalogEntry entry, double score) {
+    }
+}
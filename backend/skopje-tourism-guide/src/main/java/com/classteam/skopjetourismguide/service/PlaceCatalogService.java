@@ -0,0 +1,156 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the current {@link PlaceCatalog} snapshot and swaps it atomically on writes.
+ * Reads are lock-free; writers are serialized so a full reload never overwrites
+ * an incremental change that committed while the reload was reading the database.
+ * All changes are applied only after the surrounding transaction (if any) commits.
+ */
+@Service
+public class PlaceCatalogService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaceCatalogService.class);
+
+    private final PlaceRepository placeRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final Object writeLock = new Object();
+
+    private volatile PlaceCatalog catalog;
+
+    public PlaceCatalogService(PlaceRepository placeRepository, CatalogVersionService catalogVersionService) {
+        this.placeRepository = placeRepository;
+        this.catalogVersionService = catalogVersionService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reloadNow();
+    }
+
+    /**
+     * Current snapshot, loaded from the database on first access
+     */
+    public PlaceCatalog current() {
+        PlaceCatalog snapshot = catalog;
+        if (snapshot == null) {
+            synchronized (writeLock) {
+                snapshot = catalog;
+                if (snapshot == null) {
+                    snapshot = loadFromDatabase();
+                    catalog = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Rebuild the whole catalog from the database, e.g. after an ingestion run
+     */
+    public void reload() {
+        TransactionHooks.afterCommit(this::reloadNow);
+        catalogVersionService.bump();
+    }
+
+    /**
+     * Add or replace a single place without touching the database
+     */
+    public void upsert(Place place) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (writeLock) {
+                if (catalog == null) {
+                    return; // Not loaded yet; the first read will see the committed row
+                }
+                int reviewCount = catalog.findById(place.getId())
+                        .map(PlaceCatalogEntry::reviewCount)
+                        .orElse(0);
+                catalog = catalog.withUpsert(toEntry(place, reviewCount));
+            }
+        });
+        catalogVersionService.bump(); // After the swap, so a new ETag never labels the old snapshot
+    }
+
+    /**
+     * Drop a deleted place from the catalog
+     */
+    public void remove(Long placeId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (writeLock) {
+                if (catalog != null) {
+                    catalog = catalog.withRemoval(placeId);
+                }
+            }
+        });
+        catalogVersionService.bump();
+    }
+
+    /**
+     * Account for a newly created review of the given place
+     */
+    public void reviewAdded(Long placeId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (writeLock) {
+                if (catalog == null) {
+                    return;
+                }
+                catalog.findById(placeId).ifPresent(entry ->
+                        catalog = catalog.withUpsert(entry.withReviewCount(entry.reviewCount() + 1)));
+            }
+        });
+        catalogVersionService.bump();
+    }
+
+    private void reloadNow() {
+        synchronized (writeLock) {
+            try {
+                catalog = loadFromDatabase();
+            } catch (Exception e) {
+                logger.error("Could not load place catalog: {}", e.getMessage());
+            }
+        }
+    }
+
+    private PlaceCatalog loadFromDatabase() {
+        long start = System.currentTimeMillis();
+
+        List<Place> places = placeRepository.findAll();
+        List<PlaceCatalogEntry> entries = new ArrayList<>(places.size());
+        for (Place place : places) {
+            entries.add(toEntry(place, place.getReviewCount() != null ? place.getReviewCount() : 0));
+        }
+
+        PlaceCatalog loaded = PlaceCatalog.of(entries);
+        logger.info("Loaded place catalog with {} places in {} ms", loaded.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    private PlaceCatalogEntry toEntry(Place place, int reviewCount) {
+        return new PlaceCatalogEntry(
+                place.getId(),
+                place.getName(),
+                place.getDescription(),
+                place.getPlaceType(),
+                place.getLatitude(),
+                place.getLongitude(),
+                place.getAddress(),
+                place.getVicinity(),
+                place.getAverageRating(),
+                place.getUserRatingsTotal(),
+                place.getSentimentTag(),
+                place.getPhotoReference(),
+                place.getOpenNow(),
+                reviewCount);
+    }
+}
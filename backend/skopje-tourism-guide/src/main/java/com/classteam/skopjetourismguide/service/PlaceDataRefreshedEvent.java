@@ -0,0 +1,7 @@
+package com.classteam.skopjetourismguide.service;
+
+/**
+ * Published once an ingestion or enrichment run has committed new place data
+ */
+public record PlaceDataRefreshedEvent(String source, int places) {
+}
@@ -0,0 +1,107 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Place attributes offered as filters in the place sidebar. Every place falls into at most
+ * one value per facet; numeric attributes are grouped into fixed buckets.
+ */
+public enum PlaceFacet {
+
+    TYPE("type", List.of()) {
+        @Override
+        String valueOf(PlaceCatalogEntry entry) {
+            return entry.placeType() != null ? entry.placeType().name() : null;
+        }
+
+        @Override
+        boolean accepts(String value) {
+            try {
+                PlaceType.valueOf(value);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        @Override
+        Comparator<String> order() {
+            return Comparator.comparing(PlaceType::valueOf);
+        }
+    },
+
+    SENTIMENT("sentiment", List.of()) {
+        @Override
+        String valueOf(PlaceCatalogEntry entry) {
+            return entry.sentimentTag() == null || entry.sentimentTag().isBlank()
+                    ? null : entry.sentimentTag().trim().toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        boolean accepts(String value) {
+            return true; // Tags come from the data; an unknown tag simply matches nothing
+        }
+    },
+
+    RATING("rating", List.of("4.5-5", "4-4.5", "3-4", "0-3", "unrated")) {
+        @Override
+        String valueOf(PlaceCatalogEntry entry) {
+            Float rating = entry.averageRating();
+            if (rating == null) {
+                return "unrated";
+            }
+            return rating >= 4.5f ? "4.5-5" : rating >= 4f ? "4-4.5" : rating >= 3f ? "3-4" : "0-3";
+        }
+    },
+
+    REVIEWS("reviews", List.of("1000-plus", "200-999", "50-199", "1-49", "0")) {
+        @Override
+        String valueOf(PlaceCatalogEntry entry) {
+            int ratings = entry.userRatingsTotal() != null ? entry.userRatingsTotal() : 0;
+            return ratings >= 1000 ? "1000-plus" : ratings >= 200 ? "200-999" : ratings >= 50 ? "50-199"
+                    : ratings >= 1 ? "1-49" : "0";
+        }
+    },
+
+    OPEN_NOW("openNow", List.of("true", "false", "unknown")) {
+        @Override
+        String valueOf(PlaceCatalogEntry entry) {
+            return entry.openNow() != null ? entry.openNow().toString() : "unknown";
+        }
+    };
+
+    private final String parameter;
+    private final List<String> buckets;
+
+    PlaceFacet(String parameter, List<String> buckets) {
+        this.parameter = parameter;
+        this.buckets = buckets;
+    }
+
+    // Name of the request parameter and of the facet in responses
+    public String parameter() {
+        return parameter;
+    }
+
+    // Fixed values in display order; empty when the values come from the data
+    List<String> buckets() {
+        return buckets;
+    }
+
+    // Value of this facet for a place, or null when the place has none
+    abstract String valueOf(PlaceCatalogEntry entry);
+
+    boolean accepts(String value) {
+        return buckets.contains(value);
+    }
+
+    // Display order of values taken from the data
+    Comparator<String> order() {
+        return Comparator.naturalOrder();
+    }
+}
@@ -0,0 +1,122 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+
+import java.util.*;
+
+/**
+ * Bitmap per facet value over the catalog positions (rating order), built once per snapshot.
+ * Values of one facet are OR-ed and facets are AND-ed. Facet counts use the usual sidebar
+ * semantics: the counts of a facet apply the filters of all other facets, but not its own,
+ * so selecting a type still shows how many places the other types would add.
+ */
+final class PlaceFacetIndex {
+
+    private final int size;
+    private final int wordCount;
+    // Facet -> value -> bitmap words, values in display order
+    private final Map<PlaceFacet, LinkedHashMap<String, long[]>> bitmaps = new EnumMap<>(PlaceFacet.class);
+
+    PlaceFacetIndex(List<PlaceCatalogEntry> entries) {
+        this.size = entries.size();
+        this.wordCount = (size + 63) >>> 6;
+
+        for (PlaceFacet facet : PlaceFacet.values()) {
+            Map<String, long[]> values = facet.buckets().isEmpty()
+                    ? new TreeMap<>(facet.order())
+                    : new LinkedHashMap<>();
+            facet.buckets().forEach(bucket -> values.put(bucket, new long[wordCount]));
+
+            for (int position = 0; position < size; position++) {
+                String value = facet.valueOf(entries.get(position));
+                if (value != null) {
+                    values.computeIfAbsent(value, v -> new long[wordCount])[position >>> 6] |= 1L << position;
+                }
+            }
+            bitmaps.put(facet, new LinkedHashMap<>(values));
+        }
+    }
+
+    /**
+     * Catalog positions matching every selected facet, in ascending (rating) order
+     */
+    BitSet matching(Map<PlaceFacet, Set<String>> selection) {
+        return BitSet.valueOf(and(selectedWords(selection), null));
+    }
+
+    /**
+     * Number of matches plus the count of every facet value under the current selection
+     */
+    PlaceCatalog.FacetCounts count(Map<PlaceFacet, Set<String>> selection) {
+        Map<PlaceFacet, long[]> selected = selectedWords(selection);
+        int total = cardinality(and(selected, null));
+
+        Map<PlaceFacet, Map<String, Integer>> counts = new EnumMap<>(PlaceFacet.class);
+        for (Map.Entry<PlaceFacet, LinkedHashMap<String, long[]>> facet : bitmaps.entrySet()) {
+            long[] base = and(selected, facet.getKey());
+            Map<String, Integer> valueCounts = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> value : facet.getValue().entrySet()) {
+                valueCounts.put(value.getKey(), intersectionCount(base, value.getValue()));
+            }
+            counts.put(facet.getKey(), valueCounts);
+        }
+        return new PlaceCatalog.FacetCounts(total, counts);
+    }
+
+    // Per filtered facet, the OR of its selected values
+    private Map<PlaceFacet, long[]> selectedWords(Map<PlaceFacet, Set<String>> selection) {
+        Map<PlaceFacet, long[]> selected = new EnumMap<>(PlaceFacet.class);
+        for (Map.Entry<PlaceFacet, Set<String>> filter : selection.entrySet()) {
+            if (filter.getValue().isEmpty()) {
+                continue;
+            }
+            long[] union = new long[wordCount];
+            Map<String, long[]> values = bitmaps.get(filter.getKey());
+            for (String value : filter.getValue()) {
+                long[] words = values.get(value);
+                if (words != null) {
+                    for (int i = 0; i < wordCount; i++) {
+                        union[i] |= words[i];
+                    }
+                }
+            }
+            selected.put(filter.getKey(), union);
+        }
+        return selected;
+    }
+
+    // AND of all selected facets except {@code skip}; everything when nothing is selected
+    private long[] and(Map<PlaceFacet, long[]> selected, PlaceFacet skip) {
+        long[] result = new long[wordCount];
+        Arrays.fill(result, -1L);
+        if (size % 64 != 0 && wordCount > 0) {
+            result[wordCount - 1] = (1L << size) - 1; // Shift count is taken mod 64
+        }
+        for (Map.Entry<PlaceFacet, long[]> facet : selected.entrySet()) {
+            if (facet.getKey() == skip) {
+                continue;
+            }
+            long[] words = facet.getValue();
+            for (int i = 0; i < wordCount; i++) {
+                result[i] &= words[i];
+            }
+        }
+        return result;
+    }
+
+    private static int intersectionCount(long[] a, long[] b) {
+        int count = 0;
+        for (int i = 0; i < a.length; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    private static int cardinality(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -28,6 +28,8 @@
 //    private final PlaceRepository placeRepository;
 //    private final ReviewRepository reviewRepository;
 //    private final UserRepository userRepository;
+//    private final PlaceCatalogService placeCatalogService;
+//    private final ReviewAggregateService reviewAggregateService;
 //
 //    private static final int SEARCH_RADIUS = 12000;
 //    private static final long SYSTEM_USER_ID = 2L; // ID for system-generated reviews
@@ -36,11 +38,15 @@
 //
 //    @Autowired
 //    public PlaceSchedulingService(GoogleMapsService googleMapsService, PlaceRepository placeRepository,
-//                                  ReviewRepository reviewRepository, UserRepository userRepository) {
+//                                  ReviewRepository reviewRepository, UserRepository userRepository,
+//                                  PlaceCatalogService placeCatalogService,
+//                                  ReviewAggregateService reviewAggregateService) {
 //        this.googleMapsService = googleMapsService;
 //        this.placeRepository = placeRepository;
 //        this.reviewRepository = reviewRepository;
 //        this.userRepository = userRepository;
+//        this.placeCatalogService = placeCatalogService;
+//        this.reviewAggregateService = reviewAggregateService;
 //    }
 //
 //    @Scheduled(fixedRate = 172800000)
@@ -56,6 +62,7 @@
 //                log.error("Error updating places for type {}: {}", placeType, e.getMessage());
 //            }
 //        }
+//        placeCatalogService.reload();
 //        log.info("Completed scheduled place data update: {}", LocalDateTime.now());
 //    }
 //
@@ -71,6 +78,7 @@
 //                log.error("Error updating places for type {}: {}", placeType, e.getMessage());
 //            }
 //        }
+//        placeCatalogService.reload();
 //        log.info("Completed manual place data update: {}", LocalDateTime.now());
 //    }
 //
@@ -311,6 +319,7 @@
 //                            .orElseThrow(() -> new RuntimeException("System user not found"));
 //
 //                    // Process each review
+//                    List<Review> newReviews = new ArrayList<>();
 //                    for (Map<String, Object> reviewData : reviewsData) {
 //                        String authorName = (String) reviewData.get("author_name");
 //                        String reviewText = (String) reviewData.get("text");
@@ -334,11 +343,16 @@
 //                            review.setPlace(place);
 //
 //                            place.getReviews().add(review);
+//                            newReviews.add(review);
 //                        }
 //                    }
 //
-//                    // Save the place with its new reviews
+//                    // Save the place with its new reviews, then bump the review aggregates
+//                    // (must run inside a transaction, as the aggregate update is a bulk UPDATE)
 //                    placeRepository.save(place);
+//                    for (Review review : newReviews) {
+//                        reviewAggregateService.recordReview(place.getId(), review);
+//                    }
 //                    log.info("Added {} reviews for place: {}", reviewsData.size(), place.getName());
 //                } catch (Exception e) {
 //                    log.error("Error processing reviews for place {}: {}", placeId, e.getMessage());
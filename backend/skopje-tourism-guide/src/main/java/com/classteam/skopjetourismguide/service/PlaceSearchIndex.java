@@ -0,0 +1,189 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+
+import java.util.*;
+
+/**
+ * Inverted index over the text columns of the catalog entries, built once per catalog snapshot.
+ * Scores are BM25 over field-weighted term frequencies (name > sentiment tag > address,
+ * description), multiplied by a popularity boost from the Google rating and rating volume.
+ */
+final class PlaceSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float SENTIMENT_WEIGHT = 2.0f;
+    private static final float ADDRESS_WEIGHT = 1.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Bayesian prior used to damp ratings backed by only a handful of reviews
+    private static final double PRIOR_RATING = 3.5;
+    private static final double PRIOR_VOTES = 20;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final List<PlaceCatalogEntry> entries;
+    private final String[] terms;
+    private final int[][] postingPositions;
+    private final float[][] postingWeights;
+    private final float[] documentLengths;
+    private final float[] boosts;
+    private final double averageDocumentLength;
+
+    PlaceSearchIndex(List<PlaceCatalogEntry> entries) {
+        this.entries = entries;
+        this.documentLengths = new float[entries.size()];
+        this.boosts = new float[entries.size()];
+
+        Map<String, PostingBuilder> postings = new HashMap<>();
+        double totalLength = 0;
+        for (int position = 0; position < entries.size(); position++) {
+            PlaceCatalogEntry entry = entries.get(position);
+            Map<String, Float> termWeights = new HashMap<>();
+            float length = 0;
+            length += addField(termWeights, entry.name(), NAME_WEIGHT);
+            length += addField(termWeights, entry.sentimentTag(), SENTIMENT_WEIGHT);
+            length += addField(termWeights, entry.address(), ADDRESS_WEIGHT);
+            length += addField(termWeights, entry.description(), DESCRIPTION_WEIGHT);
+
+            for (Map.Entry<String, Float> termWeight : termWeights.entrySet()) {
+                postings.computeIfAbsent(termWeight.getKey(), t -> new PostingBuilder())
+                        .add(position, termWeight.getValue());
+            }
+            documentLengths[position] = length;
+            boosts[position] = (float) popularityBoost(entry);
+            totalLength += length;
+        }
+
+        this.terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        this.postingPositions = new int[terms.length][];
+        this.postingWeights = new float[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            PostingBuilder builder = postings.get(terms[i]);
+            postingPositions[i] = Arrays.copyOf(builder.positions, builder.size);
+            postingWeights[i] = Arrays.copyOf(builder.weights, builder.size);
+        }
+        this.averageDocumentLength = entries.isEmpty() ? 1 : Math.max(1, totalLength / entries.size());
+    }
+
+    /**
+     * Ranked matches for a free-text query. Every query term has to match; the last term
+     * also matches as a prefix so results keep up while the user is typing. When no place
+     * contains all terms the best partial matches are returned instead.
+     */
+    List<PlaceCatalog.SearchHit> search(String query) {
+        List<String> queryTerms = TextNormalizer.tokenize(query);
+        if (queryTerms.isEmpty() || entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        List<Map<Integer, Double>> perTerm = new ArrayList<>(queryTerms.size());
+        for (int i = 0; i < queryTerms.size(); i++) {
+            boolean prefix = lastIsPrefix && i == queryTerms.size() - 1;
+            perTerm.add(scoreTerm(queryTerms.get(i), prefix));
+        }
+
+        Map<Integer, Double> scores = intersect(perTerm);
+        if (scores.isEmpty() && perTerm.size() > 1) {
+            scores = union(perTerm);
+        }
+
+        List<PlaceCatalog.SearchHit> hits = new ArrayList<>(scores.size());
+        for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+            int position = score.getKey();
+            hits.add(new PlaceCatalog.SearchHit(position, entries.get(position), score.getValue() * boosts[position]));
+        }
+        hits.sort(Comparator.comparingDouble(PlaceCatalog.SearchHit::score).reversed()
+                .thenComparingInt(PlaceCatalog.SearchHit::position));
+        return hits;
+    }
+
+    // BM25 contribution of one query term; for a prefix the best expanded term counts
+    private Map<Integer, Double> scoreTerm(String term, boolean prefix) {
+        Map<Integer, Double> scores = new HashMap<>();
+        int first = Arrays.binarySearch(terms, term);
+        if (first >= 0) {
+            accumulate(first, scores);
+        }
+        if (prefix && term.length() >= 2) {
+            int from = first >= 0 ? first + 1 : -first - 1;
+            for (int i = from; i < terms.length && i < from + MAX_PREFIX_EXPANSIONS && terms[i].startsWith(term); i++) {
+                accumulate(i, scores);
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(int termIndex, Map<Integer, Double> scores) {
+        int[] positions = postingPositions[termIndex];
+        float[] weights = postingWeights[termIndex];
+        int documentCount = entries.size();
+        double idf = Math.log(1 + (documentCount - positions.length + 0.5) / (positions.length + 0.5));
+
+        for (int i = 0; i < positions.length; i++) {
+            int position = positions[i];
+            double tf = weights[i];
+            double norm = K1 * (1 - B + B * documentLengths[position] / averageDocumentLength);
+            double score = idf * tf * (K1 + 1) / (tf + norm);
+            scores.merge(position, score, Math::max);
+        }
+    }
+
+    private static Map<Integer, Double> intersect(List<Map<Integer, Double>> perTerm) {
+        List<Map<Integer, Double>> bySize = new ArrayList<>(perTerm);
+        bySize.sort(Comparator.comparingInt(Map::size));
+
+        Map<Integer, Double> result = new HashMap<>(bySize.get(0));
+        for (int i = 1; i < bySize.size() && !result.isEmpty(); i++) {
+            Map<Integer, Double> next = bySize.get(i);
+            result.entrySet().removeIf(e -> !next.containsKey(e.getKey()));
+            result.replaceAll((position, score) -> score + next.get(position));
+        }
+        return result;
+    }
+
+    private static Map<Integer, Double> union(List<Map<Integer, Double>> perTerm) {
+        Map<Integer, Double> result = new HashMap<>();
+        for (Map<Integer, Double> scores : perTerm) {
+            scores.forEach((position, score) -> result.merge(position, score, Double::sum));
+        }
+        return result;
+    }
+
+    private static float addField(Map<String, Float> termWeights, String text, float weight) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            termWeights.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    // About 1.2 for a place without ratings, up to ~1.7 for a highly rated place with thousands of ratings
+    private static double popularityBoost(PlaceCatalogEntry entry) {
+        double votes = entry.userRatingsTotal() != null ? Math.max(0, entry.userRatingsTotal()) : 0;
+        double rating = entry.averageRating() != null ? entry.averageRating() : PRIOR_RATING;
+        double bayesianRating = (votes * rating + PRIOR_VOTES * PRIOR_RATING) / (votes + PRIOR_VOTES);
+        return 1 + 0.3 * (bayesianRating / 5.0) + 0.1 * Math.log10(1 + votes);
+    }
+
+    private static final class PostingBuilder {
+        private int[] positions = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(int position, float weight) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            positions[size] = position;
+            weights[size] = weight;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Uniform lat/lng grid over the catalog entries, built once per catalog snapshot.
+ * Each cell keeps the positions of its entries in catalog (rating) order, so a query
+ * only visits the cells overlapping the search area instead of the whole catalog.
+ */
+final class PlaceSpatialIndex {
+
+    // ~550m north-south, ~410m east-west around Skopje
+    static final double CELL_DEGREES = 0.005;
+
+    private final List<PlaceCatalogEntry> entries;
+    private final Map<Long, int[]> cells;
+    private final int indexedCount;
+
+    PlaceSpatialIndex(List<PlaceCatalogEntry> entries) {
+        this.entries = entries;
+
+        Map<Long, int[]> buckets = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        int indexed = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            PlaceCatalogEntry entry = entries.get(i);
+            if (hasCoordinates(entry)) {
+                long key = cellKey(cellOf(entry.latitude()), cellOf(entry.longitude()));
+                int size = sizes.merge(key, 1, Integer::sum);
+                int[] bucket = buckets.get(key);
+                if (bucket == null) {
+                    bucket = new int[4];
+                    buckets.put(key, bucket);
+                } else if (bucket.length < size) {
+                    bucket = Arrays.copyOf(bucket, bucket.length * 2);
+                    buckets.put(key, bucket);
+                }
+                bucket[size - 1] = i;
+                indexed++;
+            }
+        }
+        buckets.replaceAll((key, bucket) -> Arrays.copyOf(bucket, sizes.get(key)));
+
+        this.cells = buckets;
+        this.indexedCount = indexed;
+    }
+
+    /**
+     * Entries within {@code radiusMeters} of the given point, in catalog order
+     */
+    List<PlaceCatalog.GeoMatch> within(double latitude, double longitude, double radiusMeters,
+                                       Predicate<PlaceCatalogEntry> filter) {
+        double latDelta = radiusMeters / GeoDistance.METERS_PER_DEGREE_LATITUDE;
+        double lngDelta = GeoDistance.metersToLongitudeDegrees(radiusMeters,
+                Math.min(89.0, Math.abs(latitude) + latDelta));
+
+        List<PlaceCatalog.GeoMatch> matches = new ArrayList<>();
+        visit(latitude - latDelta, longitude - lngDelta, latitude + latDelta, longitude + lngDelta, position -> {
+            PlaceCatalogEntry entry = entries.get(position);
+            double distance = GeoDistance.haversineMeters(latitude, longitude, entry.latitude(), entry.longitude());
+            if (distance <= radiusMeters && filter.test(entry)) {
+                matches.add(new PlaceCatalog.GeoMatch(position, entry, distance));
+            }
+        });
+        matches.sort((a, b) -> Integer.compare(a.position(), b.position()));
+        return matches;
+    }
+
+    /**
+     * Entries inside the bounding box, in catalog order; distances are measured from the box center
+     */
+    List<PlaceCatalog.GeoMatch> inBox(double south, double west, double north, double east,
+                                      Predicate<PlaceCatalogEntry> filter) {
+        double centerLat = (south + north) / 2;
+        double centerLng = (west + east) / 2;
+
+        List<PlaceCatalog.GeoMatch> matches = new ArrayList<>();
+        visit(south, west, north, east, position -> {
+            PlaceCatalogEntry entry = entries.get(position);
+            if (entry.latitude() >= south && entry.latitude() <= north
+                    && entry.longitude() >= west && entry.longitude() <= east
+                    && filter.test(entry)) {
+                double distance = GeoDistance.haversineMeters(centerLat, centerLng, entry.latitude(), entry.longitude());
+                matches.add(new PlaceCatalog.GeoMatch(position, entry, distance));
+            }
+        });
+        matches.sort((a, b) -> Integer.compare(a.position(), b.position()));
+        return matches;
+    }
+
+    private void visit(double south, double west, double north, double east, PositionConsumer consumer) {
+        long minLatCell = cellOf(south);
+        long maxLatCell = cellOf(north);
+        long minLngCell = cellOf(west);
+        long maxLngCell = cellOf(east);
+
+        // A huge viewport covers more cells than there are places: scanning is cheaper then
+        long cellCount = (maxLatCell - minLatCell + 1) * (maxLngCell - minLngCell + 1);
+        if (cellCount > cells.size()) {
+            for (int[] bucket : cells.values()) {
+                for (int position : bucket) {
+                    consumer.accept(position);
+                }
+            }
+            return;
+        }
+
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (long lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                int[] bucket = cells.get(cellKey(latCell, lngCell));
+                if (bucket != null) {
+                    for (int position : bucket) {
+                        consumer.accept(position);
+                    }
+                }
+            }
+        }
+    }
+
+    int indexedCount() {
+        return indexedCount;
+    }
+
+    static boolean hasCoordinates(PlaceCatalogEntry entry) {
+        return entry.latitude() != null && entry.longitude() != null;
+    }
+
+    private static long cellOf(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(long latCell, long lngCell) {
+        return (latCell << 32) ^ (lngCell & 0xFFFFFFFFL);
+    }
+
+    @FunctionalInterface
+    private interface PositionConsumer {
+        void accept(int position);
+    }
+}
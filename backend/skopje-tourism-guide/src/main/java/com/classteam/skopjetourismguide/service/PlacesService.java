@@ -1,89 +1,219 @@
 package com.classteam.skopjetourismguide.service;
 
 import com.classteam.skopjetourismguide.dto.PageResponseDTO;
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
 import com.classteam.skopjetourismguide.dto.PlaceDTO;
 import com.classteam.skopjetourismguide.dto.PlaceDetailDTO;
+import com.classteam.skopjetourismguide.dto.PlaceFacetsDTO;
+import com.classteam.skopjetourismguide.dto.PlaceFilterDTO;
+import com.classteam.skopjetourismguide.dto.PlaceFlatDTO;
+import com.classteam.skopjetourismguide.dto.PlaceSuggestionDTO;
+import com.classteam.skopjetourismguide.dto.PlaceSummary;
 import com.classteam.skopjetourismguide.model.Place;
 import com.classteam.skopjetourismguide.model.Review;
 import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
 import com.classteam.skopjetourismguide.repository.PlaceRepository;
 import com.classteam.skopjetourismguide.repository.ReviewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PlacesService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PlacesService.class);
+
+    private static final double MAX_NEARBY_RADIUS_METERS = 50_000;
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 20;
+    private static final int NDJSON_FLUSH_INTERVAL = 200;
+    private static final int MAX_OPENING_HOURS_REFRESH = 500;
+
     private final PlaceRepository placeRepository;
     private final ReviewRepository reviewRepository;
     private final GoogleMapsService googleMapsService;
     private final DtoMapper dtoMapper;
+    private final PlaceCatalogService placeCatalogService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter flatPlaceWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    // One opening hours refresh at a time, at most one more queued; further requests are dropped
+    private final ThreadPoolExecutor openingHoursExecutor;
 
     @Autowired
     public PlacesService(PlaceRepository placeRepository,
                          ReviewRepository reviewRepository,
                          GoogleMapsService googleMapsService,
-                         DtoMapper dtoMapper) {
+                         DtoMapper dtoMapper,
+                         PlaceCatalogService placeCatalogService,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         ApplicationEventPublisher eventPublisher) {
         this.placeRepository = placeRepository;
         this.reviewRepository = reviewRepository;
         this.googleMapsService = googleMapsService;
         this.dtoMapper = dtoMapper;
+        this.placeCatalogService = placeCatalogService;
+        // Only the database fallback of the listing methods opens a transaction,
+        // so catalog-served pages never borrow a pooled connection
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.flatPlaceWriter = objectMapper.writerFor(PlaceFlatDTO.class);
+        this.eventPublisher = eventPublisher;
+        this.openingHoursExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new CustomizableThreadFactory("opening-hours-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        openingHoursExecutor.shutdownNow();
     }
 
     // Get all places
+    @Transactional(readOnly = true)
     public List<Place> getAllPlaces() {
-        return placeRepository.findAll();
+        return withAssociations(placeRepository.findAll());
     }
 
     // Get place by ID - original method
+    @Transactional(readOnly = true)
     public Optional<Place> getPlaceById(Long id) {
-        return placeRepository.findById(id);
+        return placeRepository.findById(id).map(this::withAssociations);
     }
 
     // Get places by type - original method
+    @Transactional(readOnly = true)
     public List<Place> getPlacesByType(PlaceType placeType) {
-        return placeRepository.findByPlaceType(placeType);
+        return withAssociations(placeRepository.findByPlaceType(placeType));
     }
 
     // Get top rated places by type - original method
+    @Transactional(readOnly = true)
     public List<Place> getTopRatedPlacesByType(PlaceType placeType) {
-        return placeRepository.findTop10ByPlaceTypeOrderByAverageRatingDesc(placeType);
+        return withAssociations(placeRepository.findTop10ByPlaceTypeOrderByAverageRatingDesc(placeType));
     }
 
     // Get places by rating - original method
+    @Transactional(readOnly = true)
     public List<Place> getPlacesByMinimumRating(Float rating) {
-        return placeRepository.findByAverageRatingGreaterThanEqual(rating);
+        return withAssociations(placeRepository.findByAverageRatingGreaterThanEqual(rating));
     }
 
     // Search places by name - original method
+    @Transactional(readOnly = true)
     public List<Place> searchPlacesByName(String name) {
-        return placeRepository.findByNameContainingIgnoreCase(name);
+        return withAssociations(placeRepository.findByNameContainingIgnoreCase(name));
     }
 
     // Search places by address - original method
+    @Transactional(readOnly = true)
     public List<Place> searchPlacesByAddress(String address) {
-        return placeRepository.findByAddressContainingIgnoreCase(address);
+        return withAssociations(placeRepository.findByAddressContainingIgnoreCase(address));
     }
 
     // Search places by description - original method
+    @Transactional(readOnly = true)
     public List<Place> searchPlacesByDescription(String description) {
-        return placeRepository.findByDescriptionContainingIgnoreCase(description);
+        return withAssociations(placeRepository.findByDescriptionContainingIgnoreCase(description));
     }
 
     // Search places by sentiment tag - original method
+    @Transactional(readOnly = true)
     public List<Place> searchPlacesBySentimentTag(String sentimentTag) {
-        return placeRepository.findBySentimentTagContainingIgnoreCase(sentimentTag);
+        return withAssociations(placeRepository.findBySentimentTagContainingIgnoreCase(sentimentTag));
+    }
+
+    // The legacy endpoints serialize the entities with their reviews and tours. Open-in-view is off,
+    // so both are loaded before the transaction ends
+    private Place withAssociations(Place place) {
+        Hibernate.initialize(place.getReviews());
+        Hibernate.initialize(place.getTours());
+        return place;
+    }
+
+    private List<Place> withAssociations(List<Place> places) {
+        places.forEach(this::withAssociations);
+        return places;
+    }
+
+    // NDJSON streaming variants of the legacy bulk endpoints
+    public void streamAllPlaces(OutputStream out) {
+        writeNdjson(placeRepository::streamAll, out);
+    }
+
+    public void streamPlacesByType(PlaceType placeType, OutputStream out) {
+        writeNdjson(() -> placeRepository.streamByPlaceType(placeType), out);
+    }
+
+    // Same precedence as the legacy search: the first non-empty criterion wins
+    public void streamPlacesSearch(String name, String address, String description, String sentimentTag,
+                                   OutputStream out) {
+        if (name != null && !name.isEmpty()) {
+            writeNdjson(() -> placeRepository.streamByNameContaining(name), out);
+        } else if (address != null && !address.isEmpty()) {
+            writeNdjson(() -> placeRepository.streamByAddressContaining(address), out);
+        } else if (description != null && !description.isEmpty()) {
+            writeNdjson(() -> placeRepository.streamByDescriptionContaining(description), out);
+        } else if (sentimentTag != null && !sentimentTag.isEmpty()) {
+            writeNdjson(() -> placeRepository.streamBySentimentTagContaining(sentimentTag), out);
+        } else {
+            streamAllPlaces(out);
+        }
+    }
+
+    // One JSON object per line, written as rows come off the cursor; the first line is flushed at once
+    private void writeNdjson(Supplier<Stream<PlaceFlatDTO>> query, OutputStream out) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PlaceFlatDTO> places = query.get()) {
+                int written = 0;
+                for (Iterator<PlaceFlatDTO> it = places.iterator(); it.hasNext(); ) {
+                    out.write(flatPlaceWriter.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                    if (++written == 1 || written % NDJSON_FLUSH_INTERVAL == 0) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     // Fetch places from Google Maps API and save to database - original method
@@ -98,7 +228,8 @@ public class PlacesService {
                 String googlePlaceId = (String) result.get("place_id");
 
                 // Check if place already exists in our database
-                Optional<Place> existingPlace = placeRepository.findByGooglePlaceId(googlePlaceId);
+                Optional<Place> existingPlace = readOnlyTransaction.execute(status ->
+                        placeRepository.findByGooglePlaceId(googlePlaceId).map(this::withAssociations));
 
                 if (existingPlace.isPresent()) {
                     savedPlaces.add(existingPlace.get());
@@ -155,15 +286,81 @@ public class PlacesService {
             }
         }
 
+        // Swap in a fresh catalog snapshot once the ingestion run is done
+        placeCatalogService.reload();
+        placeDataRefreshed("Google ingestion", savedPlaces.size());
+
         return savedPlaces;
     }
 
+    /**
+     * Queue an opening hours refresh of up to {@code limit} places on the background thread;
+     * the Google place details calls would otherwise hold a request thread for minutes
+     */
+    public void requestOpeningHoursRefresh(int limit) {
+        checkOpeningHoursLimit(limit);
+        openingHoursExecutor.execute(() -> {
+            try {
+                int updated = refreshOpeningHours(limit);
+                logger.info("Refreshed the opening hours of {} places", updated);
+            } catch (Exception e) {
+                logger.error("Could not refresh opening hours: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Fetch the opening hours of up to {@code limit} places that have none yet from Google place details
+     */
+    public int refreshOpeningHours(int limit) {
+        checkOpeningHoursLimit(limit);
+        List<Place> places = placeRepository.findByOpeningHoursIsNullAndGooglePlaceIdIsNotNullOrderByIdAsc(
+                PageRequest.of(0, limit));
+        int updated = 0;
+        for (Place place : places) {
+            Map<String, Object> details = googleMapsService.getPlaceDetails(place.getGooglePlaceId());
+            if (details.containsKey("error")) {
+                continue;
+            }
+            Map<String, Object> result = (Map<String, Object>) details.getOrDefault("result", Map.of());
+            Map<String, Object> openingHours = (Map<String, Object>) result.get("opening_hours");
+            String hours = openingHours != null
+                    ? OpeningHours.fromGooglePeriods((List<Map<String, Object>>) openingHours.get("periods"))
+                    : null;
+            // Blank marks places Google publishes no hours for, so they aren't fetched again
+            place.setOpeningHours(hours != null ? hours : "");
+            placeRepository.save(place);
+            updated++;
+        }
+        if (updated > 0) {
+            // Candidates and templates read the catalog, so swap in the new hours as ingestion does
+            placeCatalogService.reload();
+            placeDataRefreshed("Opening hours refresh", updated);
+        }
+        return updated;
+    }
+
+    private static void checkOpeningHoursLimit(int limit) {
+        if (limit < 1 || limit > MAX_OPENING_HOURS_REFRESH) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_OPENING_HOURS_REFRESH);
+        }
+    }
+
+    // Let listeners such as the tour templates pick up the new data once it is committed
+    private void placeDataRefreshed(String source, int places) {
+        TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(new PlaceDataRefreshedEvent(source, places)));
+    }
+
     // Create a new place - original method
+    @Transactional
     public Place createPlace(Place place) {
-        return placeRepository.save(place);
+        Place savedPlace = placeRepository.save(place);
+        placeCatalogService.upsert(savedPlace);
+        return withAssociations(savedPlace);
     }
 
     // Update an existing place - original method
+    @Transactional
     public Optional<Place> updatePlace(Long id, Place placeDetails) {
         return placeRepository.findById(id).map(place -> {
             if (placeDetails.getName() != null) {
@@ -199,7 +396,9 @@ public class PlacesService {
             if (placeDetails.getSentimentTag() != null) {
                 place.setSentimentTag(placeDetails.getSentimentTag());
             }
-            return placeRepository.save(place);
+            Place savedPlace = placeRepository.save(place);
+            placeCatalogService.upsert(savedPlace);
+            return withAssociations(savedPlace);
         });
     }
 
@@ -207,6 +406,7 @@ public class PlacesService {
     public boolean deletePlace(Long id) {
         if (placeRepository.existsById(id)) {
             placeRepository.deleteById(id);
+            placeCatalogService.remove(id);
             return true;
         }
         return false;
@@ -244,24 +444,26 @@ public class PlacesService {
     //
 
     // Get all places with pagination - ensure default sorting by rating
-    @Transactional(readOnly = true)
     public PageResponseDTO<PlaceDTO> getAllPlacesPaginated(Pageable pageable) {
-        // Ensure default sorting if not provided
-        if (pageable.getSort().isEmpty()) {
-            pageable = PageRequest.of(
-                    pageable.getPageNumber(),
-                    pageable.getPageSize(),
-                    Sort.by(Sort.Direction.DESC, "averageRating")
-            );
+        // Rating-sorted listings are served from the in-memory catalog
+        if (isRatingSort(pageable)) {
+            return toCatalogPageResponse(placeCatalogService.current().all(), pageable);
         }
 
-        Page<Place> placesPage = placeRepository.findAll(pageable);
+        return readOnlyTransaction.execute(status -> {
+            Page<PlaceSummary> placesPage = placeRepository.findAllSummaries(pageable);
 
-        List<PlaceDTO> placeDTOs = placesPage.getContent().stream()
-                .map(dtoMapper::toPlaceDto)
-                .collect(Collectors.toList());
+            List<PlaceDTO> placeDTOs = placesPage.getContent().stream()
+                    .map(dtoMapper::toPlaceDto)
+                    .collect(Collectors.toList());
 
-        return dtoMapper.toPageResponse(placesPage, placeDTOs);
+            return dtoMapper.toPageResponse(placesPage, placeDTOs);
+        });
+    }
+
+    // Keyset-paginated listing in rating order; pass a null cursor for the first page
+    public PageResponseDTO<PlaceDTO> getAllPlacesByCursor(String cursor, int size) {
+        return toCursorPageResponse(placeCatalogService.current().all(), cursor, size);
     }
 
     // Get place by ID with limited reviews
@@ -277,12 +479,8 @@ public class PlacesService {
             List<Review> recentReviews = reviewRepository.findByPlaceIdOrderByTimestampDesc(
                     id, PageRequest.of(0, reviewLimit));
 
-            // Get review count
-            int reviewCount = placeRepository.countReviewsByPlaceId(id);
-
-            // Map to DTO
+            // Review count and rating aggregates come from the place row itself
             PlaceDetailDTO dto = dtoMapper.toPlaceDetailDto(place, recentReviews);
-            dto.setReviewCount(reviewCount);
 
             return Optional.of(dto);
         }
@@ -291,44 +489,227 @@ public class PlacesService {
     }
 
     // Get places by type with pagination - ensure default sorting by rating
-    @Transactional(readOnly = true)
     public PageResponseDTO<PlaceDTO> getPlacesByTypePaginated(PlaceType placeType, Pageable pageable) {
-        // Ensure default sorting if not provided
-        if (pageable.getSort().isEmpty()) {
-            pageable = PageRequest.of(
-                    pageable.getPageNumber(),
-                    pageable.getPageSize(),
-                    Sort.by(Sort.Direction.DESC, "averageRating")
-            );
+        // Rating-sorted listings are served from the in-memory catalog
+        if (isRatingSort(pageable)) {
+            return toCatalogPageResponse(placeCatalogService.current().ofType(placeType), pageable);
         }
 
-        Page<Place> placesPage = placeRepository.findByPlaceType(placeType, pageable);
+        return readOnlyTransaction.execute(status -> {
+            Page<PlaceSummary> placesPage = placeRepository.findSummariesByPlaceType(placeType, pageable);
 
-        List<PlaceDTO> placeDTOs = placesPage.getContent().stream()
-                .map(dtoMapper::toPlaceDto)
-                .collect(Collectors.toList());
+            List<PlaceDTO> placeDTOs = placesPage.getContent().stream()
+                    .map(dtoMapper::toPlaceDto)
+                    .collect(Collectors.toList());
 
-        return dtoMapper.toPageResponse(placesPage, placeDTOs);
+            return dtoMapper.toPageResponse(placesPage, placeDTOs);
+        });
+    }
+
+    // Keyset-paginated listing of one type in rating order; pass a null cursor for the first page
+    public PageResponseDTO<PlaceDTO> getPlacesByTypeByCursor(PlaceType placeType, String cursor, int size) {
+        return toCursorPageResponse(placeCatalogService.current().ofType(placeType), cursor, size);
     }
 
     // Search places by name with pagination - ensure default sorting by rating
-    @Transactional(readOnly = true)
     public PageResponseDTO<PlaceDTO> searchPlacesByNamePaginated(String name, Pageable pageable) {
-        // Ensure default sorting if not provided
-        if (pageable.getSort().isEmpty()) {
-            pageable = PageRequest.of(
-                    pageable.getPageNumber(),
-                    pageable.getPageSize(),
-                    Sort.by(Sort.Direction.DESC, "averageRating")
-            );
+        // Rating-sorted listings are served from the in-memory catalog
+        if (isRatingSort(pageable)) {
+            return toCatalogPageResponse(placeCatalogService.current().searchByName(name), pageable);
         }
 
-        Page<Place> placesPage = placeRepository.findByNameContainingIgnoreCase(name, pageable);
+        return readOnlyTransaction.execute(status -> {
+            Page<PlaceSummary> placesPage = placeRepository.findSummariesByNameContainingIgnoreCase(name, pageable);
+
+            List<PlaceDTO> placeDTOs = placesPage.getContent().stream()
+                    .map(dtoMapper::toPlaceDto)
+                    .collect(Collectors.toList());
+
+            return dtoMapper.toPageResponse(placesPage, placeDTOs);
+        });
+    }
 
-        List<PlaceDTO> placeDTOs = placesPage.getContent().stream()
+    // Ranked full-text search over name, address, description and sentiment tag
+    public PageResponseDTO<PlaceDTO> searchPlaces(String query, Pageable pageable) {
+        List<PlaceCatalog.SearchHit> hits = placeCatalogService.current().search(query);
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(hits.size(), from + pageable.getPageSize());
+        Page<PlaceCatalog.SearchHit> hitsPage = new PageImpl<>(hits.subList(from, to), pageable, hits.size());
+
+        List<PlaceDTO> placeDTOs = hitsPage.getContent().stream()
+                .map(hit -> dtoMapper.toPlaceDto(hit.entry()))
+                .collect(Collectors.toList());
+
+        return dtoMapper.toPageResponse(hitsPage, placeDTOs);
+    }
+
+    // Search-as-you-type suggestions; tolerant to typos and to Cyrillic or Latin spelling
+    public List<PlaceSuggestionDTO> autocomplete(String query, int limit) {
+        if (limit < 1 || limit > MAX_AUTOCOMPLETE_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_AUTOCOMPLETE_LIMIT);
+        }
+        return placeCatalogService.current().suggest(query, limit).stream()
+                .map(dtoMapper::toPlaceSuggestionDto)
+                .collect(Collectors.toList());
+    }
+
+    // Facet counts for the filter sidebar under the current selection
+    public PlaceFacetsDTO getPlaceFacets(PlaceFilterDTO filter) {
+        return dtoMapper.toPlaceFacetsDto(placeCatalogService.current().facetCounts(toFacetSelection(filter)));
+    }
+
+    // Places matching the sidebar filters, in rating order
+    public PageResponseDTO<PlaceDTO> filterPlaces(PlaceFilterDTO filter, Pageable pageable) {
+        List<PlaceCatalogEntry> matches = placeCatalogService.current().filter(toFacetSelection(filter));
+        Page<PlaceCatalogEntry> entriesPage = PlaceCatalog.page(matches, pageable, false);
+
+        List<PlaceDTO> placeDTOs = entriesPage.getContent().stream()
+                .map(dtoMapper::toPlaceDto)
+                .collect(Collectors.toList());
+
+        return dtoMapper.toPageResponse(entriesPage, placeDTOs);
+    }
+
+    // Places within a radius of a point, sorted by "distance" (default) or "rating"
+    public PageResponseDTO<PlaceDTO> findNearbyPlaces(double latitude, double longitude, double radiusMeters,
+                                                      PlaceType placeType, Float minRating,
+                                                      String sortBy, Pageable pageable) {
+        validateCoordinates(latitude, longitude);
+        if (radiusMeters <= 0 || radiusMeters > MAX_NEARBY_RADIUS_METERS) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + MAX_NEARBY_RADIUS_METERS + " meters");
+        }
+
+        List<PlaceCatalog.GeoMatch> matches = placeCatalogService.current()
+                .nearby(latitude, longitude, radiusMeters, geoFilter(placeType, minRating));
+        return toGeoPageResponse(matches, sortBy, pageable);
+    }
+
+    // Places inside a map viewport, sorted by "rating" (default) or "distance" from the viewport center
+    public PageResponseDTO<PlaceDTO> findPlacesInBoundingBox(double south, double west, double north, double east,
+                                                             PlaceType placeType, Float minRating,
+                                                             String sortBy, Pageable pageable) {
+        validateCoordinates(south, west);
+        validateCoordinates(north, east);
+        if (south > north || west > east) {
+            throw new IllegalArgumentException("Bounding box must have south <= north and west <= east");
+        }
+
+        List<PlaceCatalog.GeoMatch> matches = placeCatalogService.current()
+                .inBoundingBox(south, west, north, east, geoFilter(placeType, minRating));
+        return toGeoPageResponse(matches, sortBy, pageable);
+    }
+
+    private Map<PlaceFacet, Set<String>> toFacetSelection(PlaceFilterDTO filter) {
+        Map<PlaceFacet, Set<String>> selection = new EnumMap<>(PlaceFacet.class);
+        addFacetValues(selection, PlaceFacet.TYPE, filter.getType());
+        addFacetValues(selection, PlaceFacet.SENTIMENT, filter.getSentiment());
+        addFacetValues(selection, PlaceFacet.RATING, filter.getRating());
+        addFacetValues(selection, PlaceFacet.REVIEWS, filter.getReviews());
+        addFacetValues(selection, PlaceFacet.OPEN_NOW, filter.getOpenNow());
+        return selection;
+    }
+
+    private void addFacetValues(Map<PlaceFacet, Set<String>> selection, PlaceFacet facet, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        Set<String> accepted = new HashSet<>();
+        for (String value : values) {
+            // Types are enum names, sentiment tags are indexed in lower case
+            String normalized = facet == PlaceFacet.TYPE ? value.trim().toUpperCase(Locale.ROOT)
+                    : facet == PlaceFacet.SENTIMENT ? value.trim().toLowerCase(Locale.ROOT)
+                    : value.trim();
+            if (!facet.accepts(normalized)) {
+                throw new IllegalArgumentException("Unknown " + facet.parameter() + " value: " + value);
+            }
+            accepted.add(normalized);
+        }
+        selection.put(facet, accepted);
+    }
+
+    private void validateCoordinates(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates: " + latitude + "," + longitude);
+        }
+    }
+
+    private Predicate<PlaceCatalogEntry> geoFilter(PlaceType placeType, Float minRating) {
+        return entry -> (placeType == null || placeType == entry.placeType())
+                && (minRating == null || (entry.averageRating() != null && entry.averageRating() >= minRating));
+    }
+
+    // Geo matches come back in rating order; re-sort only when distance order is asked for
+    private PageResponseDTO<PlaceDTO> toGeoPageResponse(List<PlaceCatalog.GeoMatch> matches, String sortBy, Pageable pageable) {
+        if ("distance".equalsIgnoreCase(sortBy)) {
+            matches.sort(Comparator.comparingDouble(PlaceCatalog.GeoMatch::distanceMeters)
+                    .thenComparingInt(PlaceCatalog.GeoMatch::position));
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(matches.size(), from + pageable.getPageSize());
+        Page<PlaceCatalog.GeoMatch> matchesPage = new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+
+        List<PlaceDTO> placeDTOs = matchesPage.getContent().stream()
+                .map(match -> {
+                    PlaceDTO dto = dtoMapper.toPlaceDto(match.entry());
+                    dto.setDistanceMeters(Math.round(match.distanceMeters() * 10) / 10.0);
+                    return dto;
+                })
+                .collect(Collectors.toList());
+
+        return dtoMapper.toPageResponse(matchesPage, placeDTOs);
+    }
+
+    // An unsorted request or a sort on averageRating alone can use the pre-sorted catalog
+    private boolean isRatingSort(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        return orders.size() == 1 && "averageRating".equals(orders.get(0).getProperty());
+    }
+
+    private PageResponseDTO<PlaceDTO> toCatalogPageResponse(List<PlaceCatalogEntry> sorted, Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("averageRating");
+        boolean ascending = order != null && order.isAscending();
+
+        Page<PlaceCatalogEntry> entriesPage = PlaceCatalog.page(sorted, pageable, ascending);
+
+        List<PlaceDTO> placeDTOs = entriesPage.getContent().stream()
                 .map(dtoMapper::toPlaceDto)
                 .collect(Collectors.toList());
 
-        return dtoMapper.toPageResponse(placesPage, placeDTOs);
+        return dtoMapper.toPageResponse(entriesPage, placeDTOs);
+    }
+
+    // Cursor is the (averageRating, id) of the last place on the previous page
+    private PageResponseDTO<PlaceDTO> toCursorPageResponse(List<PlaceCatalogEntry> sorted, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        int from = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] key = PageCursor.decode(cursor, 2);
+            try {
+                Float rating = key[0].isEmpty() ? null : Float.valueOf(key[0]);
+                from = PlaceCatalog.positionAfter(sorted, rating, Long.valueOf(key[1]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+        }
+
+        int to = Math.min(sorted.size(), from + size);
+        List<PlaceDTO> placeDTOs = sorted.subList(from, to).stream()
+                .map(dtoMapper::toPlaceDto)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (to < sorted.size()) {
+            PlaceCatalogEntry lastEntry = sorted.get(to - 1);
+            nextCursor = PageCursor.encode(lastEntry.averageRating(), lastEntry.id());
+        }
+        return dtoMapper.toCursorPageResponse(placeDTOs, size, nextCursor, sorted.size());
     }
-}
\ No newline at end of file
+}
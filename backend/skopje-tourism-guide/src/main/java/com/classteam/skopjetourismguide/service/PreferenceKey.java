@@ -0,0 +1,81 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.DrinkType;
+import com.classteam.skopjetourismguide.model.enumerations.FoodType;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The part of a preference that decides which tour is generated for it. Of the free-text
+ * description only the sentiment tags it names count, as they steer the candidate ranking.
+ * Equal keys are the same preference combination, whatever the order of the chosen types.
+ */
+record PreferenceKey(TourLength tourLength, BudgetLevel budgetLevel, boolean includeShoppingMalls,
+                     List<String> attractionTypes, List<String> foodTypes, List<String> drinkTypes,
+                     List<String> sentimentTags) {
+
+    static PreferenceKey of(Preference preference) {
+        return new PreferenceKey(
+                preference.getTourLength(),
+                preference.getBudgetLevel(),
+                Boolean.TRUE.equals(preference.getIncludeShoppingMalls()),
+                normalize(preference.getAttractionTypePreferences()),
+                normalize(preference.getFoodTypePreferences()),
+                normalize(preference.getDrinkTypePreferences()),
+                normalize(TourCandidateRanker.mentionedSentiments(preference.getDescription())));
+    }
+
+    /**
+     * Stable text form, e.g. {@code "FULL_DAY|MODERATE|false|HISTORICAL,MUSEUMS|BALKAN||ROMANTIC"}
+     */
+    String text() {
+        return tourLength + "|" + budgetLevel + "|" + includeShoppingMalls + "|" + String.join(",", attractionTypes)
+                + "|" + String.join(",", foodTypes) + "|" + String.join(",", drinkTypes)
+                + "|" + String.join(",", sentimentTags);
+    }
+
+    static PreferenceKey parse(String text) {
+        String[] parts = text.split("\\|", -1);
+        if (parts.length != 7) {
+            throw new IllegalArgumentException("Invalid preference key: " + text);
+        }
+        return new PreferenceKey(
+                "null".equals(parts[0]) ? null : TourLength.valueOf(parts[0]),
+                "null".equals(parts[1]) ? null : BudgetLevel.valueOf(parts[1]),
+                Boolean.parseBoolean(parts[2]),
+                names(parts[3]), names(parts[4]), names(parts[5]), names(parts[6]));
+    }
+
+    /**
+     * A new, unsaved preference with exactly this combination
+     */
+    Preference toPreference() {
+        Preference preference = new Preference();
+        preference.setTourLength(tourLength);
+        preference.setBudgetLevel(budgetLevel);
+        preference.setIncludeShoppingMalls(includeShoppingMalls);
+        preference.setAttractionTypePreferences(new ArrayList<>(attractionTypes.stream().map(AttractionType::valueOf).toList()));
+        preference.setFoodTypePreferences(new ArrayList<>(foodTypes.stream().map(FoodType::valueOf).toList()));
+        preference.setDrinkTypePreferences(new ArrayList<>(drinkTypes.stream().map(DrinkType::valueOf).toList()));
+        // Names the same tags, so the ranking wants the same sentiments
+        preference.setDescription(sentimentTags.isEmpty() ? null : String.join(", ", sentimentTags));
+        return preference;
+    }
+
+    private static List<String> names(String joined) {
+        return joined.isEmpty() ? List.of() : List.of(joined.split(","));
+    }
+
+    private static List<String> normalize(Collection<? extends Enum<?>> values) {
+        if (values == null) {
+            return List.of();
+        }
+        return values.stream().map(Enum::name).distinct().sorted().toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Review;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import com.classteam.skopjetourismguide.repository.ReviewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the denormalized review aggregates on {@link com.classteam.skopjetourismguide.model.Place}
+ * (review count, user rating sum and count, star histogram), so listings and detail pages never
+ * load or count review rows.
+ */
+@Service
+public class ReviewAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewAggregateService.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final PlaceRepository placeRepository;
+    private final ReviewRepository reviewRepository;
+    private final PlaceCatalogService placeCatalogService;
+    private final TransactionTemplate transactionTemplate;
+    // The system user the ingestion job imports Google reviews as
+    private final long googleReviewUserId;
+
+    public ReviewAggregateService(PlaceRepository placeRepository, ReviewRepository reviewRepository,
+                                  PlaceCatalogService placeCatalogService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${reviews.google-user-id:2}") long googleReviewUserId) {
+        this.placeRepository = placeRepository;
+        this.reviewRepository = reviewRepository;
+        this.placeCatalogService = placeCatalogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.googleReviewUserId = googleReviewUserId;
+    }
+
+    /**
+     * Account for a newly saved review; call inside the transaction that saved it
+     */
+    public void recordReview(Long placeId, Review review) {
+        if (review.getRating() == null || review.getRating() < 1 || review.getRating() > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+        placeRepository.recordReview(placeId, review.getRating(), isGoogleReview(review) ? 0 : 1);
+        placeCatalogService.reviewAdded(placeId);
+    }
+
+    public boolean isGoogleReview(Review review) {
+        return review.getUser() != null && review.getUser().getId() != null
+                && review.getUser().getId() == googleReviewUserId;
+    }
+
+    /**
+     * Fill the aggregate columns of places that predate them. Runs before the catalog warm-up,
+     * which reads the review counts from these columns.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        try {
+            List<Long> placeIds = placeRepository.findIdsWithoutReviewAggregates();
+            if (placeIds.isEmpty()) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            for (int from = 0; from < placeIds.size(); from += BACKFILL_BATCH_SIZE) {
+                List<Long> batch = placeIds.subList(from, Math.min(placeIds.size(), from + BACKFILL_BATCH_SIZE));
+                transactionTemplate.executeWithoutResult(status -> backfillBatch(batch));
+            }
+            logger.info("Backfilled review aggregates for {} places in {} ms",
+                    placeIds.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            logger.error("Could not backfill review aggregates: {}", e.getMessage());
+        }
+    }
+
+    private void backfillBatch(List<Long> placeIds) {
+        Map<Long, Object[]> aggregates = new HashMap<>();
+        for (Object[] row : reviewRepository.aggregateReviewsByPlaceIds(placeIds, googleReviewUserId)) {
+            aggregates.put((Long) row[0], row);
+        }
+        for (Long placeId : placeIds) {
+            Object[] row = aggregates.get(placeId);
+            if (row == null) {
+                placeRepository.setReviewAggregates(placeId, 0, 0, 0, 0, 0, 0, 0, 0);
+            } else {
+                placeRepository.setReviewAggregates(placeId, intValue(row[1]), intValue(row[2]),
+                        ((Number) row[3]).longValue(), intValue(row[4]), intValue(row[5]),
+                        intValue(row[6]), intValue(row[7]), intValue(row[8]));
+            }
+        }
+    }
+
+    private static int intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+}
@@ -2,6 +2,7 @@
 package com.classteam.skopjetourismguide.service;
 
 import com.classteam.skopjetourismguide.dto.PageResponseDTO;
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
 import com.classteam.skopjetourismguide.dto.ReviewDTO;
 import com.classteam.skopjetourismguide.model.Place;
 import com.classteam.skopjetourismguide.model.Review;
@@ -11,11 +12,13 @@ import com.classteam.skopjetourismguide.repository.ReviewRepository;
 import com.classteam.skopjetourismguide.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,13 +29,19 @@ public class ReviewService {
     private final DtoMapper dtoMapper;
     private final PlaceRepository placeRepository;
     private final UserRepository userRepository;
+    private final PlaceCatalogService placeCatalogService;
+    private final ReviewAggregateService reviewAggregateService;
 
     @Autowired
-    public ReviewService(ReviewRepository reviewRepository, DtoMapper dtoMapper, PlaceRepository placeRepository, UserRepository userRepository) {
+    public ReviewService(ReviewRepository reviewRepository, DtoMapper dtoMapper, PlaceRepository placeRepository,
+                         UserRepository userRepository, PlaceCatalogService placeCatalogService,
+                         ReviewAggregateService reviewAggregateService) {
         this.reviewRepository = reviewRepository;
         this.dtoMapper = dtoMapper;
         this.placeRepository = placeRepository;
         this.userRepository = userRepository;
+        this.placeCatalogService = placeCatalogService;
+        this.reviewAggregateService = reviewAggregateService;
     }
 
     @Transactional(readOnly = true)
@@ -46,6 +55,49 @@ public class ReviewService {
         return dtoMapper.toPageResponse(reviewsPage, reviewDTOs);
     }
 
+    // Keyset-paginated reviews, newest first; the cursor is the (timestamp, id) of the last review shown
+    @Transactional(readOnly = true)
+    public PageResponseDTO<ReviewDTO> getReviewsByPlaceIdByCursor(Long placeId, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+
+        // Fetch one extra row to know whether there is a next page
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Review> reviews;
+        if (cursor == null || cursor.isEmpty()) {
+            reviews = reviewRepository.findFirstPageByPlaceId(placeId, limit);
+        } else {
+            String[] key = PageCursor.decode(cursor, 2);
+            try {
+                // An empty timestamp is a review without one
+                reviews = key[0].isEmpty()
+                        ? reviewRepository.findPageByPlaceIdAfterUntimed(placeId, Long.valueOf(key[1]), limit)
+                        : reviewRepository.findPageByPlaceIdAfter(
+                                placeId, LocalDateTime.parse(key[0]), Long.valueOf(key[1]), limit);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+        }
+
+        String nextCursor = null;
+        if (reviews.size() > size) {
+            reviews = reviews.subList(0, size);
+            Review lastReview = reviews.get(size - 1);
+            nextCursor = PageCursor.encode(lastReview.getTimestamp(), lastReview.getId());
+        }
+
+        List<ReviewDTO> reviewDTOs = reviews.stream()
+                .map(dtoMapper::toReviewDto)
+                .collect(Collectors.toList());
+
+        // The catalog keeps a review count per place, so no COUNT query is needed
+        long approximateTotal = placeCatalogService.current().findById(placeId)
+                .map(PlaceCatalogEntry::reviewCount)
+                .orElse(reviewDTOs.size());
+        return dtoMapper.toCursorPageResponse(reviewDTOs, size, nextCursor, approximateTotal);
+    }
+
     @Transactional(readOnly = true)
     public Integer getReviewCountForPlace(Long placeId) {
         return reviewRepository.countByPlaceId(placeId);
@@ -53,6 +105,10 @@ public class ReviewService {
 
     @Transactional
     public ReviewDTO createReview(Long placeId, ReviewDTO reviewDTO) {
+        if (reviewDTO.getRating() == null || reviewDTO.getRating() < 1 || reviewDTO.getRating() > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+
         Place place = placeRepository.findById(placeId)
                 .orElseThrow(() -> new RuntimeException("Place not found"));
 
@@ -70,6 +126,7 @@ public class ReviewService {
 
         // Save the review
         Review saved = reviewRepository.save(review);
+        reviewAggregateService.recordReview(placeId, saved);
 
         // Map to DTO and return
         return dtoMapper.toReviewDto(saved);
@@ -0,0 +1,90 @@
+package com.classteam.skopjetourismguide.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Shared text folding used by the in-memory place search structures:
+ * transliterates Macedonian/Serbian Cyrillic to Latin, lower-cases, strips diacritics
+ * and splits on anything that is not a letter or digit.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    // Cyrillic to the official Macedonian Latin spelling; diacritics are stripped afterwards
+    private static final Map<Character, String> CYRILLIC_TO_LATIN = Map.ofEntries(
+            Map.entry('а', "a"), Map.entry('б', "b"), Map.entry('в', "v"), Map.entry('г', "g"),
+            Map.entry('д', "d"), Map.entry('ѓ', "gj"), Map.entry('ђ', "dj"), Map.entry('е', "e"),
+            Map.entry('ж', "ž"), Map.entry('з', "z"), Map.entry('ѕ', "dz"), Map.entry('и', "i"),
+            Map.entry('ј', "j"), Map.entry('й', "j"), Map.entry('к', "k"), Map.entry('л', "l"),
+            Map.entry('љ', "lj"), Map.entry('м', "m"), Map.entry('н', "n"), Map.entry('њ', "nj"),
+            Map.entry('о', "o"), Map.entry('п', "p"), Map.entry('р', "r"), Map.entry('с', "s"),
+            Map.entry('т', "t"), Map.entry('ќ', "kj"), Map.entry('ћ', "ć"), Map.entry('у', "u"),
+            Map.entry('ф', "f"), Map.entry('х', "h"), Map.entry('ц', "c"), Map.entry('ч', "č"),
+            Map.entry('џ', "dž"), Map.entry('ш', "š"), Map.entry('ѐ', "e"), Map.entry('ѝ', "i"),
+            Map.entry('ю', "ju"), Map.entry('я', "ja"), Map.entry('ы', "y"), Map.entry('э', "e"),
+            Map.entry('ь', ""), Map.entry('ъ', "")
+    );
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(transliterate(text.toLowerCase(Locale.ROOT)), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Like {@link #normalize} but also collapses the digraphs tourists type for
+     * č/š/ž (ch, sh, zh), so "Charshija", "Čaršija" and "Чаршија" fold to the same key
+     */
+    public static String foldForMatching(String text) {
+        return normalize(text).replace("ch", "c").replace("sh", "s").replace("zh", "z");
+    }
+
+    private static String transliterate(String lowerCase) {
+        StringBuilder result = null;
+        for (int i = 0; i < lowerCase.length(); i++) {
+            char c = lowerCase.charAt(i);
+            String latin = CYRILLIC_TO_LATIN.get(c);
+            if (latin != null && result == null) {
+                result = new StringBuilder(lowerCase.length() + 8).append(lowerCase, 0, i);
+            }
+            if (result != null) {
+                result.append(latin != null ? latin : String.valueOf(c));
+            }
+        }
+        return result != null ? result.toString() : lowerCase;
+    }
+
+    public static List<String> tokenize(String text) {
+        return split(normalize(text));
+    }
+
+    public static List<String> split(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(normalized.substring(start));
+        }
+        return tokens;
+    }
+}
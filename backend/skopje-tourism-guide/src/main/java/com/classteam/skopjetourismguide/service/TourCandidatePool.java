@@ -0,0 +1,122 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The places tour generation may choose from, per place type: the best {@code perType} places
+ * of the type rated at least {@link #MIN_RATING} and reviewed at least once. A preference
+ * draws from a set of types; the candidates of the types not in memory yet are chosen on the
+ * {@link TourCandidateStore} of the current catalog, without touching the database, and then
+ * loaded together by id in one query.
+ * <p>
+ * The candidates of a type are the same whichever preference asks for them, so they are kept
+ * per type rather than per preference. They are kept until the place catalog changes: every
+ * place write swaps the catalog snapshot, and candidates loaded under an older snapshot are
+ * loaded again. The store is rebuilt for the new snapshot on first use.
+ */
+@Service
+public class TourCandidatePool {
+
+    public static final float MIN_RATING = 3.0f;
+
+    private final PlaceRepository placeRepository;
+    private final PlaceCatalogService placeCatalogService;
+    private final int perType;
+    private final Map<PlaceType, Candidates> candidates = new ConcurrentHashMap<>();
+    private volatile TourCandidateStore store;
+
+    public TourCandidatePool(PlaceRepository placeRepository, PlaceCatalogService placeCatalogService,
+                             @Value("${tours.candidates.per-type:60}") int perType) {
+        this.placeRepository = placeRepository;
+        this.placeCatalogService = placeCatalogService;
+        this.perType = perType;
+    }
+
+    /**
+     * Candidates of each of the types, best first; types without candidates are left out
+     */
+    public Map<PlaceType, List<Place>> candidates(Set<PlaceType> placeTypes) {
+        Map<PlaceType, List<Place>> byType = new EnumMap<>(PlaceType.class);
+        if (placeTypes.isEmpty()) {
+            return byType;
+        }
+        // Taken before the query, so a place written while it runs makes the result stale
+        PlaceCatalog catalog = placeCatalogService.current();
+
+        List<PlaceType> missing = new ArrayList<>();
+        for (PlaceType placeType : placeTypes) {
+            Candidates cached = candidates.get(placeType);
+            if (cached != null && cached.catalog() == catalog) {
+                if (!cached.places().isEmpty()) {
+                    byType.put(placeType, cached.places());
+                }
+            } else {
+                missing.add(placeType);
+            }
+        }
+        if (missing.isEmpty()) {
+            return byType;
+        }
+
+        TourCandidateStore current = store(catalog);
+        int[] selected = new int[perType];
+        double[] keys = new double[perType];
+        Map<PlaceType, List<Long>> chosen = new EnumMap<>(PlaceType.class);
+        List<Long> ids = new ArrayList<>();
+        for (PlaceType placeType : missing) {
+            int count = current.selectBest(placeType, MIN_RATING, perType, selected, keys);
+            List<Long> ofType = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ofType.add(current.id(selected[i]));
+            }
+            chosen.put(placeType, ofType);
+            ids.addAll(ofType);
+        }
+
+        Map<Long, Place> loaded = new HashMap<>(ids.size() * 2);
+        if (!ids.isEmpty()) {
+            for (Place place : placeRepository.findAllById(ids)) {
+                loaded.put(place.getId(), place);
+            }
+        }
+        for (PlaceType placeType : missing) {
+            List<Place> places = new ArrayList<>();
+            for (Long id : chosen.get(placeType)) {
+                Place place = loaded.get(id); // null when deleted since the snapshot
+                if (place != null) {
+                    places.add(place);
+                }
+            }
+            places = List.copyOf(places);
+            candidates.put(placeType, new Candidates(catalog, places));
+            if (!places.isEmpty()) {
+                byType.put(placeType, places);
+            }
+        }
+        return byType;
+    }
+
+    private TourCandidateStore store(PlaceCatalog catalog) {
+        TourCandidateStore current = store;
+        if (current == null || current.catalog() != catalog) {
+            synchronized (this) {
+                current = store;
+                if (current == null || current.catalog() != catalog) {
+                    current = TourCandidateStore.of(catalog);
+                    store = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private record Candidates(PlaceCatalog catalog, List<Place> places) {
+    }
+}
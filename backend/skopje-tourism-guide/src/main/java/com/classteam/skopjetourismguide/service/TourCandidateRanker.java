@@ -0,0 +1,198 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.DrinkType;
+import com.classteam.skopjetourismguide.model.enumerations.FoodType;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.SentimentTag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Picks the candidates that go into the tour generation prompt. Every eligible place is scored
+ * on its (Bayesian) rating, review volume and how well its sentiment tags match the preference;
+ * the best {@code topKPerType} of each place type are then taken round-robin across types,
+ * best first, until the prompt lines reach the token budget. Round-robin keeps the mix of
+ * types when the budget cuts the list short.
+ */
+@Service
+public class TourCandidateRanker {
+
+    // Bayesian prior used to damp ratings backed by only a handful of reviews
+    private static final double PRIOR_RATING = 3.5;
+    private static final double PRIOR_VOTES = 20;
+    private static final double VOLUME_SATURATION = Math.log10(1 + 10_000);
+
+    private static final double RATING_WEIGHT = 0.5;
+    private static final double VOLUME_WEIGHT = 0.3;
+    private static final double SENTIMENT_WEIGHT = 0.2;
+
+    private final int topKPerType;
+    private final int tokenBudget;
+
+    public TourCandidateRanker(@Value("${tours.prompt.top-k-per-type:12}") int topKPerType,
+                               @Value("${tours.prompt.candidate-token-budget:2000}") int tokenBudget) {
+        this.topKPerType = topKPerType;
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * The candidates to offer the AI, in prompt order
+     */
+    public List<Place> rank(Preference preference, List<Place> eligiblePlaces) {
+        Set<SentimentTag> wantedTags = wantedSentiments(preference);
+
+        Map<Long, ScoredPlace> unique = new LinkedHashMap<>();
+        for (Place place : eligiblePlaces) {
+            unique.computeIfAbsent(place.getId(), id -> new ScoredPlace(place, score(place, wantedTags)));
+        }
+
+        Map<PlaceType, List<ScoredPlace>> byType = new HashMap<>();
+        for (ScoredPlace scored : unique.values()) {
+            byType.computeIfAbsent(scored.place().getPlaceType(), t -> new ArrayList<>()).add(scored);
+        }
+        List<List<ScoredPlace>> queues = new ArrayList<>(byType.values());
+        for (List<ScoredPlace> queue : queues) {
+            queue.sort(Comparator.comparingDouble(ScoredPlace::score).reversed()
+                    .thenComparing(scored -> scored.place().getId()));
+        }
+        // Types with the strongest candidate go first in every round
+        queues.sort(Comparator.comparingDouble((List<ScoredPlace> queue) -> queue.get(0).score()).reversed());
+
+        List<Place> selected = new ArrayList<>();
+        int tokens = 0;
+        for (int round = 0; round < topKPerType; round++) {
+            boolean any = false;
+            for (List<ScoredPlace> queue : queues) {
+                if (round >= queue.size()) {
+                    continue;
+                }
+                Place place = queue.get(round).place();
+                int lineTokens = estimateTokens(promptLine(place));
+                if (tokens + lineTokens > tokenBudget) {
+                    return selected;
+                }
+                selected.add(place);
+                tokens += lineTokens;
+                any = true;
+            }
+            if (!any) {
+                break;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * How a candidate is described to the AI, one line per place
+     */
+    public static String promptLine(Place place) {
+        return "ID: " + place.getId()
+                + ", Name: " + place.getName()
+                + ", Type: " + place.getPlaceType()
+                + ", Rating: " + (place.getAverageRating() != null ? place.getAverageRating() : "N/A")
+                + ", Reviews: " + (place.getUserRatingsTotal() != null ? place.getUserRatingsTotal() : 0)
+                + ", Sentiment: " + (place.getSentimentTag() != null ? place.getSentimentTag() : "None")
+                + "\n";
+    }
+
+    // Rough GPT tokenizer estimate: about four characters per token for English text
+    public static int estimateTokens(String text) {
+        return (text.length() + 3) / 4;
+    }
+
+    static double score(Place place, Set<SentimentTag> wantedTags) {
+        return score(place.getAverageRating() != null ? place.getAverageRating() : Float.NaN,
+                place.getUserRatingsTotal() != null ? place.getUserRatingsTotal() : -1,
+                TourCandidateStore.sentiment(place.getSentimentTag()),
+                TourCandidateStore.sentimentBits(wantedTags));
+    }
+
+    /**
+     * The score on primitive fields: an unrated place has a NaN rating, an unknown review count
+     * is negative, and the sentiment tags are packed as in {@link TourCandidateStore}
+     */
+    static double score(float averageRating, int userRatingsTotal, int sentiment, int wantedBits) {
+        double votes = Math.max(0, userRatingsTotal);
+        double rating = Float.isNaN(averageRating) ? PRIOR_RATING : averageRating;
+        double bayesianRating = (votes * rating + PRIOR_VOTES * PRIOR_RATING) / (votes + PRIOR_VOTES);
+        double volume = Math.min(1, Math.log10(1 + votes) / VOLUME_SATURATION);
+
+        return RATING_WEIGHT * bayesianRating / 5.0
+                + VOLUME_WEIGHT * volume
+                + SENTIMENT_WEIGHT * TourCandidateStore.sentimentMatch(sentiment, wantedBits);
+    }
+
+    /**
+     * Sentiment tags implied by the preference's choices and named in its description
+     */
+    static Set<SentimentTag> wantedSentiments(Preference preference) {
+        Set<SentimentTag> wanted = EnumSet.noneOf(SentimentTag.class);
+
+        if (preference.getAttractionTypePreferences() != null) {
+            for (AttractionType attractionType : preference.getAttractionTypePreferences()) {
+                switch (attractionType) {
+                    case HISTORICAL, LANDMARKS -> wanted.addAll(List.of(SentimentTag.HISTORICAL, SentimentTag.AUTHENTIC));
+                    case MUSEUMS -> wanted.addAll(List.of(SentimentTag.HISTORICAL, SentimentTag.UNIQUE));
+                    case NATURE, PARKS -> wanted.addAll(List.of(SentimentTag.PEACEFUL, SentimentTag.FAMILY_FRIENDLY));
+                }
+            }
+        }
+        if (preference.getFoodTypePreferences() != null) {
+            for (FoodType foodType : preference.getFoodTypePreferences()) {
+                switch (foodType) {
+                    case BALKAN -> wanted.add(SentimentTag.AUTHENTIC);
+                    case FINE_DINING -> wanted.add(SentimentTag.ROMANTIC);
+                    case FAST_FOOD -> wanted.add(SentimentTag.POPULAR);
+                    case VEGAN, ASIAN -> wanted.add(SentimentTag.TRENDY);
+                    default -> {
+                    }
+                }
+            }
+        }
+        if (preference.getDrinkTypePreferences() != null) {
+            for (DrinkType drinkType : preference.getDrinkTypePreferences()) {
+                switch (drinkType) {
+                    case COCKTAILS, SMOOTHIES -> wanted.add(SentimentTag.TRENDY);
+                    case WINE -> wanted.add(SentimentTag.ROMANTIC);
+                    case TEA -> wanted.add(SentimentTag.PEACEFUL);
+                    default -> {
+                    }
+                }
+            }
+        }
+        if (preference.getBudgetLevel() == BudgetLevel.LUXURY) {
+            wanted.add(SentimentTag.UNIQUE);
+        } else if (preference.getBudgetLevel() == BudgetLevel.ON_BUDGET) {
+            wanted.add(SentimentTag.POPULAR);
+        }
+
+        wanted.addAll(mentionedSentiments(preference.getDescription()));
+        return wanted;
+    }
+
+    /**
+     * The sentiment tags named in a preference's free-text description
+     */
+    static Set<SentimentTag> mentionedSentiments(String description) {
+        Set<SentimentTag> mentioned = EnumSet.noneOf(SentimentTag.class);
+        if (description == null) {
+            return mentioned;
+        }
+        String text = description.toUpperCase(Locale.ROOT).replace('-', '_');
+        for (SentimentTag tag : SentimentTag.values()) {
+            if (text.contains(tag.name()) || text.contains(tag.name().replace('_', ' '))) {
+                mentioned.add(tag);
+            }
+        }
+        return mentioned;
+    }
+
+    private record ScoredPlace(Place place, double score) {
+    }
+}
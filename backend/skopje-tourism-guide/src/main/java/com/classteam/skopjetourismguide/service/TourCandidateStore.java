@@ -0,0 +1,322 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.SentimentTag;
+
+import java.util.*;
+
+/**
+ * Immutable struct-of-arrays copy of the place catalog for tour candidate selection: one
+ * primitive array per field, index {@code i} of every array describing the same place. Places
+ * are grouped by type (then ordered by id), so selecting the candidates of a type scans one
+ * contiguous slice of each array and never touches a boxed field or an entity.
+ * <p>
+ * Missing values have sentinels: an unrated place has a {@code NaN} rating, an unknown review
+ * count is -1, missing coordinates are {@code NaN} and a place without a type has type -1.
+ * Sentiment tags are packed into one int per place: bit {@code t} is set for
+ * {@code SentimentTag.values()[t]} and the top byte holds the number of tags, known or not.
+ * <p>
+ * Built from a {@link PlaceCatalog} snapshot (see {@link TourCandidatePool}) and never
+ * modified; a new catalog gets a new store.
+ */
+public final class TourCandidateStore {
+
+    private static final int TAG_COUNT_SHIFT = 24;
+    private static final int TAG_BITS = (1 << TAG_COUNT_SHIFT) - 1;
+    private static final int NO_TYPE = PlaceType.values().length;
+    private static final SentimentTag[] SENTIMENT_TAGS = SentimentTag.values();
+
+    private final PlaceCatalog catalog;
+    private final int size;
+    private final long[] ids;
+    private final float[] rating;
+    private final int[] reviews;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final short[] placeTypeOrdinal;
+    private final int[] sentiment;
+    // Selection key of every place, see bayesianRating
+    private final double[] bayesian;
+    // Places of type t are at [typeStart[t], typeStart[t + 1]); the places without a type come last
+    private final int[] typeStart;
+
+    private TourCandidateStore(PlaceCatalog catalog, Builder builder) {
+        int count = builder.size;
+        // Counting sort by type; the builder's order within a type is kept
+        int[] starts = new int[NO_TYPE + 2];
+        for (int i = 0; i < count; i++) {
+            starts[bucket(builder.placeTypeOrdinal[i]) + 1]++;
+        }
+        for (int t = 0; t <= NO_TYPE; t++) {
+            starts[t + 1] += starts[t];
+        }
+        int[] order = new int[count];
+        int[] next = Arrays.copyOf(starts, starts.length);
+        for (int i = 0; i < count; i++) {
+            order[next[bucket(builder.placeTypeOrdinal[i])]++] = i;
+        }
+
+        this.catalog = catalog;
+        this.size = count;
+        this.typeStart = starts;
+        this.ids = new long[count];
+        this.rating = new float[count];
+        this.reviews = new int[count];
+        this.latitude = new double[count];
+        this.longitude = new double[count];
+        this.placeTypeOrdinal = new short[count];
+        this.sentiment = new int[count];
+        this.bayesian = new double[count];
+        for (int i = 0; i < count; i++) {
+            int from = order[i];
+            ids[i] = builder.ids[from];
+            rating[i] = builder.rating[from];
+            reviews[i] = builder.reviews[from];
+            latitude[i] = builder.latitude[from];
+            longitude[i] = builder.longitude[from];
+            placeTypeOrdinal[i] = builder.placeTypeOrdinal[from];
+            sentiment[i] = builder.sentiment[from];
+            bayesian[i] = bayesianRating(rating[i], reviews[i]);
+        }
+    }
+
+    /**
+     * The store of a catalog snapshot
+     */
+    public static TourCandidateStore of(PlaceCatalog catalog) {
+        List<PlaceCatalogEntry> entries = catalog.all();
+        // Ordered by id within each type, as the candidate query used to break ties
+        List<PlaceCatalogEntry> byId = new ArrayList<>(entries);
+        byId.sort(Comparator.comparing(PlaceCatalogEntry::id));
+
+        Builder builder = new Builder(byId.size());
+        for (PlaceCatalogEntry entry : byId) {
+            builder.add(entry.id(), entry.placeType(),
+                    entry.averageRating() != null ? entry.averageRating() : Float.NaN,
+                    entry.userRatingsTotal() != null ? entry.userRatingsTotal() : -1,
+                    entry.latitude() != null ? entry.latitude() : Double.NaN,
+                    entry.longitude() != null ? entry.longitude() : Double.NaN,
+                    sentiment(entry.sentimentTag()));
+        }
+        return builder.build(catalog);
+    }
+
+    public PlaceCatalog catalog() {
+        return catalog;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int index) {
+        return ids[index];
+    }
+
+    public double latitude(int index) {
+        return latitude[index];
+    }
+
+    public double longitude(int index) {
+        return longitude[index];
+    }
+
+    /**
+     * Selection kernel: the indexes of the best {@code limit} places of the type rated at least
+     * {@code minRating} (or not rated) and reviewed at least once (or with an unknown review count),
+     * best Bayesian rating first, ties by id. Written to {@code out}; {@code keys} is scratch space.
+     * Both must hold at least {@code limit} elements. Returns how many were written.
+     * <p>
+     * One pass over the type's slice keeping a bounded heap of the best so far, then an in-place
+     * heap sort; it allocates nothing.
+     */
+    public int selectBest(PlaceType placeType, float minRating, int limit, int[] out, double[] keys) {
+        int from = typeStart[placeType.ordinal()];
+        int to = typeStart[placeType.ordinal() + 1];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            float r = rating[i];
+            if (r < minRating || reviews[i] == 0) { // false for an unrated (NaN) place
+                continue;
+            }
+            double key = bayesian[i];
+            if (count < limit) {
+                out[count] = i;
+                keys[count] = key;
+                siftUp(out, keys, count++);
+            } else if (limit > 0 && worse(keys[0], out[0], key, i)) {
+                out[0] = i;
+                keys[0] = key;
+                siftDown(out, keys, 0, count);
+            }
+        }
+        // The root is the worst kept place: move it behind the heap until the heap is empty
+        for (int end = count - 1; end > 0; end--) {
+            swap(out, keys, 0, end);
+            siftDown(out, keys, 0, end);
+        }
+        return count;
+    }
+
+    /**
+     * Scoring kernel: {@link TourCandidateRanker}'s score of the place at the index, for the
+     * wanted tags as packed by {@link #sentimentBits}
+     */
+    public double score(int index, int wantedBits) {
+        return TourCandidateRanker.score(rating[index], reviews[index], sentiment[index], wantedBits);
+    }
+
+    /**
+     * Average rating damped towards 3.5 as if by 20 extra reviews; unrated places count as 0
+     */
+    static double bayesianRating(float rating, int reviews) {
+        double votes = Math.max(0, reviews);
+        double r = Float.isNaN(rating) ? 0 : rating;
+        return (r * votes + 3.5 * 20) / (votes + 20);
+    }
+
+    /**
+     * A place's comma- or semicolon-separated sentiment tags, packed
+     */
+    static int sentiment(String sentimentTag) {
+        if (sentimentTag == null || sentimentTag.isBlank()) {
+            return 0;
+        }
+        int bits = 0;
+        int tags = 0;
+        for (String tag : sentimentTag.split("[,;]")) {
+            String name = tag.trim().toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+            if (name.isEmpty()) {
+                continue;
+            }
+            tags++;
+            for (SentimentTag known : SENTIMENT_TAGS) {
+                if (known.name().equals(name)) {
+                    bits |= 1 << known.ordinal();
+                    break;
+                }
+            }
+        }
+        return Math.min(tags, 0xFF) << TAG_COUNT_SHIFT | bits;
+    }
+
+    static int sentimentBits(Set<SentimentTag> tags) {
+        int bits = 0;
+        for (SentimentTag tag : tags) {
+            bits |= 1 << tag.ordinal();
+        }
+        return bits;
+    }
+
+    /**
+     * Share of the packed tags that are among the wanted ones
+     */
+    static double sentimentMatch(int sentiment, int wantedBits) {
+        int tags = sentiment >>> TAG_COUNT_SHIFT;
+        if (tags == 0 || wantedBits == 0) {
+            return 0;
+        }
+        return (double) Integer.bitCount(sentiment & wantedBits & TAG_BITS) / tags;
+    }
+
+    private static int bucket(short placeTypeOrdinal) {
+        return placeTypeOrdinal < 0 ? NO_TYPE : placeTypeOrdinal;
+    }
+
+    // Whether place a ranks below place b: lower key, or the same key and a higher id
+    private boolean worse(double keyA, int a, double keyB, int b) {
+        return keyA < keyB || (keyA == keyB && ids[a] > ids[b]);
+    }
+
+    // Min-heap on (key, -id): the root is the worst place kept
+    private void siftUp(int[] heap, double[] keys, int child) {
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (!worse(keys[child], heap[child], keys[parent], heap[parent])) {
+                break;
+            }
+            swap(heap, keys, child, parent);
+            child = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, double[] keys, int parent, int count) {
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= count) {
+                return;
+            }
+            if (child + 1 < count && worse(keys[child + 1], heap[child + 1], keys[child], heap[child])) {
+                child++;
+            }
+            if (!worse(keys[child], heap[child], keys[parent], heap[parent])) {
+                return;
+            }
+            swap(heap, keys, child, parent);
+            parent = child;
+        }
+    }
+
+    private static void swap(int[] heap, double[] keys, int a, int b) {
+        int index = heap[a];
+        heap[a] = heap[b];
+        heap[b] = index;
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+    }
+
+    /**
+     * Collects places field by field into growable primitive arrays
+     */
+    static final class Builder {
+
+        private int size;
+        private long[] ids;
+        private float[] rating;
+        private int[] reviews;
+        private double[] latitude;
+        private double[] longitude;
+        private short[] placeTypeOrdinal;
+        private int[] sentiment;
+
+        Builder(int capacity) {
+            int initial = Math.max(16, capacity);
+            ids = new long[initial];
+            rating = new float[initial];
+            reviews = new int[initial];
+            latitude = new double[initial];
+            longitude = new double[initial];
+            placeTypeOrdinal = new short[initial];
+            sentiment = new int[initial];
+        }
+
+        Builder add(long id, PlaceType placeType, float averageRating, int userRatingsTotal,
+                    double lat, double lng, int packedSentiment) {
+            if (size == ids.length) {
+                int grown = size * 2;
+                ids = Arrays.copyOf(ids, grown);
+                rating = Arrays.copyOf(rating, grown);
+                reviews = Arrays.copyOf(reviews, grown);
+                latitude = Arrays.copyOf(latitude, grown);
+                longitude = Arrays.copyOf(longitude, grown);
+                placeTypeOrdinal = Arrays.copyOf(placeTypeOrdinal, grown);
+                sentiment = Arrays.copyOf(sentiment, grown);
+            }
+            ids[size] = id;
+            rating[size] = averageRating;
+            reviews[size] = userRatingsTotal;
+            latitude[size] = lat;
+            longitude[size] = lng;
+            placeTypeOrdinal[size] = (short) (placeType != null ? placeType.ordinal() : -1);
+            sentiment[size] = packedSentiment;
+            size++;
+            return this;
+        }
+
+        TourCandidateStore build(PlaceCatalog catalog) {
+            return new TourCandidateStore(catalog, this);
+        }
+    }
+}
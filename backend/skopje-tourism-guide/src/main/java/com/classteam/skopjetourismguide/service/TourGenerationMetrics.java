@@ -0,0 +1,161 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.TourGenerationMetricsDTO;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Counts and times the place selection of every created tour by where the places came from,
+ * with the average {@link LocalTourRecommender.TourQuality} per source so the engines can be compared,
+ * next to the hit rate of the {@link TourRecommendationCache}, the tokens and latency of the
+ * AI calls, the end-to-end duration of tour creation and how often create requests were
+ * retried with an {@link IdempotencyService Idempotency-Key}.
+ */
+@Service
+public class TourGenerationMetrics {
+
+    public enum Source {
+        CACHE, AI, LOCAL, FALLBACK, USER_SELECTED, TEMPLATE
+    }
+
+    private final TourRecommendationCache recommendationCache;
+    private final IdempotencyService idempotencyService;
+    private final Map<Source, Timer> timers = new EnumMap<>(Source.class);
+    private final Timer aiCalls = new Timer();
+    private final Timer endToEnd = new Timer();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong completionTokens = new AtomicLong();
+    private final AtomicLong deadlineMisses = new AtomicLong();
+    private final AtomicLong backgroundUpgrades = new AtomicLong();
+
+    public TourGenerationMetrics(TourRecommendationCache recommendationCache, IdempotencyService idempotencyService) {
+        this.recommendationCache = recommendationCache;
+        this.idempotencyService = idempotencyService;
+        for (Source source : Source.values()) {
+            timers.put(source, new Timer());
+        }
+    }
+
+    /**
+     * Record a place selection that started at {@code startNanos} ({@link System#nanoTime()});
+     * {@code quality} may be null when no places were selected
+     */
+    public void record(Source source, long startNanos, LocalTourRecommender.TourQuality quality) {
+        Timer timer = timers.get(source);
+        timer.record(System.nanoTime() - startNanos);
+        if (quality != null) {
+            timer.recordQuality(quality);
+        }
+    }
+
+    /**
+     * Record one OpenAI round trip with the tokens it consumed
+     */
+    public void recordAiCall(int prompt, int completion, long nanos) {
+        aiCalls.record(nanos);
+        promptTokens.addAndGet(prompt);
+        completionTokens.addAndGet(completion);
+    }
+
+    // The AI did not answer in time and the fallback places were used
+    public void recordAiDeadlineMiss() {
+        deadlineMisses.incrementAndGet();
+    }
+
+    // A late AI answer replaced the fallback places of a saved tour
+    public void recordBackgroundUpgrade() {
+        backgroundUpgrades.incrementAndGet();
+    }
+
+    public void recordTourCreated(long startNanos) {
+        endToEnd.record(System.nanoTime() - startNanos);
+    }
+
+    public TourGenerationMetricsDTO snapshot() {
+        TourRecommendationCache.Stats stats = recommendationCache.stats();
+        TourGenerationMetricsDTO.CacheStats cache = new TourGenerationMetricsDTO.CacheStats();
+        cache.setHits(stats.hits());
+        cache.setMisses(stats.misses());
+        cache.setInvalidations(stats.invalidations());
+        cache.setExpirations(stats.expirations());
+        cache.setEvictions(stats.evictions());
+        cache.setSize(stats.size());
+        cache.setHitRate(stats.hitRate());
+
+        IdempotencyService.Stats retries = idempotencyService.stats();
+        TourGenerationMetricsDTO.IdempotencyStats idempotency = new TourGenerationMetricsDTO.IdempotencyStats();
+        idempotency.setExecutions(retries.executions());
+        idempotency.setReplays(retries.replays());
+        idempotency.setCoalesced(retries.coalesced());
+        idempotency.setSize(retries.size());
+
+        Map<String, TourGenerationMetricsDTO.GenerationStats> generations = new LinkedHashMap<>();
+        timers.forEach((source, timer) -> generations.put(source.name(), timer.toDto()));
+
+        TourGenerationMetricsDTO.GenerationStats calls = aiCalls.toDto();
+        TourGenerationMetricsDTO.AiCallStats ai = new TourGenerationMetricsDTO.AiCallStats();
+        ai.setCount(calls.getCount());
+        ai.setPromptTokens(promptTokens.get());
+        ai.setCompletionTokens(completionTokens.get());
+        ai.setAveragePromptTokens(calls.getCount() == 0 ? 0 : (double) promptTokens.get() / calls.getCount());
+        ai.setAverageCompletionTokens(calls.getCount() == 0 ? 0 : (double) completionTokens.get() / calls.getCount());
+        ai.setAverageMillis(calls.getAverageMillis());
+        ai.setMaxMillis(calls.getMaxMillis());
+        ai.setDeadlineMisses(deadlineMisses.get());
+        ai.setBackgroundUpgrades(backgroundUpgrades.get());
+
+        TourGenerationMetricsDTO dto = new TourGenerationMetricsDTO();
+        dto.setRecommendationCache(cache);
+        dto.setGenerations(generations);
+        dto.setAiCalls(ai);
+        dto.setEndToEnd(endToEnd.toDto());
+        dto.setIdempotency(idempotency);
+        return dto;
+    }
+
+    private static final class Timer {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLong rated = new AtomicLong();
+        private final DoubleAdder ratingSum = new DoubleAdder();
+        private final DoubleAdder diversitySum = new DoubleAdder();
+        private final DoubleAdder coverageSum = new DoubleAdder();
+        private final DoubleAdder spreadSum = new DoubleAdder();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordQuality(LocalTourRecommender.TourQuality quality) {
+            rated.incrementAndGet();
+            ratingSum.add(quality.averageRating());
+            diversitySum.add(quality.typeDiversity());
+            coverageSum.add(quality.coverage());
+            spreadSum.add(quality.meanSpreadMeters());
+        }
+
+        TourGenerationMetricsDTO.GenerationStats toDto() {
+            long n = count.get();
+            TourGenerationMetricsDTO.GenerationStats stats = new TourGenerationMetricsDTO.GenerationStats();
+            stats.setCount(n);
+            stats.setAverageMillis(n == 0 ? 0 : totalNanos.get() / 1e6 / n);
+            stats.setMaxMillis(maxNanos.get() / 1e6);
+            long q = rated.get();
+            if (q > 0) {
+                stats.setAverageRating(ratingSum.sum() / q);
+                stats.setTypeDiversity(diversitySum.sum() / q);
+                stats.setCoverage(coverageSum.sum() / q);
+                stats.setMeanSpreadMeters(spreadSum.sum() / q);
+            }
+            return stats;
+        }
+    }
+}
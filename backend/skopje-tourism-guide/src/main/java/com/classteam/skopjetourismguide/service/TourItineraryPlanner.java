@@ -0,0 +1,283 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Splits the places of a multi-day tour into days. The places are clustered with a capacitated
+ * k-medoids: every day gets the same number of places, give or take one, and places are swapped
+ * between days while that brings them closer to their day's medoid. Each day is then ordered
+ * into a walking route.
+ * <p>
+ * Days are returned largest first, so a tour stores only its places, day after day, and its
+ * number of days; {@link #split} recovers the days from that.
+ */
+@Service
+public class TourItineraryPlanner {
+
+    private static final int MAX_ITERATIONS = 20;
+    private static final double EPSILON_METERS = 1e-3;
+
+    private final TourRouteOptimizer routeOptimizer;
+
+    public TourItineraryPlanner(TourRouteOptimizer routeOptimizer) {
+        this.routeOptimizer = routeOptimizer;
+    }
+
+    /**
+     * Days a tour of the given length is planned over; about three places a day
+     */
+    public static int daysFor(TourLength tourLength) {
+        if (tourLength == null) {
+            return 1;
+        }
+        return switch (tourLength) {
+            case HALF_DAY, FULL_DAY -> 1;
+            case TWO_THREE_DAYS -> 3;
+            case FOUR_SEVEN_DAYS -> 4;
+        };
+    }
+
+    /**
+     * The places split into at most {@code days} route-ordered days, largest day first.
+     * Every day starts at {@code start} and ends at {@code end} when they are given.
+     */
+    public List<List<Place>> plan(List<Place> places, int days, TourRouteOptimizer.Point start,
+                                  TourRouteOptimizer.Point end) {
+        int[] sizes = daySizes(places.size(), days);
+        if (sizes.length <= 1) {
+            return places.isEmpty() ? List.of() : List.of(routeOptimizer.optimize(places, start, end).stops());
+        }
+
+        // Ordered by id so the same places always give the same plan
+        List<Place> located = new ArrayList<>();
+        List<Place> unlocated = new ArrayList<>();
+        for (Place place : places) {
+            (place.getLatitude() != null && place.getLongitude() != null ? located : unlocated).add(place);
+        }
+        located.sort(Comparator.comparing(Place::getId));
+
+        List<List<Place>> clusters;
+        if (located.size() < sizes.length) {
+            // Too few coordinates to cluster: cut one route into days instead
+            clusters = split(routeOptimizer.optimize(places, start, end).stops(), sizes.length);
+        } else {
+            clusters = cluster(located, sizes.length);
+            // Places without coordinates fill up the smallest days
+            for (Place place : unlocated) {
+                clusters.stream().min(Comparator.comparingInt(List::size)).orElseThrow().add(place);
+            }
+        }
+
+        List<List<Place>> itinerary = new ArrayList<>(clusters.size());
+        for (List<Place> day : clusters) {
+            itinerary.add(routeOptimizer.optimize(day, start, end).stops());
+        }
+        itinerary.sort(Comparator.comparingInt((List<Place> day) -> day.size()).reversed()
+                .thenComparing(day -> day.stream().mapToLong(Place::getId).min().orElse(Long.MAX_VALUE)));
+        return itinerary;
+    }
+
+    /**
+     * Cut stops that were saved day after day back into their days
+     */
+    public static List<List<Place>> split(List<Place> stops, int days) {
+        int[] sizes = daySizes(stops.size(), days);
+        List<List<Place>> split = new ArrayList<>(sizes.length);
+        int from = 0;
+        for (int size : sizes) {
+            split.add(new ArrayList<>(stops.subList(from, from + size)));
+            from += size;
+        }
+        return split;
+    }
+
+    // Balanced day sizes, largest first; no empty days
+    private static int[] daySizes(int places, int days) {
+        int count = Math.min(Math.max(days, 1), places);
+        int[] sizes = new int[count];
+        for (int day = 0; day < count; day++) {
+            sizes[day] = places / count + (day < places % count ? 1 : 0);
+        }
+        return sizes;
+    }
+
+    private static List<List<Place>> cluster(List<Place> places, int k) {
+        int n = places.size();
+        double[][] distances = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                distances[i][j] = distances[j][i] = GeoDistance.haversineMeters(
+                        places.get(i).getLatitude(), places.get(i).getLongitude(),
+                        places.get(j).getLatitude(), places.get(j).getLongitude());
+            }
+        }
+
+        int[] medoids = initialMedoids(distances, k);
+        int[] best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            int[] assignment = assign(distances, medoids);
+            swap(distances, medoids, assignment);
+            double cost = cost(distances, medoids, assignment);
+            if (cost < bestCost - EPSILON_METERS) {
+                best = assignment;
+                bestCost = cost;
+            }
+
+            int[] updated = updateMedoids(distances, assignment, k);
+            if (Arrays.equals(updated, medoids)) {
+                break;
+            }
+            medoids = updated;
+        }
+
+        List<List<Place>> clusters = new ArrayList<>(k);
+        for (int c = 0; c < k; c++) {
+            clusters.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            clusters.get(best[i]).add(places.get(i));
+        }
+        return clusters;
+    }
+
+    // Farthest-first: the most central place, then repeatedly the place farthest from all medoids so far
+    private static int[] initialMedoids(double[][] distances, int k) {
+        int n = distances.length;
+        int[] medoids = new int[k];
+        double bestSum = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += distances[i][j];
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                medoids[0] = i;
+            }
+        }
+
+        double[] nearest = distances[medoids[0]].clone();
+        for (int c = 1; c < k; c++) {
+            int farthest = -1;
+            for (int i = 0; i < n; i++) {
+                if (farthest < 0 || nearest[i] > nearest[farthest]) {
+                    farthest = i;
+                }
+            }
+            medoids[c] = farthest;
+            for (int i = 0; i < n; i++) {
+                nearest[i] = Math.min(nearest[i], distances[farthest][i]);
+            }
+        }
+        return medoids;
+    }
+
+    /*
+     * Each place goes to the nearest medoid that still has room. Places that lose the most by not
+     * getting their nearest medoid (the largest regret) choose first. Days hold n / k places,
+     * n % k of them one more.
+     */
+    private static int[] assign(double[][] distances, int[] medoids) {
+        int n = distances.length;
+        int k = medoids.length;
+        int base = n / k;
+        int larger = n % k;
+
+        double[] regret = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            double first = Double.POSITIVE_INFINITY;
+            double second = Double.POSITIVE_INFINITY;
+            for (int medoid : medoids) {
+                double distance = distances[i][medoid];
+                if (distance < first) {
+                    second = first;
+                    first = distance;
+                } else if (distance < second) {
+                    second = distance;
+                }
+            }
+            regret[i] = second - first;
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(regret[b], regret[a]));
+
+        int[] assignment = new int[n];
+        int[] counts = new int[k];
+        int largerUsed = 0;
+        for (int i : order) {
+            int chosen = -1;
+            for (int c = 0; c < k; c++) {
+                boolean room = counts[c] < base || (counts[c] == base && largerUsed < larger);
+                if (room && (chosen < 0 || distances[i][medoids[c]] < distances[i][medoids[chosen]])) {
+                    chosen = c;
+                }
+            }
+            if (counts[chosen] == base) {
+                largerUsed++;
+            }
+            counts[chosen]++;
+            assignment[i] = chosen;
+        }
+        return assignment;
+    }
+
+    // Swap places between days while that brings both closer to their medoid; day sizes stay the same
+    private static void swap(double[][] distances, int[] medoids, int[] assignment) {
+        int n = distances.length;
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_ITERATIONS; pass++) {
+            improved = false;
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int ci = assignment[i];
+                    int cj = assignment[j];
+                    if (ci == cj) {
+                        continue;
+                    }
+                    double delta = distances[i][medoids[cj]] + distances[j][medoids[ci]]
+                            - distances[i][medoids[ci]] - distances[j][medoids[cj]];
+                    if (delta < -EPSILON_METERS) {
+                        assignment[i] = cj;
+                        assignment[j] = ci;
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // The member of each day with the smallest total distance to the other members
+    private static int[] updateMedoids(double[][] distances, int[] assignment, int k) {
+        int n = distances.length;
+        int[] medoids = new int[k];
+        double[] bestSums = new double[k];
+        Arrays.fill(bestSums, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                if (assignment[j] == assignment[i]) {
+                    sum += distances[i][j];
+                }
+            }
+            if (sum < bestSums[assignment[i]]) {
+                bestSums[assignment[i]] = sum;
+                medoids[assignment[i]] = i;
+            }
+        }
+        return medoids;
+    }
+
+    private static double cost(double[][] distances, int[] medoids, int[] assignment) {
+        double cost = 0;
+        for (int i = 0; i < distances.length; i++) {
+            cost += distances[i][medoids[assignment[i]]];
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,263 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.TourCreateDTO;
+import com.classteam.skopjetourismguide.dto.TourDTO;
+import com.classteam.skopjetourismguide.dto.TourJobDTO;
+import com.classteam.skopjetourismguide.exception.TourJobNotFoundException;
+import com.classteam.skopjetourismguide.exception.TourJobRejectedException;
+import com.classteam.skopjetourismguide.model.TourJob;
+import com.classteam.skopjetourismguide.model.enumerations.TourJobStatus;
+import com.classteam.skopjetourismguide.repository.TourJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Runs tour generation in the background so that POST requests return immediately.
+ * Jobs are persisted before they are queued on a bounded executor; clients poll them
+ * or subscribe to server-sent events. Jobs left pending or running by a shutdown are
+ * resumed on the next start.
+ */
+@Service
+public class TourJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourJobService.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long EVENTS_TIMEOUT_MS = 5 * 60 * 1000L;
+    // Shown to clients instead of the exception, which is only logged
+    private static final String FAILED_MESSAGE = "Tour generation failed";
+
+    private final TourJobRepository tourJobRepository;
+    private final ToursService toursService;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor executor;
+
+    // SSE subscribers per job id, completed and dropped once the job finishes
+    private final Map<Long, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public TourJobService(TourJobRepository tourJobRepository,
+                          ToursService toursService,
+                          ObjectMapper objectMapper,
+                          @Value("${tours.jobs.threads:2}") int threads,
+                          @Value("${tours.jobs.queue-capacity:100}") int queueCapacity) {
+        this.tourJobRepository = tourJobRepository;
+        this.toursService = toursService;
+        this.objectMapper = objectMapper;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("tour-job-"));
+    }
+
+    /**
+     * Persist and queue a tour generation request
+     *
+     * @throws TourJobRejectedException when the queue is full
+     */
+    public TourJobDTO submit(TourCreateDTO tourCreateDTO) {
+        TourJob job = new TourJob();
+        try {
+            job.setRequest(objectMapper.writeValueAsString(tourCreateDTO));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Tour request cannot be serialized", e);
+        }
+        job = tourJobRepository.save(job);
+
+        Long jobId = job.getId();
+        try {
+            executor.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Tour job queue is full, rejecting job ID: {}", jobId);
+            tourJobRepository.deleteById(jobId);
+            throw new TourJobRejectedException();
+        }
+
+        logger.info("Queued tour job ID: {}", jobId);
+        return toDto(job);
+    }
+
+    public TourJobDTO getJob(Long id) {
+        return tourJobRepository.findById(id)
+                .map(this::toDto)
+                .orElseThrow(() -> new TourJobNotFoundException(id));
+    }
+
+    /**
+     * Event stream with the job's status, now and on every change; completes once the job has finished
+     */
+    public SseEmitter subscribe(Long jobId) {
+        TourJobDTO job = getJob(jobId);
+        SseEmitter emitter = new SseEmitter(EVENTS_TIMEOUT_MS);
+        if (job.getStatus().isFinished()) {
+            sendAndComplete(emitter, job);
+            return emitter;
+        }
+
+        addSubscriber(jobId, emitter);
+        emitter.onCompletion(() -> removeSubscriber(jobId, emitter));
+        emitter.onError(e -> removeSubscriber(jobId, emitter));
+        emitter.onTimeout(emitter::complete);
+
+        // Re-read: the job may have finished before the emitter was registered
+        job = getJob(jobId);
+        if (job.getStatus().isFinished()) {
+            removeSubscriber(jobId, emitter);
+            sendAndComplete(emitter, job);
+        } else {
+            send(emitter, job);
+        }
+        return emitter;
+    }
+
+    /**
+     * Re-queue the jobs a previous run did not finish
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<TourJob> unfinished = tourJobRepository.findByStatusInOrderByIdAsc(
+                List.of(TourJobStatus.PENDING, TourJobStatus.RUNNING));
+        if (unfinished.isEmpty()) {
+            return;
+        }
+
+        logger.info("Resuming {} unfinished tour jobs", unfinished.size());
+        for (TourJob job : unfinished) {
+            if (job.getAttempts() >= MAX_ATTEMPTS) {
+                job.setStatus(TourJobStatus.FAILED);
+                job.setError("Gave up after " + job.getAttempts() + " attempts");
+                job.setUpdatedAt(LocalDateTime.now());
+                tourJobRepository.save(job);
+                continue;
+            }
+
+            job.setStatus(TourJobStatus.PENDING);
+            job.setUpdatedAt(LocalDateTime.now());
+            tourJobRepository.save(job);
+            Long jobId = job.getId();
+            try {
+                executor.execute(() -> run(jobId));
+            } catch (RejectedExecutionException e) {
+                logger.warn("Tour job queue is full, job ID: {} stays pending until the next start", jobId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs stay RUNNING and are resumed on the next start
+        executor.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    private void run(Long jobId) {
+        TourJob job = tourJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus().isFinished()) {
+            return;
+        }
+
+        job.setStatus(TourJobStatus.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        job.setUpdatedAt(LocalDateTime.now());
+        job = tourJobRepository.save(job);
+        publish(job);
+
+        TourJob running = job;
+        try {
+            TourCreateDTO tourCreateDTO = objectMapper.readValue(job.getRequest(), TourCreateDTO.class);
+            // Completed in the tour's own transaction: a crash in between would resume the job
+            // and create the tour a second time
+            TourDTO tour = toursService.createTour(tourCreateDTO, saved -> {
+                running.setStatus(TourJobStatus.COMPLETED);
+                running.setTourId(saved.getId());
+                running.setUpdatedAt(LocalDateTime.now());
+                tourJobRepository.save(running);
+            });
+            logger.info("Tour job ID: {} completed with tour ID: {}", jobId, tour.getId());
+            publish(running);
+        } catch (Exception e) {
+            // Once the tour's transaction committed the job is COMPLETED and stays so; a failure
+            // after that, e.g. mapping the tour, must not send a client retrying into a duplicate
+            TourJob stored = tourJobRepository.findById(jobId).orElse(running);
+            if (stored.getStatus() == TourJobStatus.COMPLETED) {
+                logger.error("Tour job ID: {} completed with tour ID: {} but failed afterwards: {}",
+                        jobId, stored.getTourId(), e.getMessage(), e);
+                publish(stored);
+                return;
+            }
+            logger.error("Tour job ID: {} failed: {}", jobId, e.getMessage(), e);
+            stored.setStatus(TourJobStatus.FAILED);
+            stored.setTourId(null);
+            stored.setError(FAILED_MESSAGE);
+            stored.setUpdatedAt(LocalDateTime.now());
+            publish(tourJobRepository.save(stored));
+        }
+    }
+
+    private void publish(TourJob job) {
+        TourJobDTO dto = toDto(job);
+        if (job.getStatus().isFinished()) {
+            List<SseEmitter> emitters = subscribers.remove(job.getId());
+            if (emitters != null) {
+                emitters.forEach(emitter -> sendAndComplete(emitter, dto));
+            }
+        } else {
+            subscribers.getOrDefault(job.getId(), List.of()).forEach(emitter -> send(emitter, dto));
+        }
+    }
+
+    private void addSubscriber(Long jobId, SseEmitter emitter) {
+        subscribers.compute(jobId, (id, emitters) -> {
+            List<SseEmitter> jobSubscribers = emitters != null ? emitters : new CopyOnWriteArrayList<>();
+            jobSubscribers.add(emitter);
+            return jobSubscribers;
+        });
+    }
+
+    // Drops the job's entry with its last subscriber, so no empty list outlives the job
+    private void removeSubscriber(Long jobId, SseEmitter emitter) {
+        subscribers.computeIfPresent(jobId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private void sendAndComplete(SseEmitter emitter, TourJobDTO job) {
+        send(emitter, job);
+        emitter.complete();
+    }
+
+    private void send(SseEmitter emitter, TourJobDTO job) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("status")
+                    .data(job));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already completed
+            emitter.completeWithError(e);
+        }
+    }
+
+    private TourJobDTO toDto(TourJob job) {
+        TourJobDTO dto = new TourJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus());
+        dto.setTourId(job.getTourId());
+        dto.setError(job.getError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        return dto;
+    }
+}
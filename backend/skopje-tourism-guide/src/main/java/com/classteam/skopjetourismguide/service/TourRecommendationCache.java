@@ -0,0 +1,97 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the places the AI picked for a preference, so repeated preference combinations
+ * skip the OpenAI round trip. Entries are keyed on the parts of the preference that go into
+ * the prompt and carry a fingerprint of the candidate places the AI chose from; an entry whose
+ * candidates have changed since (new, removed or re-rated places) is dropped instead of served.
+ * Entries expire after a TTL and the least recently used ones are evicted beyond the size limit.
+ */
+@Service
+public class TourRecommendationCache {
+
+    private final ExpiringBoundedMap<PreferenceKey, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public TourRecommendationCache(@Value("${tours.recommendation-cache.ttl:PT6H}") Duration ttl,
+                                   @Value("${tours.recommendation-cache.max-size:500}") int maxSize) {
+        this.entries = new ExpiringBoundedMap<>(ttl, maxSize, true);
+    }
+
+    /**
+     * Place ids chosen earlier for this preference, if the candidates are still the same
+     */
+    public Optional<List<Long>> get(Preference preference, Collection<Place> candidates) {
+        PreferenceKey key = PreferenceKey.of(preference);
+        long fingerprint = fingerprint(candidates);
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (entry.fingerprint() != fingerprint) {
+            if (entries.remove(key, entry)) {
+                invalidations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(entry.placeIds());
+    }
+
+    public void put(Preference preference, Collection<Place> candidates, List<Long> placeIds) {
+        entries.put(PreferenceKey.of(preference), new Entry(fingerprint(candidates), List.copyOf(placeIds)));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), invalidations.get(), entries.expirations(), entries.evictions(),
+                entries.size());
+    }
+
+    /**
+     * Order-independent hash of everything about the candidates that the AI prompt contains
+     */
+    static long fingerprint(Collection<Place> candidates) {
+        List<Place> byId = new ArrayList<>(candidates);
+        byId.sort(Comparator.comparing(Place::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        long hash = 1125899906842597L;
+        for (Place place : byId) {
+            hash = 31 * hash + Objects.hash(place.getId(), place.getName(), place.getPlaceType(),
+                    place.getAverageRating(), place.getUserRatingsTotal(), place.getSentimentTag());
+        }
+        return hash;
+    }
+
+    /**
+     * Cache counters since startup
+     */
+    public record Stats(long hits, long misses, long invalidations, long expirations, long evictions, int size) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private record Entry(long fingerprint, List<Long> placeIds) {
+    }
+}
@@ -0,0 +1,266 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Orders the stops of a tour into a short walking route. Distances are great-circle distances
+ * between the place coordinates. For every stop as the first one, a nearest-neighbour route is
+ * improved with 2-opt (reversing a stretch of the route) and Or-opt (moving one to three
+ * consecutive stops elsewhere) until neither finds a shorter route; the shortest one wins.
+ * The route is open: it ends at the fixed end point if given, otherwise at its last stop.
+ * Stops without coordinates keep their relative order at the end of the route.
+ */
+@Service
+public class TourRouteOptimizer {
+
+    // Ignore improvements below a millimetre, so rounding can't make the search cycle
+    private static final double EPSILON_METERS = 1e-3;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+
+    /**
+     * Optional fixed start or end of a route, such as the tourist's hotel
+     */
+    public record Point(double latitude, double longitude) {
+    }
+
+    /**
+     * Ordered stops and the length of the route in meters, legs to and from fixed points included
+     */
+    public record Route(List<Place> stops, double distanceMeters) {
+    }
+
+    public Route optimize(List<Place> places, Point start, Point end) {
+        // Routes grow best from a fixed point, so a route with only a fixed end is planned backwards
+        boolean backwards = start == null && end != null;
+        if (backwards) {
+            start = end;
+            end = null;
+        }
+
+        List<Place> located = new ArrayList<>(places.size());
+        List<Place> unlocated = new ArrayList<>();
+        for (Place place : places) {
+            (hasCoordinates(place) ? located : unlocated).add(place);
+        }
+
+        int stops = located.size();
+        int size = stops + (start != null ? 1 : 0) + (end != null ? 1 : 0);
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 0; i < stops; i++) {
+            latitudes[i] = located.get(i).getLatitude();
+            longitudes[i] = located.get(i).getLongitude();
+        }
+        int startNode = -1;
+        int endNode = -1;
+        if (start != null) {
+            startNode = stops;
+            latitudes[startNode] = start.latitude();
+            longitudes[startNode] = start.longitude();
+        }
+        if (end != null) {
+            endNode = size - 1;
+            latitudes[endNode] = end.latitude();
+            longitudes[endNode] = end.longitude();
+        }
+
+        double[][] distances = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                distances[i][j] = distances[j][i] =
+                        GeoDistance.haversineMeters(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+            }
+        }
+
+        int[] best = null;
+        double bestLength = Double.POSITIVE_INFINITY;
+        if (stops > 0) {
+            for (int seed = 0; seed < stops; seed++) {
+                int[] path = nearestNeighbour(distances, stops, startNode, seed, endNode);
+                int first = start != null ? 1 : 0;
+                int last = path.length - 1 - (end != null ? 1 : 0);
+                improve(path, distances, first, last);
+                double length = length(path, distances);
+                if (length < bestLength - EPSILON_METERS) {
+                    best = path;
+                    bestLength = length;
+                }
+            }
+        } else {
+            best = start != null && end != null ? new int[]{startNode, endNode} : new int[0];
+            bestLength = length(best, distances);
+        }
+
+        List<Place> ordered = new ArrayList<>(places.size());
+        for (int node : best) {
+            if (node < stops) {
+                ordered.add(located.get(node));
+            }
+        }
+        if (backwards) {
+            Collections.reverse(ordered);
+        }
+        ordered.addAll(unlocated);
+        return new Route(ordered, bestLength);
+    }
+
+    /**
+     * Length in meters of walking the stops in their order, skipping stops without coordinates
+     */
+    public static double pathMeters(List<Place> stops) {
+        double meters = 0;
+        Place previous = null;
+        for (Place place : stops) {
+            if (!hasCoordinates(place)) {
+                continue;
+            }
+            if (previous != null) {
+                meters += GeoDistance.haversineMeters(previous.getLatitude(), previous.getLongitude(),
+                        place.getLatitude(), place.getLongitude());
+            }
+            previous = place;
+        }
+        return meters;
+    }
+
+    // Greedy route over all stops from the first stop, between the start and end nodes if there are any
+    private static int[] nearestNeighbour(double[][] distances, int stops, int startNode, int first, int endNode) {
+        int size = distances.length;
+        int[] path = new int[size];
+        boolean[] visited = new boolean[size];
+        int position = 0;
+        if (startNode >= 0) {
+            path[position++] = startNode;
+        }
+        path[position++] = first;
+        visited[first] = true;
+
+        int current = first;
+        for (int step = 1; step < stops; step++) {
+            int next = -1;
+            for (int candidate = 0; candidate < stops; candidate++) {
+                if (!visited[candidate] && (next < 0 || distances[current][candidate] < distances[current][next])) {
+                    next = candidate;
+                }
+            }
+            path[position++] = next;
+            visited[next] = true;
+            current = next;
+        }
+        if (endNode >= 0) {
+            path[position] = endNode;
+        }
+        return path;
+    }
+
+    // Alternate 2-opt and Or-opt passes over positions first..last until neither improves the route
+    private static void improve(int[] path, double[][] distances, int first, int last) {
+        boolean improved = true;
+        while (improved) {
+            improved = twoOpt(path, distances, first, last);
+            improved |= orOpt(path, distances, first, last);
+        }
+    }
+
+    private static boolean twoOpt(int[] path, double[][] distances, int first, int last) {
+        boolean improved = false;
+        for (int i = first; i < last; i++) {
+            for (int j = i + 1; j <= last; j++) {
+                int before = i > 0 ? path[i - 1] : -1;
+                int after = j < path.length - 1 ? path[j + 1] : -1;
+                double delta = distance(distances, before, path[j]) + distance(distances, path[i], after)
+                        - distance(distances, before, path[i]) - distance(distances, path[j], after);
+                if (delta < -EPSILON_METERS) {
+                    reverse(path, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static boolean orOpt(int[] path, double[][] distances, int first, int last) {
+        boolean improved = false;
+        for (int length = 1; length <= MAX_OR_OPT_SEGMENT; length++) {
+            for (int i = first; i + length - 1 <= last; i++) {
+                int head = path[i];
+                int tail = path[i + length - 1];
+                int before = i > 0 ? path[i - 1] : -1;
+                int after = i + length < path.length ? path[i + length] : -1;
+                double removed = distance(distances, before, head) + distance(distances, tail, after)
+                        - distance(distances, before, after);
+
+                // The route without the segment; it may go back after rest[gap], within first..last
+                int[] rest = new int[path.length - length];
+                System.arraycopy(path, 0, rest, 0, i);
+                System.arraycopy(path, i + length, rest, i, path.length - i - length);
+
+                int bestGap = Integer.MIN_VALUE;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON_METERS;
+                for (int gap = first - 1; gap + length <= last; gap++) {
+                    if (gap == i - 1) {
+                        continue;
+                    }
+                    int left = gap >= 0 ? rest[gap] : -1;
+                    int right = gap + 1 < rest.length ? rest[gap + 1] : -1;
+                    double opened = distance(distances, left, right);
+                    double forward = distance(distances, left, head) + distance(distances, tail, right) - opened - removed;
+                    double backward = distance(distances, left, tail) + distance(distances, head, right) - opened - removed;
+                    if (forward < bestDelta) {
+                        bestDelta = forward;
+                        bestGap = gap;
+                        bestReversed = false;
+                    }
+                    if (backward < bestDelta) {
+                        bestDelta = backward;
+                        bestGap = gap;
+                        bestReversed = true;
+                    }
+                }
+
+                if (bestGap != Integer.MIN_VALUE) {
+                    int[] segment = new int[length];
+                    System.arraycopy(path, i, segment, 0, length);
+                    System.arraycopy(rest, 0, path, 0, bestGap + 1);
+                    for (int k = 0; k < length; k++) {
+                        path[bestGap + 1 + k] = bestReversed ? segment[length - 1 - k] : segment[k];
+                    }
+                    System.arraycopy(rest, bestGap + 1, path, bestGap + 1 + length, rest.length - bestGap - 1);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // An open end of the route (-1) is free to reach
+    private static double distance(double[][] distances, int from, int to) {
+        return from < 0 || to < 0 ? 0 : distances[from][to];
+    }
+
+    private static double length(int[] path, double[][] distances) {
+        double length = 0;
+        for (int i = 1; i < path.length; i++) {
+            length += distances[path[i - 1]][path[i]];
+        }
+        return length;
+    }
+
+    private static void reverse(int[] path, int from, int to) {
+        while (from < to) {
+            int swap = path[from];
+            path[from++] = path[to];
+            path[to--] = swap;
+        }
+    }
+
+    private static boolean hasCoordinates(Place place) {
+        return place.getLatitude() != null && place.getLongitude() != null;
+    }
+}
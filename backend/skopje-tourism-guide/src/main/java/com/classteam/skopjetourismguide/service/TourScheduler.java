@@ -0,0 +1,420 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Times the stops of a tour against their opening hours. Walking the stops of a day in order
+ * from the day's start gives every stop an arrival time; a stop is open when a whole visit fits
+ * into one of its opening periods, waiting at most {@code maxWait} for it to open.
+ * <p>
+ * Days where some stop would be closed are re-sequenced as a small routing problem with time
+ * windows: the better of the current route and a cheapest-insertion route (stops that open
+ * earliest go in first) is improved by relocating single stops. Routes are compared on closed
+ * stops, then the time the day ends, then the distance walked. A stop still closed is then
+ * exchanged with a stop of another day when that leaves fewer stops closed, such as a museum
+ * planned for its closing day. Stops closed after all that may be replaced by the nearest open
+ * alternative of the same category.
+ */
+@Service
+public class TourScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourScheduler.class);
+
+    // Walking routes are longer than the straight line between two places
+    private static final double DETOUR_FACTOR = 1.3;
+    private static final int MAX_REPLACEMENT_CANDIDATES = 10;
+
+    private final double walkingSpeed;
+    private final int maxWaitMinutes;
+    private final LocalTime dayStart;
+    private final ZoneId zone;
+
+    /**
+     * A stop of a timed day; {@code open} is null when the place's opening hours are unknown
+     */
+    public record Visit(Place place, LocalDateTime arrival, LocalDateTime departure, Boolean open) {
+    }
+
+    public TourScheduler(@Value("${tours.schedule.walking-speed-mps:1.2}") double walkingSpeed,
+                         @Value("${tours.schedule.max-wait:PT1H}") Duration maxWait,
+                         @Value("${tours.schedule.day-start:09:00}") LocalTime dayStart,
+                         @Value("${tours.schedule.zone:Europe/Skopje}") ZoneId zone) {
+        this.walkingSpeed = walkingSpeed;
+        this.maxWaitMinutes = (int) maxWait.toMinutes();
+        this.dayStart = dayStart;
+        this.zone = zone;
+    }
+
+    /**
+     * Start of the next tour day in Skopje: today's day start if it is still ahead, otherwise tomorrow's
+     */
+    public LocalDateTime nextDayStart() {
+        LocalDateTime now = LocalDateTime.now(zone);
+        LocalDateTime today = now.toLocalDate().atTime(dayStart);
+        return now.isBefore(today) ? today : today.plusDays(1);
+    }
+
+    /**
+     * Arrival and departure at every stop, walking the stops in order from {@code start}
+     */
+    public List<Visit> simulate(List<Place> stops, LocalDateTime start) {
+        List<Stop> order = new ArrayList<>(stops.size());
+        for (Place place : stops) {
+            order.add(new Stop(place));
+        }
+        List<Visit> visits = new ArrayList<>(stops.size());
+        new Day(start).run(order, visits);
+        return visits;
+    }
+
+    /**
+     * Re-sequence the stops of each day so they are open when the tourist arrives. Day {@code i}
+     * starts at {@code start} plus {@code i} days. With {@code alternatives}, stops that stay
+     * closed are replaced by one of them when that gets the day fewer closed stops; every day
+     * keeps its number of stops.
+     */
+    public List<List<Place>> schedule(List<List<Place>> days, LocalDateTime start, List<Place> alternatives) {
+        Set<Long> used = new HashSet<>();
+        for (List<Place> day : days) {
+            for (Place place : day) {
+                used.add(place.getId());
+            }
+        }
+
+        List<Day> timings = new ArrayList<>(days.size());
+        List<List<Stop>> orders = new ArrayList<>(days.size());
+        int closedBefore = 0;
+        for (int i = 0; i < days.size(); i++) {
+            Day day = new Day(start.plusDays(i));
+            List<Stop> order = new ArrayList<>(days.get(i).size());
+            for (Place place : days.get(i)) {
+                order.add(new Stop(place));
+            }
+            int closed = day.run(order, null).closed();
+            closedBefore += closed;
+            timings.add(day);
+            orders.add(closed > 0 ? day.resequence(order) : order);
+        }
+
+        exchangeBetweenDays(timings, orders);
+
+        List<List<Place>> scheduled = new ArrayList<>(days.size());
+        int closedAfter = 0;
+        for (int i = 0; i < days.size(); i++) {
+            Day day = timings.get(i);
+            List<Stop> order = orders.get(i);
+            if (alternatives != null && day.run(order, null).closed() > 0) {
+                order = day.replaceClosed(order, alternatives, used);
+            }
+            closedAfter += day.run(order, null).closed();
+
+            List<Place> places = new ArrayList<>(order.size());
+            for (Stop stop : order) {
+                places.add(stop.place);
+            }
+            scheduled.add(places);
+        }
+        if (closedBefore > 0) {
+            logger.info("Scheduled {} days from {}: {} stops closed on arrival before, {} after",
+                    days.size(), start, closedBefore, closedAfter);
+        }
+        return scheduled;
+    }
+
+    // Swap a closed stop with a stop of another day while that leaves fewer stops closed in the two days
+    private static void exchangeBetweenDays(List<Day> timings, List<List<Stop>> orders) {
+        boolean improved = true;
+        for (int pass = 0; improved && pass < 5; pass++) {
+            improved = false;
+            for (int i = 0; i < orders.size(); i++) {
+                Day day = timings.get(i);
+                List<Visit> visits = new ArrayList<>();
+                day.run(orders.get(i), visits);
+                for (int k = 0; k < visits.size(); k++) {
+                    if (!Boolean.FALSE.equals(visits.get(k).open())) {
+                        continue;
+                    }
+                    Stop closed = orders.get(i).get(k);
+                    if (exchange(timings, orders, i, closed)) {
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean exchange(List<Day> timings, List<List<Stop>> orders, int i, Stop closed) {
+        Day day = timings.get(i);
+        List<Stop> withoutClosed = new ArrayList<>(orders.get(i));
+        withoutClosed.remove(closed);
+        for (int j = 0; j < orders.size(); j++) {
+            if (j == i) {
+                continue;
+            }
+            Day other = timings.get(j);
+            int closedNow = day.run(orders.get(i), null).closed() + other.run(orders.get(j), null).closed();
+            for (Stop stop : orders.get(j)) {
+                List<Stop> withoutStop = new ArrayList<>(orders.get(j));
+                withoutStop.remove(stop);
+                List<Stop> newDay = day.bestInsertion(withoutClosed, stop);
+                List<Stop> newOther = other.bestInsertion(withoutStop, closed);
+                // Screened on insertion alone; relocating afterwards can only close fewer stops
+                if (day.run(newDay, null).closed() + other.run(newOther, null).closed() < closedNow) {
+                    orders.set(i, day.relocate(newDay));
+                    orders.set(j, other.relocate(newOther));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Typical length of a visit
+    static int visitMinutes(PlaceType placeType) {
+        if (placeType == null) {
+            return 60;
+        }
+        return switch (placeType) {
+            case MUSEUMS, BAR, MALL -> 90;
+            case NATURE -> 120;
+            case RESTAURANT -> 75;
+            case LANDMARKS, CAFE_BAR -> 45;
+            default -> 60;
+        };
+    }
+
+    private static final class Stop {
+        final Place place;
+        final OpeningHours hours;
+        final int visitMinutes;
+        // Latitude in meters and the meters per degree of longitude there, for short walks
+        final double y;
+        final double metersPerDegreeLongitude;
+
+        Stop(Place place) {
+            this.place = place;
+            OpeningHours parsed;
+            try {
+                parsed = OpeningHours.parse(place.getOpeningHours());
+            } catch (IllegalArgumentException e) {
+                parsed = null;
+            }
+            this.hours = parsed;
+            this.visitMinutes = visitMinutes(place.getPlaceType());
+            boolean located = place.getLatitude() != null && place.getLongitude() != null;
+            this.y = located ? place.getLatitude() * GeoDistance.METERS_PER_DEGREE_LATITUDE : Double.NaN;
+            this.metersPerDegreeLongitude = located
+                    ? GeoDistance.METERS_PER_DEGREE_LATITUDE * Math.cos(Math.toRadians(place.getLatitude())) : Double.NaN;
+        }
+
+        boolean hasCoordinates() {
+            return !Double.isNaN(y);
+        }
+
+        // Equirectangular distance; within a fraction of a meter of haversine across a city
+        double metersTo(Stop other) {
+            double dx = (other.place.getLongitude() - place.getLongitude())
+                    * (metersPerDegreeLongitude + other.metersPerDegreeLongitude) / 2;
+            double dy = other.y - y;
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    }
+
+    private record Cost(int closed, int finishMinute, double meters) implements Comparable<Cost> {
+
+        @Override
+        public int compareTo(Cost other) {
+            if (closed != other.closed) {
+                return Integer.compare(closed, other.closed);
+            }
+            if (finishMinute != other.finishMinute) {
+                return Integer.compare(finishMinute, other.finishMinute);
+            }
+            return Double.compare(meters, other.meters);
+        }
+    }
+
+    // One day of the tour, timed in minutes from its start
+    private final class Day {
+        final LocalDateTime start;
+        final int startMinuteOfWeek;
+
+        Day(LocalDateTime start) {
+            this.start = start;
+            this.startMinuteOfWeek = OpeningHours.minuteOfWeek(start.getDayOfWeek(),
+                    start.getHour() * 60 + start.getMinute());
+        }
+
+        // Walk the stops in order, collecting the visits if asked to
+        Cost run(List<Stop> order, List<Visit> visits) {
+            int minute = 0;
+            int closed = 0;
+            double meters = 0;
+            Stop previous = null;
+            for (Stop stop : order) {
+                if (previous != null && previous.hasCoordinates() && stop.hasCoordinates()) {
+                    double distance = previous.metersTo(stop);
+                    meters += distance;
+                    minute += (int) Math.ceil(distance * DETOUR_FACTOR / walkingSpeed / 60);
+                }
+                int arrival = minute;
+                int visitStart = arrival;
+                Boolean open = null;
+                if (stop.hours != null) {
+                    int earliest = stop.hours.earliestStart(startMinuteOfWeek + arrival, stop.visitMinutes);
+                    open = earliest >= 0 && earliest - startMinuteOfWeek - arrival <= maxWaitMinutes;
+                    if (open) {
+                        visitStart = earliest - startMinuteOfWeek;
+                    } else {
+                        closed++;
+                    }
+                }
+                minute = visitStart + stop.visitMinutes;
+                if (visits != null) {
+                    visits.add(new Visit(stop.place, start.plusMinutes(arrival), start.plusMinutes(minute), open));
+                }
+                previous = stop;
+            }
+            return new Cost(closed, minute, meters);
+        }
+
+        List<Stop> resequence(List<Stop> order) {
+            List<Stop> improved = relocate(order);
+            List<Stop> inserted = relocate(insertion(order));
+            return run(inserted, null).compareTo(run(improved, null)) < 0 ? inserted : improved;
+        }
+
+        // Cheapest insertion, stops that can open earliest first
+        List<Stop> insertion(List<Stop> stops) {
+            List<Stop> byOpening = new ArrayList<>(stops);
+            byOpening.sort(Comparator.comparingInt(this::earliestOpening));
+            List<Stop> route = new ArrayList<>(stops.size());
+            for (Stop stop : byOpening) {
+                route = bestInsertion(route, stop);
+            }
+            return route;
+        }
+
+        List<Stop> bestInsertion(List<Stop> route, Stop stop) {
+            List<Stop> best = null;
+            Cost bestCost = null;
+            for (int position = 0; position <= route.size(); position++) {
+                List<Stop> candidate = new ArrayList<>(route);
+                candidate.add(position, stop);
+                Cost cost = run(candidate, null);
+                if (bestCost == null || cost.compareTo(bestCost) < 0) {
+                    best = candidate;
+                    bestCost = cost;
+                }
+            }
+            return best;
+        }
+
+        // Move single stops elsewhere while that improves the day
+        List<Stop> relocate(List<Stop> order) {
+            List<Stop> current = new ArrayList<>(order);
+            Cost currentCost = run(current, null);
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (int from = 0; from < current.size(); from++) {
+                    for (int to = 0; to < current.size(); to++) {
+                        if (to == from) {
+                            continue;
+                        }
+                        List<Stop> candidate = new ArrayList<>(current);
+                        candidate.add(to, candidate.remove(from));
+                        Cost cost = run(candidate, null);
+                        if (cost.compareTo(currentCost) < 0) {
+                            current = candidate;
+                            currentCost = cost;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+            return current;
+        }
+
+        // Swap closed stops for the nearest alternatives of the same category that reduce closed stops
+        List<Stop> replaceClosed(List<Stop> order, List<Place> alternatives, Set<Long> used) {
+            List<Stop> current = order;
+            List<Visit> visits = new ArrayList<>();
+            run(current, visits);
+            for (Visit visit : visits) {
+                if (!Boolean.FALSE.equals(visit.open())) {
+                    continue;
+                }
+                Place closed = visit.place();
+                LocalTourRecommender.Category category = LocalTourRecommender.Category.of(closed.getPlaceType());
+                List<Place> candidates = nearest(closed, alternatives.stream()
+                        .filter(place -> !used.contains(place.getId()))
+                        .filter(place -> LocalTourRecommender.Category.of(place.getPlaceType()) == category)
+                        .toList());
+
+                List<Stop> without = new ArrayList<>(current);
+                without.removeIf(stop -> stop.place == closed);
+                List<Stop> best = null;
+                Cost bestCost = run(current, null);
+                for (Place candidate : candidates) {
+                    List<Stop> replaced = bestInsertion(without, new Stop(candidate));
+                    Cost cost = run(replaced, null);
+                    if (cost.closed() < bestCost.closed() || (best != null && cost.compareTo(bestCost) < 0)) {
+                        best = replaced;
+                        bestCost = cost;
+                    }
+                }
+                if (best != null) {
+                    Place replacement = best.stream().map(stop -> stop.place)
+                            .filter(place -> !used.contains(place.getId())).findFirst().orElseThrow();
+                    logger.debug("Replaced {} (closed on arrival) with {}", closed.getName(), replacement.getName());
+                    used.remove(closed.getId());
+                    used.add(replacement.getId());
+                    current = relocate(best);
+                }
+            }
+            return current;
+        }
+
+        // Minute of the day the stop could first be visited, the end of the week when never
+        int earliestOpening(Stop stop) {
+            if (stop.hours == null) {
+                return 0;
+            }
+            int earliest = stop.hours.earliestStart(startMinuteOfWeek, stop.visitMinutes);
+            return earliest < 0 ? OpeningHours.MINUTES_PER_WEEK : earliest - startMinuteOfWeek;
+        }
+    }
+
+    // The MAX_REPLACEMENT_CANDIDATES places nearest to the place, nearest first
+    private static List<Place> nearest(Place place, List<Place> places) {
+        double[] distances = new double[places.size()];
+        Integer[] indexes = new Integer[places.size()];
+        for (int i = 0; i < places.size(); i++) {
+            distances[i] = distance(place, places.get(i));
+            indexes[i] = i;
+        }
+        Arrays.sort(indexes, Comparator.comparingDouble(i -> distances[i]));
+        List<Place> nearest = new ArrayList<>(MAX_REPLACEMENT_CANDIDATES);
+        for (int i = 0; i < Math.min(MAX_REPLACEMENT_CANDIDATES, indexes.length); i++) {
+            nearest.add(places.get(indexes[i]));
+        }
+        return nearest;
+    }
+
+    private static double distance(Place a, Place b) {
+        if (a.getLatitude() == null || a.getLongitude() == null || b.getLatitude() == null || b.getLongitude() == null) {
+            return Double.MAX_VALUE;
+        }
+        return GeoDistance.haversineMeters(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude());
+    }
+}
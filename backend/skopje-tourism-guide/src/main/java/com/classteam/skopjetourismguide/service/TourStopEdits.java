@@ -0,0 +1,86 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.TourBulkEditDTO;
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.repository.TourStopRepository.Stop;
+
+import java.util.*;
+
+/**
+ * Edits of a tour's stops and the join table rows they change. A stop is the row at one
+ * position of the route, so the fewest rows to write are found position by position: a changed
+ * place at a position both routes have is an update, a position only the old route has is a
+ * delete and one only the new route has is an insert.
+ */
+final class TourStopEdits {
+
+    final List<Stop> updates = new ArrayList<>();
+    final List<Stop> deletes = new ArrayList<>();
+    final List<Stop> inserts = new ArrayList<>();
+
+    /**
+     * The stops after the edit's removals, additions and reordering
+     */
+    static List<Place> apply(List<Place> stops, TourBulkEditDTO.Edit edit, Map<Long, Place> places) {
+        List<Place> edited = new ArrayList<>(stops);
+        edited.removeIf(Objects::isNull);
+        if (edit.getRemovePlaceIds() != null) {
+            Set<Long> removed = new HashSet<>(edit.getRemovePlaceIds());
+            edited.removeIf(place -> removed.contains(place.getId()));
+        }
+        if (edit.getAddPlaceIds() != null) {
+            for (Long placeId : edit.getAddPlaceIds()) {
+                edited.add(places.get(placeId));
+            }
+        }
+        if (edit.getOrder() == null) {
+            return edited;
+        }
+
+        Map<Long, Deque<Place>> byId = new HashMap<>();
+        for (Place place : edited) {
+            byId.computeIfAbsent(place.getId(), id -> new ArrayDeque<>()).add(place);
+        }
+        List<Place> ordered = new ArrayList<>(edited.size());
+        for (Long placeId : edit.getOrder()) {
+            Deque<Place> remaining = byId.get(placeId);
+            if (remaining == null || remaining.isEmpty()) {
+                throw new IllegalArgumentException("Order of tour " + edit.getTourId() + " names a place it does not have: " + placeId);
+            }
+            ordered.add(remaining.poll());
+        }
+        if (ordered.size() != edited.size()) {
+            throw new IllegalArgumentException("Order of tour " + edit.getTourId() + " leaves out some of its places");
+        }
+        return ordered;
+    }
+
+    /**
+     * Record the rows that turn {@code before} into {@code after}; returns whether there are any
+     */
+    boolean diff(long tourId, List<Place> before, List<Place> after) {
+        int changes = updates.size() + deletes.size() + inserts.size();
+        int common = Math.min(before.size(), after.size());
+        for (int i = 0; i < common; i++) {
+            if (!Objects.equals(id(before.get(i)), id(after.get(i)))) {
+                updates.add(new Stop(tourId, i, id(after.get(i))));
+            }
+        }
+        for (int i = common; i < before.size(); i++) {
+            deletes.add(new Stop(tourId, i, null));
+        }
+        for (int i = common; i < after.size(); i++) {
+            inserts.add(new Stop(tourId, i, id(after.get(i))));
+        }
+        return updates.size() + deletes.size() + inserts.size() > changes;
+    }
+
+    boolean isEmpty() {
+        return updates.isEmpty() && deletes.isEmpty() && inserts.isEmpty();
+    }
+
+    // Null for a gap in the stop order of a legacy tour
+    private static Long id(Place place) {
+        return place != null ? place.getId() : null;
+    }
+}
@@ -0,0 +1,172 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.TourTemplate;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.DrinkType;
+import com.classteam.skopjetourismguide.model.enumerations.FoodType;
+import com.classteam.skopjetourismguide.model.enumerations.RecommenderEngine;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import com.classteam.skopjetourismguide.repository.PreferenceRepository;
+import com.classteam.skopjetourismguide.repository.TourTemplateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the precomputed tours of the most requested preference combinations and serves them
+ * from memory. Templates are built by {@link ToursService#rebuildTemplates()}; this service
+ * only counts requests, persists the templates and looks them up.
+ */
+@Service
+public class TourTemplateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourTemplateService.class);
+
+    private final TourTemplateRepository templateRepository;
+    private final PreferenceRepository preferenceRepository;
+    private final PlaceRepository placeRepository;
+    private final PlaceCatalogService placeCatalogService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile Map<PreferenceKey, Template> templates = Map.of();
+
+    /**
+     * A template ready to copy: its places day after day, loaded when the template was stored
+     */
+    public record Template(RecommenderEngine engine, int dayCount, List<Place> places) {
+    }
+
+    /**
+     * A preference combination and the number of tours requested with it
+     */
+    record Combination(PreferenceKey key, long requests) {
+    }
+
+    public TourTemplateService(TourTemplateRepository templateRepository,
+                               PreferenceRepository preferenceRepository,
+                               PlaceRepository placeRepository,
+                               PlaceCatalogService placeCatalogService,
+                               PlatformTransactionManager transactionManager) {
+        this.templateRepository = templateRepository;
+        this.preferenceRepository = preferenceRepository;
+        this.placeRepository = placeRepository;
+        this.placeCatalogService = placeCatalogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            templates = readOnlyTransaction.execute(status -> toTemplates(templateRepository.findAllWithPlaceIds()));
+            logger.info("Loaded {} tour templates", templates.size());
+        } catch (Exception e) {
+            logger.error("Could not load tour templates: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The template for the preference's combination, unless one of its places has been deleted since
+     */
+    public Optional<Template> find(Preference preference) {
+        Template template = templates.get(PreferenceKey.of(preference));
+        if (template == null) {
+            return Optional.empty();
+        }
+        PlaceCatalog catalog = placeCatalogService.current();
+        for (Place place : template.places()) {
+            if (catalog.findById(place.getId()).isEmpty()) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(template);
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * The {@code limit} combinations most tours were requested with, most requested first
+     */
+    List<Combination> mostRequested(int limit) {
+        return readOnlyTransaction.execute(status -> {
+            Map<Long, Preference> preferences = new HashMap<>();
+            Map<Long, Long> requests = new HashMap<>();
+            for (Object[] row : preferenceRepository.countToursByPreference()) {
+                Preference preference = new Preference();
+                preference.setTourLength((TourLength) row[1]);
+                preference.setBudgetLevel((BudgetLevel) row[2]);
+                preference.setIncludeShoppingMalls((Boolean) row[3]);
+                preference.setDescription((String) row[5]);
+                preferences.put((Long) row[0], preference);
+                requests.put((Long) row[0], (Long) row[4]);
+            }
+            for (Object[] row : preferenceRepository.findAttractionTypePairs()) {
+                preferences.get((Long) row[0]).getAttractionTypePreferences().add((AttractionType) row[1]);
+            }
+            for (Object[] row : preferenceRepository.findFoodTypePairs()) {
+                preferences.get((Long) row[0]).getFoodTypePreferences().add((FoodType) row[1]);
+            }
+            for (Object[] row : preferenceRepository.findDrinkTypePairs()) {
+                preferences.get((Long) row[0]).getDrinkTypePreferences().add((DrinkType) row[1]);
+            }
+
+            Map<PreferenceKey, Long> counts = new HashMap<>();
+            preferences.forEach((id, preference) ->
+                    counts.merge(PreferenceKey.of(preference), requests.get(id), Long::sum));
+            return counts.entrySet().stream()
+                    .filter(entry -> entry.getValue() > 0)
+                    .map(entry -> new Combination(entry.getKey(), entry.getValue()))
+                    // Ties by key text, so the same statistics always pick the same combinations
+                    .sorted(Comparator.comparingLong(Combination::requests).reversed()
+                            .thenComparing(combination -> combination.key().text()))
+                    .limit(limit)
+                    .toList();
+        });
+    }
+
+    /**
+     * Replace all stored templates; lookups see the new ones once they are committed
+     */
+    void replaceAll(List<TourTemplate> built) {
+        transactionTemplate.executeWithoutResult(status -> {
+            templateRepository.deleteAll();
+            templateRepository.flush(); // Deletes first, the preference keys are unique
+            Map<PreferenceKey, Template> replaced = toTemplates(templateRepository.saveAll(built));
+            TransactionHooks.afterCommit(() -> templates = replaced);
+        });
+    }
+
+    // Load the places of the templates in one query; templates that lost a place are dropped
+    private Map<PreferenceKey, Template> toTemplates(List<TourTemplate> stored) {
+        Set<Long> placeIds = stored.stream().flatMap(template -> template.getPlaceIds().stream()).collect(Collectors.toSet());
+        Map<Long, Place> places = placeRepository.findAllById(placeIds).stream()
+                .collect(Collectors.toMap(Place::getId, Function.identity()));
+
+        Map<PreferenceKey, Template> loaded = new HashMap<>();
+        for (TourTemplate template : stored) {
+            List<Place> templatePlaces = template.getPlaceIds().stream().map(places::get).toList();
+            if (templatePlaces.contains(null)) {
+                continue;
+            }
+            loaded.put(PreferenceKey.parse(template.getPreferenceKey()),
+                    new Template(template.getEngine(), template.getDayCount(), templatePlaces));
+        }
+        return Map.copyOf(loaded);
+    }
+}
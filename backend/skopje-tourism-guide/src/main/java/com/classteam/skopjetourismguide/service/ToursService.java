@@ -2,8 +2,10 @@ package com.classteam.skopjetourismguide.service;
 
 import com.azure.ai.openai.OpenAIClient;
 import com.azure.ai.openai.models.*;
+import com.classteam.skopjetourismguide.dto.PageResponseDTO;
 import com.classteam.skopjetourismguide.dto.PlaceDTO;
 import com.classteam.skopjetourismguide.dto.PreferenceDTO;
+import com.classteam.skopjetourismguide.dto.TourBulkEditDTO;
 import com.classteam.skopjetourismguide.dto.TourCreateDTO;
 import com.classteam.skopjetourismguide.dto.TourDTO;
 import com.classteam.skopjetourismguide.exception.PlaceNotFoundException;
@@ -13,21 +15,41 @@ import com.classteam.skopjetourismguide.exception.UserNotFoundException;
 import com.classteam.skopjetourismguide.model.Place;
 import com.classteam.skopjetourismguide.model.Preference;
 import com.classteam.skopjetourismguide.model.Tour;
+import com.classteam.skopjetourismguide.model.TourTemplate;
 import com.classteam.skopjetourismguide.model.User;
 import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
 import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.RecommenderEngine;
 import com.classteam.skopjetourismguide.model.enumerations.TourLength;
 import com.classteam.skopjetourismguide.repository.PlaceRepository;
 import com.classteam.skopjetourismguide.repository.PreferenceRepository;
 import com.classteam.skopjetourismguide.repository.TourRepository;
+import com.classteam.skopjetourismguide.repository.TourStopRepository;
 import com.classteam.skopjetourismguide.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,12 +57,34 @@ public class ToursService {
 
     private static final Logger logger = LoggerFactory.getLogger(ToursService.class);
 
+    private static final String SYSTEM_PROMPT = "You are a tour planning assistant for Skopje, North Macedonia.";
+
     private final TourRepository tourRepository;
     private final PlaceRepository placeRepository;
     private final PreferenceRepository preferenceRepository;
     private final UserRepository userRepository;
+    private final TourStopRepository tourStopRepository;
     private final OpenAIClient openAIClient;
+    private final CatalogVersionService catalogVersionService;
+    private final TourRecommendationCache recommendationCache;
+    private final TourGenerationMetrics generationMetrics;
+    private final TourCandidateRanker candidateRanker;
+    private final TourCandidatePool candidatePool;
+    private final LocalTourRecommender localRecommender;
+    private final TourItineraryPlanner itineraryPlanner;
+    private final TourScheduler tourScheduler;
+    private final TourTemplateService tourTemplateService;
+    private final DtoMapper dtoMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
     private final String deploymentName;
+    private final Duration aiDeadline;
+    private final boolean upgradeInBackground;
+    private final ThreadPoolExecutor aiExecutor;
+    private final RecommenderEngine defaultEngine;
+    private final int templateCount;
+    // One rebuild at a time; refreshes arriving during a rebuild queue at most one more
+    private final ThreadPoolExecutor templateExecutor;
 
     // List of place types to exclude from tour recommendations
     private final Set<PlaceType> excludedPlaceTypes = Set.of(
@@ -57,72 +101,368 @@ public class ToursService {
             PlaceRepository placeRepository,
             PreferenceRepository preferenceRepository,
             UserRepository userRepository,
+            TourStopRepository tourStopRepository,
             OpenAIClient openAIClient,
-            @Value("${azure.openai.deployment}") String deploymentName) {
+            CatalogVersionService catalogVersionService,
+            TourRecommendationCache recommendationCache,
+            TourGenerationMetrics generationMetrics,
+            TourCandidateRanker candidateRanker,
+            TourCandidatePool candidatePool,
+            LocalTourRecommender localRecommender,
+            TourItineraryPlanner itineraryPlanner,
+            TourScheduler tourScheduler,
+            TourTemplateService tourTemplateService,
+            DtoMapper dtoMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${azure.openai.deployment}") String deploymentName,
+            @Value("${tours.ai.deadline:PT6S}") Duration aiDeadline,
+            @Value("${tours.ai.upgrade-in-background:true}") boolean upgradeInBackground,
+            @Value("${tours.ai.threads:8}") int aiThreads,
+            @Value("${tours.recommender.engine:AI}") RecommenderEngine defaultEngine,
+            @Value("${tours.templates.count:20}") int templateCount) {
         this.tourRepository = tourRepository;
         this.placeRepository = placeRepository;
         this.preferenceRepository = preferenceRepository;
         this.userRepository = userRepository;
+        this.tourStopRepository = tourStopRepository;
         this.openAIClient = openAIClient;
+        this.catalogVersionService = catalogVersionService;
+        this.recommendationCache = recommendationCache;
+        this.generationMetrics = generationMetrics;
+        this.candidateRanker = candidateRanker;
+        this.candidatePool = candidatePool;
+        this.localRecommender = localRecommender;
+        this.itineraryPlanner = itineraryPlanner;
+        this.tourScheduler = tourScheduler;
+        this.tourTemplateService = tourTemplateService;
+        this.dtoMapper = dtoMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
         this.deploymentName = deploymentName;
+        this.aiDeadline = aiDeadline;
+        this.upgradeInBackground = upgradeInBackground;
+        this.aiExecutor = new ThreadPoolExecutor(aiThreads, aiThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(4 * aiThreads), new CustomizableThreadFactory("tour-ai-"));
+        this.defaultEngine = defaultEngine;
+        this.templateCount = templateCount;
+        this.templateExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new CustomizableThreadFactory("tour-templates-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aiExecutor.shutdownNow();
+        templateExecutor.shutdownNow();
+    }
+
+    /**
+     * Number the places of tours saved before stops were ordered; Hibernate can't load a list
+     * whose order column is null
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillStopOrder() {
+        try {
+            Integer numbered = transactionTemplate.execute(status -> tourStopRepository.numberUnorderedStops());
+            if (numbered != null && numbered > 0) {
+                logger.info("Numbered {} stops of tours saved before stop ordering", numbered);
+            }
+        } catch (Exception e) {
+            logger.error("Could not number the stops of existing tours: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the tour templates in the background once new place data has been committed
+     */
+    @EventListener
+    public void onPlaceDataRefreshed(PlaceDataRefreshedEvent event) {
+        logger.info("{} updated {} places, rebuilding tour templates", event.source(), event.places());
+        requestTemplateRebuild();
+    }
+
+    /**
+     * Queue a template rebuild on the template thread; a request made while one is already
+     * queued is folded into it
+     */
+    public void requestTemplateRebuild() {
+        templateExecutor.execute(() -> {
+            try {
+                rebuildTemplates();
+            } catch (Exception e) {
+                logger.error("Could not rebuild tour templates: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Precompute a tour for each of the most requested preference combinations, the way
+     * createTour would generate it but with the AI engine asked without a deadline. Each
+     * template is split into days and route-ordered; it is timed only when it is copied.
+     * Returns the number of templates stored.
+     */
+    public synchronized int rebuildTemplates() {
+        long start = System.nanoTime();
+        List<TourTemplate> templates = new ArrayList<>();
+        for (TourTemplateService.Combination combination : tourTemplateService.mostRequested(templateCount)) {
+            Preference preference = combination.key().toPreference();
+            if (preference.getTourLength() == null) {
+                continue;
+            }
+            TourCandidates candidates = readOnlyTransaction.execute(status -> loadCandidates(preference));
+            List<Place> eligiblePlaces = getEligiblePlaces(preference, candidates);
+            if (eligiblePlaces.isEmpty()) {
+                continue;
+            }
+
+            List<Place> places = defaultEngine == RecommenderEngine.AI && eligiblePlaces.size() >= 5
+                    ? generateAIRecommendedTour(preference, eligiblePlaces)
+                    : List.of();
+            RecommenderEngine engine = RecommenderEngine.AI;
+            if (places.isEmpty()) {
+                places = localRecommender.recommend(preference, eligiblePlaces,
+                        getMaxPlacesForTourLength(preference.getTourLength()));
+                engine = RecommenderEngine.LOCAL;
+            }
+            int days = TourItineraryPlanner.daysFor(preference.getTourLength());
+
+            TourTemplate template = new TourTemplate();
+            template.setPreferenceKey(combination.key().text());
+            template.setRequestCount(combination.requests());
+            template.setEngine(engine);
+            template.setDayCount(days);
+            template.setPlaceIds(planItinerary(places, days, null, null, new TourCreateDTO()).stream()
+                    .map(Place::getId)
+                    .collect(Collectors.toList()));
+            templates.add(template);
+        }
+        tourTemplateService.replaceAll(templates);
+        logger.info("Built {} tour templates in {} ms", templates.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return templates.size();
     }
 
     /**
      * Get all tours
      */
     public List<TourDTO> getAllTours() {
-        return tourRepository.findAll().stream()
+        return readOnlyTransaction.execute(status -> tourRepository.findAll().stream()
                 .map(this::mapTourToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     /**
      * Get a tour by ID
      */
     public TourDTO getTourById(Long id) {
-        Tour tour = tourRepository.findById(id)
-                .orElseThrow(() -> new TourNotFoundException(id));
-        return mapTourToDTO(tour);
+        return readOnlyTransaction.execute(status -> {
+            Tour tour = tourRepository.findById(id)
+                    .orElseThrow(() -> new TourNotFoundException(id));
+            return mapTourToDTO(tour);
+        });
     }
 
     /**
      * Get tours by user
      */
     public List<TourDTO> getToursByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(userId));
-        return tourRepository.findByUser(user).stream()
-                .map(this::mapTourToDTO)
-                .collect(Collectors.toList());
+        return readOnlyTransaction.execute(status -> {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new UserNotFoundException(userId));
+            return tourRepository.findByUser(user).stream()
+                    .map(this::mapTourToDTO)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
      * Get tours by preference
      */
     public List<TourDTO> getToursByPreference(Long preferenceId) {
-        Preference preference = preferenceRepository.findById(preferenceId)
-                .orElseThrow(() -> new PreferenceNotFoundException(preferenceId));
-        return tourRepository.findByPreference(preference).stream()
-                .map(this::mapTourToDTO)
-                .collect(Collectors.toList());
+        return readOnlyTransaction.execute(status -> {
+            Preference preference = preferenceRepository.findById(preferenceId)
+                    .orElseThrow(() -> new PreferenceNotFoundException(preferenceId));
+            return tourRepository.findByPreference(preference).stream()
+                    .map(this::mapTourToDTO)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
      * Search tours by title
      */
     public List<TourDTO> searchToursByTitle(String title) {
-        return tourRepository.findByTitleContainingIgnoreCase(title).stream()
+        return readOnlyTransaction.execute(status -> tourRepository.findByTitleContainingIgnoreCase(title).stream()
                 .map(this::mapTourToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     /**
-     * Create a new tour
+     * Keyset-paginated tours, newest first; the cursor is the id of the last tour shown.
+     * Every page takes the same queries whatever its size: the tours with their user and
+     * preference, the places of the whole page, and a count, in one read-only transaction.
+     */
+    public PageResponseDTO<TourDTO> getAllToursByCursor(String cursor, int size) {
+        return toursPage(cursor, size, tourRepository::findPageBefore, tourRepository::count);
+    }
+
+    public PageResponseDTO<TourDTO> getToursByUserByCursor(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        return toursPage(cursor, size,
+                (beforeId, limit) -> tourRepository.findPageByUserIdBefore(userId, beforeId, limit),
+                () -> tourRepository.countByUserId(userId));
+    }
+
+    public PageResponseDTO<TourDTO> getToursByPreferenceByCursor(Long preferenceId, String cursor, int size) {
+        if (!preferenceRepository.existsById(preferenceId)) {
+            throw new PreferenceNotFoundException(preferenceId);
+        }
+        return toursPage(cursor, size,
+                (beforeId, limit) -> tourRepository.findPageByPreferenceIdBefore(preferenceId, beforeId, limit),
+                () -> tourRepository.countByPreferenceId(preferenceId));
+    }
+
+    public PageResponseDTO<TourDTO> searchToursByTitleByCursor(String title, String cursor, int size) {
+        return toursPage(cursor, size,
+                (beforeId, limit) -> tourRepository.findPageByTitleBefore(title, beforeId, limit),
+                () -> tourRepository.countByTitleContainingIgnoreCase(title));
+    }
+
+    private PageResponseDTO<TourDTO> toursPage(String cursor, int size, BiFunction<Long, Pageable, List<Tour>> query,
+                                               LongSupplier total) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] key = PageCursor.decode(cursor, 1);
+            try {
+                beforeId = Long.parseLong(key[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+        }
+
+        long before = beforeId;
+        return readOnlyTransaction.execute(status -> {
+            // Fetch one extra row to know whether there is a next page
+            List<Tour> tours = query.apply(before, PageRequest.of(0, size + 1));
+            String nextCursor = null;
+            if (tours.size() > size) {
+                tours = tours.subList(0, size);
+                nextCursor = PageCursor.encode(tours.get(size - 1).getId());
+            }
+            if (!tours.isEmpty()) {
+                tourRepository.fetchPlaces(tours);
+            }
+
+            List<TourDTO> tourDTOs = tours.stream()
+                    .map(this::mapTourToDTO)
+                    .collect(Collectors.toList());
+            return dtoMapper.toCursorPageResponse(tourDTOs, size, nextCursor, total.getAsLong());
+        });
+    }
+
+    /**
+     * Create a new tour.
+     * Runs in three phases so that no database connection is held while the AI ranks places:
+     * a short read transaction loads the user, preference and candidate places, the places are
+     * then selected without touching the database, and a short write transaction saves the tour.
+     * Selection waits for the AI only up to the deadline; a late AI answer may replace the
+     * fallback places of the saved tour afterwards. Generated places are split into days for
+     * multi-day tours, saved in walking-route order and timed against their opening hours;
+     * generated places closed on arrival are replaced by open candidates where possible.
+     * Preference combinations with a tour template skip loading candidates and generation:
+     * the template's places are re-timed for the start time and saved.
      */
-    @Transactional
     public TourDTO createTour(TourCreateDTO tourCreateDTO) {
+        return createTour(tourCreateDTO, tour -> {
+        });
+    }
+
+    /**
+     * {@link #createTour(TourCreateDTO)}, running {@code onSaved} in the transaction that saves
+     * the tour, so whatever it records commits or rolls back together with the tour
+     */
+    public TourDTO createTour(TourCreateDTO tourCreateDTO, Consumer<Tour> onSaved) {
         logger.info("Creating tour with title: {}", tourCreateDTO.getTitle());
+        long start = System.nanoTime();
+
+        // Phase 1: read everything generation needs
+        TourDraft draft = readOnlyTransaction.execute(status -> loadTourDraft(tourCreateDTO));
+
+        // Phase 2: select and order places, no connection held
+        int days = TourItineraryPlanner.daysFor(draft.preference().getTourLength());
+        LocalDateTime startTime = tourCreateDTO.getStartTime() != null
+                ? tourCreateDTO.getStartTime()
+                : tourScheduler.nextDayStart();
+        List<Place> alternatives = draft.candidates() != null
+                ? getEligiblePlaces(draft.preference(), draft.candidates())
+                : null;
+        List<Place> selectedPlaces;
+        CompletableFuture<List<Place>> lateAiPlaces = null;
+        if (draft.template() != null) {
+            selectedPlaces = copyTemplate(draft.preference(), draft.template(), startTime);
+            logger.info("Copied the tour template of this preference combination. Count: {}", selectedPlaces.size());
+        } else if (draft.selectedPlaces() != null) {
+            selectedPlaces = draft.selectedPlaces();
+            generationMetrics.record(TourGenerationMetrics.Source.USER_SELECTED, start,
+                    LocalTourRecommender.evaluate(draft.preference(), selectedPlaces));
+            logger.info("Using user-selected places for tour. Count: {}", selectedPlaces.size());
+        } else {
+            RecommenderEngine engine = tourCreateDTO.getEngine() != null ? tourCreateDTO.getEngine() : defaultEngine;
+            PlaceSelection selection = generateRecommendedPlaces(draft.preference(), draft.candidates(), engine);
+            selectedPlaces = selection.places();
+            lateAiPlaces = selection.lateAiPlaces();
+            logger.info("Generated AI-recommended places for tour. Count: {}", selectedPlaces.size());
+        }
+        boolean optimizeRoute = draft.template() == null
+                && (draft.selectedPlaces() == null || Boolean.TRUE.equals(tourCreateDTO.getOptimizeRoute()));
+        List<Place> places = optimizeRoute
+                ? planItinerary(selectedPlaces, days, startTime, alternatives, tourCreateDTO)
+                : selectedPlaces;
+
+        // Phase 3: persist
+        Tour tour = transactionTemplate.execute(status -> {
+            Preference preference = draft.preference();
+            if (preference.getId() == null) {
+                preference = preferenceRepository.save(preference);
+            }
+
+            Tour newTour = new Tour();
+            newTour.setTitle(tourCreateDTO.getTitle());
+            newTour.setUser(draft.user());
+            newTour.setPreference(preference);
+            newTour.setPlaces(places);
+            newTour.setDayCount(days);
+            newTour.setStartTime(startTime);
+            newTour = tourRepository.save(newTour);
+            catalogVersionService.bump();
+            onSaved.accept(newTour);
+            return newTour;
+        });
+
+        if (lateAiPlaces != null) {
+            Long tourId = tour.getId();
+            List<Long> fallbackPlaceIds = places.stream().map(Place::getId).toList();
+            lateAiPlaces.thenAccept(aiPlaces ->
+                    upgradeTour(tourId, fallbackPlaceIds,
+                            planItinerary(aiPlaces, days, startTime, alternatives, tourCreateDTO)));
+        }
+
+        generationMetrics.recordTourCreated(start);
+        logger.info("Tour created successfully with ID: {} in {} ms", tour.getId(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        return mapTourToDTO(tour);
+    }
 
+    // Phase 1 of createTour; leaves everything phase 2 touches initialized
+    private TourDraft loadTourDraft(TourCreateDTO tourCreateDTO) {
         User user = userRepository.findById(tourCreateDTO.getUserId())
                 .orElseThrow(() -> new UserNotFoundException(tourCreateDTO.getUserId()));
 
@@ -130,38 +470,50 @@ public class ToursService {
         if (tourCreateDTO.getPreferenceId() != null) {
             preference = preferenceRepository.findById(tourCreateDTO.getPreferenceId())
                     .orElseThrow(() -> new PreferenceNotFoundException(tourCreateDTO.getPreferenceId()));
+            Hibernate.initialize(preference.getAttractionTypePreferences());
+            Hibernate.initialize(preference.getFoodTypePreferences());
+            Hibernate.initialize(preference.getDrinkTypePreferences());
         } else {
-            // Create a new preference if one wasn't specified
+            // Create a new preference if one wasn't specified; it is saved together with the tour
             preference = createNewPreference(tourCreateDTO.getPreferenceDTO(), user);
         }
 
-        Tour tour = new Tour();
-        tour.setTitle(tourCreateDTO.getTitle());
-        tour.setUser(user);
-        tour.setPreference(preference);
-
-        List<Place> places;
         if (tourCreateDTO.getPlaceIds() != null && !tourCreateDTO.getPlaceIds().isEmpty()) {
-            // Use user-selected places
-            places = new ArrayList<>();
+            List<Place> places = new ArrayList<>();
             for (Long placeId : tourCreateDTO.getPlaceIds()) {
                 Place place = placeRepository.findById(placeId)
                         .orElseThrow(() -> new PlaceNotFoundException(placeId));
                 places.add(place);
             }
-            logger.info("Using user-selected places for tour. Count: {}", places.size());
-        } else {
-            // Auto-generate tour places based on preferences
-            places = generateRecommendedPlaces(preference);
-            logger.info("Generated AI-recommended places for tour. Count: {}", places.size());
+            return new TourDraft(user, preference, places, null, null);
         }
 
-        tour.setPlaces(places);
-        tour = tourRepository.save(tour);
+        Optional<TourTemplateService.Template> template = findTemplate(preference, tourCreateDTO);
+        if (template.isPresent()) {
+            return new TourDraft(user, preference, null, null, template.get());
+        }
+        return new TourDraft(user, preference, null, loadCandidates(preference), null);
+    }
 
-        logger.info("Tour created successfully with ID: {}", tour.getId());
+    // A template fits when it was made by the requested engine and the request sets no route end points
+    private Optional<TourTemplateService.Template> findTemplate(Preference preference, TourCreateDTO tourCreateDTO) {
+        if (tourCreateDTO.getStartLatitude() != null || tourCreateDTO.getEndLatitude() != null) {
+            return Optional.empty();
+        }
+        RecommenderEngine engine = tourCreateDTO.getEngine() != null ? tourCreateDTO.getEngine() : defaultEngine;
+        return tourTemplateService.find(preference).filter(template -> template.engine() == engine);
+    }
 
-        return mapTourToDTO(tour);
+    // The template's days, re-sequenced for the start time; closed stops stay, no alternatives are loaded
+    private List<Place> copyTemplate(Preference preference, TourTemplateService.Template template,
+                                     LocalDateTime startTime) {
+        long start = System.nanoTime();
+        List<List<Place>> days = tourScheduler.schedule(
+                TourItineraryPlanner.split(template.places(), template.dayCount()), startTime, null);
+        List<Place> places = days.stream().flatMap(List::stream).collect(Collectors.toList());
+        generationMetrics.record(TourGenerationMetrics.Source.TEMPLATE, start,
+                LocalTourRecommender.evaluate(preference, places));
+        return places;
     }
 
     /**
@@ -182,22 +534,101 @@ public class ToursService {
             Preference preference = preferenceRepository.findById(tourUpdateDTO.getPreferenceId())
                     .orElseThrow(() -> new PreferenceNotFoundException(tourUpdateDTO.getPreferenceId()));
             tour.setPreference(preference);
+            tour.setDayCount(TourItineraryPlanner.daysFor(preference.getTourLength()));
         }
 
+        List<Place> stops = tour.getPlaces();
         if (tourUpdateDTO.getPlaceIds() != null) {
+            Map<Long, Place> placesById = findPlaces(tourUpdateDTO.getPlaceIds());
             List<Place> places = new ArrayList<>();
             for (Long placeId : tourUpdateDTO.getPlaceIds()) {
-                Place place = placeRepository.findById(placeId)
-                        .orElseThrow(() -> new PlaceNotFoundException(placeId));
-                places.add(place);
+                places.add(placesById.get(placeId));
             }
-            tour.setPlaces(places);
+            places = Boolean.TRUE.equals(tourUpdateDTO.getOptimizeRoute())
+                    ? planItinerary(places, dayCount(tour), tour.getStartTime(), null, tourUpdateDTO)
+                    : places;
+
+            // Only the stops that change are written, instead of every row of the join table
+            TourStopEdits edits = new TourStopEdits();
+            edits.diff(tour.getId(), tour.getPlaces(), places);
+            tourStopRepository.apply(edits.updates, edits.deletes, edits.inserts);
+            stops = places;
         }
 
         tour = tourRepository.save(tour);
+        catalogVersionService.bump();
         logger.info("Tour updated successfully");
 
-        return mapTourToDTO(tour);
+        return mapTourToDTO(tour, stops);
+    }
+
+    /**
+     * Add, remove and reorder the stops of many tours at once. The tours, and the places the
+     * edits add, are loaded in one query each; then only the join table rows whose place
+     * changes are written, in at most three batches for all the tours together.
+     */
+    @Transactional
+    public List<TourDTO> editTours(TourBulkEditDTO bulkEdit) {
+        List<TourBulkEditDTO.Edit> edits = bulkEdit.getEdits() != null ? bulkEdit.getEdits() : List.of();
+        Set<Long> tourIds = new LinkedHashSet<>();
+        Set<Long> addedPlaceIds = new HashSet<>();
+        for (TourBulkEditDTO.Edit edit : edits) {
+            if (edit.getTourId() == null) {
+                throw new IllegalArgumentException("Every edit needs a tourId");
+            }
+            if (!tourIds.add(edit.getTourId())) {
+                throw new IllegalArgumentException("Tour " + edit.getTourId() + " is edited more than once");
+            }
+            if (edit.getAddPlaceIds() != null) {
+                addedPlaceIds.addAll(edit.getAddPlaceIds());
+            }
+        }
+        if (edits.isEmpty()) {
+            return List.of();
+        }
+        logger.info("Editing the stops of {} tours", edits.size());
+
+        Map<Long, Tour> tours = new HashMap<>();
+        for (Tour tour : tourRepository.findAllWithPlacesById(tourIds)) {
+            tours.put(tour.getId(), tour);
+        }
+        Map<Long, Place> addedPlaces = findPlaces(addedPlaceIds);
+
+        TourStopEdits stopEdits = new TourStopEdits();
+        List<TourDTO> edited = new ArrayList<>(edits.size());
+        for (TourBulkEditDTO.Edit edit : edits) {
+            Tour tour = tours.get(edit.getTourId());
+            if (tour == null) {
+                throw new TourNotFoundException(edit.getTourId());
+            }
+            List<Place> stops = TourStopEdits.apply(tour.getPlaces(), edit, addedPlaces);
+            stopEdits.diff(tour.getId(), tour.getPlaces(), stops);
+            edited.add(mapTourToDTO(tour, stops));
+        }
+
+        if (!stopEdits.isEmpty()) {
+            int rows = tourStopRepository.apply(stopEdits.updates, stopEdits.deletes, stopEdits.inserts);
+            catalogVersionService.bump();
+            logger.info("Wrote {} stop rows for {} tours", rows, edits.size());
+        }
+        return edited;
+    }
+
+    // The places with these ids in one query, all of them or PlaceNotFoundException
+    private Map<Long, Place> findPlaces(Collection<Long> placeIds) {
+        Map<Long, Place> places = new HashMap<>();
+        if (placeIds.isEmpty()) {
+            return places;
+        }
+        for (Place place : placeRepository.findAllById(new HashSet<>(placeIds))) {
+            places.put(place.getId(), place);
+        }
+        for (Long placeId : placeIds) {
+            if (!places.containsKey(placeId)) {
+                throw new PlaceNotFoundException(placeId);
+            }
+        }
+        return places;
     }
 
     /**
@@ -211,6 +642,7 @@ public class ToursService {
             throw new TourNotFoundException(id);
         }
         tourRepository.deleteById(id);
+        catalogVersionService.bump();
 
         logger.info("Tour deleted successfully");
     }
@@ -222,18 +654,10 @@ public class ToursService {
     public TourDTO addPlaceToTour(Long tourId, Long placeId) {
         logger.info("Adding place ID: {} to tour ID: {}", placeId, tourId);
 
-        Tour tour = tourRepository.findById(tourId)
-                .orElseThrow(() -> new TourNotFoundException(tourId));
-
-        Place place = placeRepository.findById(placeId)
-                .orElseThrow(() -> new PlaceNotFoundException(placeId));
-
-        tour.getPlaces().add(place);
-        tour = tourRepository.save(tour);
-
-        logger.info("Place added to tour successfully");
-
-        return mapTourToDTO(tour);
+        TourBulkEditDTO.Edit edit = new TourBulkEditDTO.Edit();
+        edit.setTourId(tourId);
+        edit.setAddPlaceIds(List.of(placeId));
+        return editTour(edit);
     }
 
     /**
@@ -243,19 +667,52 @@ public class ToursService {
     public TourDTO removePlaceFromTour(Long tourId, Long placeId) {
         logger.info("Removing place ID: {} from tour ID: {}", placeId, tourId);
 
-        Tour tour = tourRepository.findById(tourId)
-                .orElseThrow(() -> new TourNotFoundException(tourId));
+        TourBulkEditDTO.Edit edit = new TourBulkEditDTO.Edit();
+        edit.setTourId(tourId);
+        edit.setRemovePlaceIds(List.of(placeId));
+        return editTour(edit);
+    }
 
-        tour.getPlaces().removeIf(place -> place.getId().equals(placeId));
-        tour = tourRepository.save(tour);
+    // One edit, through the same diff as bulk edits: adding a stop inserts one row
+    private TourDTO editTour(TourBulkEditDTO.Edit edit) {
+        TourBulkEditDTO bulkEdit = new TourBulkEditDTO();
+        bulkEdit.getEdits().add(edit);
+        return editTours(bulkEdit).get(0);
+    }
+
+    /**
+     * Split places into days and order each day into a short walking route, between the request's
+     * start and end points if given. With a start time, days are then re-sequenced so their stops
+     * are open on arrival, replacing closed stops by {@code alternatives} if given.
+     * Returns the places day after day.
+     */
+    private List<Place> planItinerary(List<Place> places, int days, LocalDateTime startTime,
+                                      List<Place> alternatives, TourCreateDTO tourCreateDTO) {
+        if (places.size() < 2) {
+            return places;
+        }
+        long start = System.nanoTime();
+        List<List<Place>> itinerary = itineraryPlanner.plan(places, days,
+                routePoint(tourCreateDTO.getStartLatitude(), tourCreateDTO.getStartLongitude()),
+                routePoint(tourCreateDTO.getEndLatitude(), tourCreateDTO.getEndLongitude()));
+        if (startTime != null) {
+            itinerary = tourScheduler.schedule(itinerary, startTime, alternatives);
+        }
+        logger.debug("Planned {} places over {} days in {} us", places.size(), itinerary.size(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        return itinerary.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
 
-        logger.info("Place removed from tour successfully");
+    private static int dayCount(Tour tour) {
+        return tour.getDayCount() != null ? tour.getDayCount() : 1;
+    }
 
-        return mapTourToDTO(tour);
+    private static TourRouteOptimizer.Point routePoint(Double latitude, Double longitude) {
+        return latitude != null && longitude != null ? new TourRouteOptimizer.Point(latitude, longitude) : null;
     }
 
     /**
-     * Create a new preference from DTO
+     * Build a new, not yet saved preference from DTO
      */
     private Preference createNewPreference(PreferenceDTO preferenceDTO, User user) {
         logger.info("Creating new preference for user ID: {}", user.getId());
@@ -270,46 +727,195 @@ public class ToursService {
         preference.setAttractionTypePreferences(preferenceDTO.getAttractionTypePreferences());
         preference.setUser(user);
 
-        return preferenceRepository.save(preference);
+        return preference;
     }
 
     /**
-     * Generate recommended places for a tour
+     * The candidate places of every type the preference draws from, from the candidate pool;
+     * at most one query, none when the pool holds all the types
      */
-    private List<Place> generateRecommendedPlaces(Preference preference) {
+    private TourCandidates loadCandidates(Preference preference) {
+        Set<PlaceType> placeTypes = EnumSet.noneOf(PlaceType.class);
+        if (preference.getAttractionTypePreferences() != null) {
+            for (AttractionType attractionType : preference.getAttractionTypePreferences()) {
+                PlaceType placeType = mapAttractionTypeToPlaceType(attractionType);
+                if (placeType != null) {
+                    placeTypes.add(placeType);
+                }
+            }
+        }
+        if (preference.getFoodTypePreferences() != null && !preference.getFoodTypePreferences().isEmpty()) {
+            placeTypes.add(PlaceType.RESTAURANT);
+        }
+        if (preference.getDrinkTypePreferences() != null && !preference.getDrinkTypePreferences().isEmpty()) {
+            placeTypes.add(PlaceType.CAFE_BAR);
+            placeTypes.add(PlaceType.BAR);
+        }
+        if (Boolean.TRUE.equals(preference.getIncludeShoppingMalls())) {
+            placeTypes.add(PlaceType.MALL);
+        }
+        placeTypes.removeAll(excludedPlaceTypes);
+
+        return new TourCandidates(candidatePool.candidates(placeTypes));
+    }
+
+    /**
+     * Generate recommended places for a tour.
+     * The local engine's tour is computed up front; with the LOCAL engine it is the result. With
+     * the AI engine it is the fallback that the AI call races: when the AI has not answered within
+     * the deadline the local places are used, and the still running AI call is handed back so that
+     * its answer can upgrade the saved tour.
+     */
+    private PlaceSelection generateRecommendedPlaces(Preference preference, TourCandidates candidates,
+                                                     RecommenderEngine engine) {
         logger.info("Generating AI-recommended places for preference: {}", preference.getDescription());
+        long start = System.nanoTime();
 
         // Step 1: Get eligible places based on preferences
-        List<Place> eligiblePlaces = getEligiblePlaces(preference);
+        List<Place> eligiblePlaces = getEligiblePlaces(preference, candidates);
 
         if (eligiblePlaces.isEmpty()) {
             logger.warn("No eligible places found for preference: {}", preference.getDescription());
-            return new ArrayList<>();
+            generationMetrics.record(TourGenerationMetrics.Source.FALLBACK, start, null);
+            return new PlaceSelection(new ArrayList<>(), null);
+        }
+
+        // Step 2: The local engine's tour, works on the loaded candidates only
+        int maxPlaces = getMaxPlacesForTourLength(preference.getTourLength());
+        List<Place> algorithmicPlaces = localRecommender.recommend(preference, eligiblePlaces, maxPlaces);
+
+        if (engine == RecommenderEngine.LOCAL) {
+            logger.info("Generated {} places using the local recommender", algorithmicPlaces.size());
+            generationMetrics.record(TourGenerationMetrics.Source.LOCAL, start,
+                    LocalTourRecommender.evaluate(preference, algorithmicPlaces));
+            return new PlaceSelection(algorithmicPlaces, null);
+        }
+
+        if (eligiblePlaces.size() < 5) {
+            logger.info("Not enough eligible places for AI recommendation, using algorithm");
+            return fallbackSelection(preference, algorithmicPlaces, start, null);
         }
 
-        // Step 2: Use AI to create an optimized tour if we have enough eligible places
-        if (eligiblePlaces.size() >= 5) {
-            List<Place> aiRecommendedPlaces = generateAIRecommendedTour(preference, eligiblePlaces);
+        List<Place> cachedPlaces = getCachedRecommendation(preference, eligiblePlaces);
+        if (!cachedPlaces.isEmpty()) {
+            logger.info("Reusing cached AI recommendation with {} places", cachedPlaces.size());
+            generationMetrics.record(TourGenerationMetrics.Source.CACHE, start,
+                    LocalTourRecommender.evaluate(preference, cachedPlaces));
+            return new PlaceSelection(cachedPlaces, null);
+        }
+
+        // Step 3: Ask the AI, but only wait until the deadline
+        CompletableFuture<List<Place>> aiPlaces;
+        try {
+            aiPlaces = CompletableFuture.supplyAsync(() -> {
+                List<Place> recommended = generateAIRecommendedTour(preference, eligiblePlaces);
+                if (!recommended.isEmpty()) {
+                    recommendationCache.put(preference, eligiblePlaces, recommended.stream().map(Place::getId).toList());
+                }
+                return recommended;
+            }, aiExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Too many AI tour generations in flight, using algorithm");
+            return fallbackSelection(preference, algorithmicPlaces, start, null);
+        }
+
+        try {
+            List<Place> aiRecommendedPlaces = aiPlaces.get(aiDeadline.toMillis(), TimeUnit.MILLISECONDS);
             if (!aiRecommendedPlaces.isEmpty()) {
                 logger.info("Successfully generated AI-recommended tour with {} places", aiRecommendedPlaces.size());
-                return aiRecommendedPlaces;
+                generationMetrics.record(TourGenerationMetrics.Source.AI, start,
+                        LocalTourRecommender.evaluate(preference, aiRecommendedPlaces));
+                return new PlaceSelection(aiRecommendedPlaces, null);
             }
-            // If AI recommendation fails, fall back to algorithm
             logger.warn("AI tour generation failed, falling back to algorithm");
-        } else {
-            logger.info("Not enough eligible places for AI recommendation, using algorithm");
+            return fallbackSelection(preference, algorithmicPlaces, start, null);
+        } catch (TimeoutException e) {
+            logger.warn("AI did not answer within {} ms, falling back to algorithm", aiDeadline.toMillis());
+            generationMetrics.recordAiDeadlineMiss();
+            if (!upgradeInBackground) {
+                aiPlaces.cancel(true);
+                return fallbackSelection(preference, algorithmicPlaces, start, null);
+            }
+            return fallbackSelection(preference, algorithmicPlaces, start, aiPlaces);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aiPlaces.cancel(true);
+            return fallbackSelection(preference, algorithmicPlaces, start, null);
+        } catch (ExecutionException e) {
+            logger.error("AI tour generation failed: {}", e.getMessage());
+            return fallbackSelection(preference, algorithmicPlaces, start, null);
+        }
+    }
+
+    private PlaceSelection fallbackSelection(Preference preference, List<Place> algorithmicPlaces, long start,
+                                             CompletableFuture<List<Place>> lateAiPlaces) {
+        logger.info("Generated {} places using the local recommender as fallback", algorithmicPlaces.size());
+        generationMetrics.record(TourGenerationMetrics.Source.FALLBACK, start,
+                LocalTourRecommender.evaluate(preference, algorithmicPlaces));
+        return new PlaceSelection(algorithmicPlaces, lateAiPlaces);
+    }
+
+    /**
+     * Replace the fallback places of a tour with a late AI answer, unless the tour was edited meanwhile
+     */
+    private void upgradeTour(Long tourId, List<Long> fallbackPlaceIds, List<Place> aiPlaces) {
+        if (aiPlaces.isEmpty()) {
+            return;
         }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Tour tour = tourRepository.findById(tourId).orElse(null);
+                if (tour == null) {
+                    return;
+                }
+                List<Long> currentPlaceIds = tour.getPlaces().stream().map(Place::getId).toList();
+                if (!currentPlaceIds.equals(fallbackPlaceIds)) {
+                    logger.info("Tour ID: {} was edited since it was created, keeping its places", tourId);
+                    return;
+                }
 
-        // Step 3: Fallback to algorithmic generation if AI fails or not enough places
-        List<Place> algorithmicPlaces = fallbackTourGeneration(preference);
-        logger.info("Generated {} places using fallback algorithm", algorithmicPlaces.size());
-        return algorithmicPlaces;
+                // Only the stops that change are written, instead of every row of the join table
+                TourStopEdits edits = new TourStopEdits();
+                edits.diff(tourId, tour.getPlaces(), aiPlaces);
+                tourStopRepository.apply(edits.updates, edits.deletes, edits.inserts);
+                catalogVersionService.bump();
+                generationMetrics.recordBackgroundUpgrade();
+                logger.info("Upgraded tour ID: {} with {} AI-recommended places", tourId, aiPlaces.size());
+            });
+        } catch (Exception e) {
+            logger.error("Could not upgrade tour ID: {} with the AI recommendation: {}", tourId, e.getMessage());
+        }
     }
 
     /**
-     * Get eligible places based on user preferences
+     * Places the AI picked earlier for the same preference and candidates, or an empty list
      */
-    private List<Place> getEligiblePlaces(Preference preference) {
+    private List<Place> getCachedRecommendation(Preference preference, List<Place> eligiblePlaces) {
+        Optional<List<Long>> placeIds = recommendationCache.get(preference, eligiblePlaces);
+        if (placeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Place> eligibleById = new HashMap<>();
+        for (Place place : eligiblePlaces) {
+            eligibleById.putIfAbsent(place.getId(), place);
+        }
+        List<Place> places = new ArrayList<>(placeIds.get().size());
+        for (Long placeId : placeIds.get()) {
+            Place place = eligibleById.get(placeId);
+            if (place == null) {
+                return Collections.emptyList();
+            }
+            places.add(place);
+        }
+        return places;
+    }
+
+    /**
+     * Get eligible places based on user preferences, in preference order: attractions, food,
+     * drinks, malls. The candidates are already filtered on rating and reviews.
+     */
+    private List<Place> getEligiblePlaces(Preference preference, TourCandidates candidates) {
         List<Place> eligiblePlaces = new ArrayList<>();
 
         // Add places based on attraction preferences
@@ -317,7 +923,7 @@ public class ToursService {
             for (AttractionType attractionType : preference.getAttractionTypePreferences()) {
                 PlaceType placeType = mapAttractionTypeToPlaceType(attractionType);
                 if (placeType != null) {
-                    List<Place> placesOfType = placeRepository.findByPlaceTypeOrderByAverageRatingDesc(placeType);
+                    List<Place> placesOfType = candidates.ofType(placeType);
                     eligiblePlaces.addAll(placesOfType);
                 }
             }
@@ -325,34 +931,26 @@ public class ToursService {
 
         // Add food places if preferences exist
         if (preference.getFoodTypePreferences() != null && !preference.getFoodTypePreferences().isEmpty()) {
-            List<Place> restaurants = placeRepository.findByPlaceType(PlaceType.RESTAURANT);
+            List<Place> restaurants = candidates.ofType(PlaceType.RESTAURANT);
             eligiblePlaces.addAll(restaurants);
         }
 
         // Add drink places if preferences exist
         if (preference.getDrinkTypePreferences() != null && !preference.getDrinkTypePreferences().isEmpty()) {
-            List<Place> cafeBars = placeRepository.findByPlaceType(PlaceType.CAFE_BAR);
+            List<Place> cafeBars = candidates.ofType(PlaceType.CAFE_BAR);
             eligiblePlaces.addAll(cafeBars);
 
-            List<Place> bars = placeRepository.findByPlaceType(PlaceType.BAR);
+            List<Place> bars = candidates.ofType(PlaceType.BAR);
             eligiblePlaces.addAll(bars);
         }
 
         // Add shopping malls if preference set
         if (Boolean.TRUE.equals(preference.getIncludeShoppingMalls())) {
-            List<Place> malls = placeRepository.findByPlaceType(PlaceType.MALL);
+            List<Place> malls = candidates.ofType(PlaceType.MALL);
             eligiblePlaces.addAll(malls);
         }
 
-        // Filter places
-        return eligiblePlaces.stream()
-                // Exclude certain place types
-                .filter(place -> !excludedPlaceTypes.contains(place.getPlaceType()))
-                // Only include places with ratings above 3.0
-                .filter(place -> place.getAverageRating() == null || place.getAverageRating() >= 3.0f)
-                // Only include places with at least one review
-                .filter(place -> place.getUserRatingsTotal() == null || place.getUserRatingsTotal() > 0)
-                .collect(Collectors.toList());
+        return eligiblePlaces;
     }
 
     /**
@@ -375,22 +973,16 @@ public class ToursService {
         try {
             logger.info("Starting AI tour generation with {} eligible places", eligiblePlaces.size());
 
-            // Step 1: Prepare place data for the AI
+            // Step 1: Prepare place data for the AI, only the best-ranked candidates within the token budget
+            List<Place> candidates = candidateRanker.rank(preference, eligiblePlaces);
             StringBuilder placesInfoBuilder = new StringBuilder();
             Map<Long, Place> placeIdMap = new HashMap<>();
 
-            for (Place place : eligiblePlaces) {
-                Long placeId = place.getId();
-                placeIdMap.put(placeId, place);
-
-                placesInfoBuilder.append("ID: ").append(placeId)
-                        .append(", Name: ").append(place.getName())
-                        .append(", Type: ").append(place.getPlaceType())
-                        .append(", Rating: ").append(place.getAverageRating() != null ? place.getAverageRating() : "N/A")
-                        .append(", Reviews: ").append(place.getUserRatingsTotal() != null ? place.getUserRatingsTotal() : 0)
-                        .append(", Sentiment: ").append(place.getSentimentTag() != null ? place.getSentimentTag() : "None")
-                        .append("\n");
+            for (Place place : candidates) {
+                placeIdMap.put(place.getId(), place);
+                placesInfoBuilder.append(TourCandidateRanker.promptLine(place));
             }
+            logger.info("Offering {} of {} eligible places to the AI", candidates.size(), eligiblePlaces.size());
 
             // Step 2: Calculate max places based on tour length
             int maxPlaces = getMaxPlacesForTourLength(preference.getTourLength());
@@ -469,79 +1061,6 @@ public class ToursService {
         return Collections.emptyList();
     }
 
-    /**
-     * Fallback tour generation using algorithm
-     */
-    private List<Place> fallbackTourGeneration(Preference preference) {
-        logger.info("Using fallback tour generation algorithm for preference: {}", preference.getDescription());
-
-        List<Place> recommendedPlaces = new ArrayList<>();
-
-        // Get places based on attraction types
-        if (preference.getAttractionTypePreferences() != null && !preference.getAttractionTypePreferences().isEmpty()) {
-            for (AttractionType attractionType : preference.getAttractionTypePreferences()) {
-                PlaceType placeType = mapAttractionTypeToPlaceType(attractionType);
-                if (placeType != null) {
-                    List<Place> placesOfType = placeRepository.findByPlaceTypeOrderByAverageRatingDesc(placeType);
-
-                    // Filter and limit to top 2 places per type
-                    List<Place> filteredPlaces = placesOfType.stream()
-                            .filter(place -> !excludedPlaceTypes.contains(place.getPlaceType()))
-                            .filter(place -> place.getAverageRating() == null || place.getAverageRating() >= 3.0f)
-                            .limit(2)
-                            .collect(Collectors.toList());
-
-                    recommendedPlaces.addAll(filteredPlaces);
-                }
-            }
-        }
-
-        // Add food places
-        if (preference.getFoodTypePreferences() != null && !preference.getFoodTypePreferences().isEmpty()) {
-            List<Place> restaurants = placeRepository.findByPlaceType(PlaceType.RESTAURANT);
-
-            List<Place> filteredRestaurants = restaurants.stream()
-                    .filter(place -> place.getAverageRating() == null || place.getAverageRating() >= 3.0f)
-                    .limit(2)
-                    .collect(Collectors.toList());
-
-            recommendedPlaces.addAll(filteredRestaurants);
-        }
-
-        // Add drink places
-        if (preference.getDrinkTypePreferences() != null && !preference.getDrinkTypePreferences().isEmpty()) {
-            List<Place> cafeBars = placeRepository.findByPlaceType(PlaceType.CAFE_BAR);
-
-            List<Place> filteredCafeBars = cafeBars.stream()
-                    .filter(place -> place.getAverageRating() == null || place.getAverageRating() >= 3.0f)
-                    .limit(2)
-                    .collect(Collectors.toList());
-
-            recommendedPlaces.addAll(filteredCafeBars);
-        }
-
-        // Add shopping malls if needed
-        if (Boolean.TRUE.equals(preference.getIncludeShoppingMalls())) {
-            List<Place> malls = placeRepository.findByPlaceType(PlaceType.MALL);
-
-            List<Place> filteredMalls = malls.stream()
-                    .filter(place -> place.getAverageRating() == null || place.getAverageRating() >= 3.0f)
-                    .limit(1)
-                    .collect(Collectors.toList());
-
-            recommendedPlaces.addAll(filteredMalls);
-        }
-
-        // Limit total places based on tour length
-        int maxPlaces = getMaxPlacesForTourLength(preference.getTourLength());
-
-        if (recommendedPlaces.size() > maxPlaces) {
-            recommendedPlaces = recommendedPlaces.subList(0, maxPlaces);
-        }
-
-        return recommendedPlaces;
-    }
-
     /**
      * Get maximum number of places based on tour length
      */
@@ -559,14 +1078,26 @@ public class ToursService {
      */
     private String getCompletionFromOpenAI(String prompt) {
         List<ChatRequestMessage> messages = new ArrayList<>();
-        messages.add(new ChatRequestSystemMessage("You are a tour planning assistant for Skopje, North Macedonia."));
+        messages.add(new ChatRequestSystemMessage(SYSTEM_PROMPT));
         messages.add(new ChatRequestUserMessage(prompt));
 
         ChatCompletionsOptions options = new ChatCompletionsOptions(messages);
         options.setMaxTokens(500);
         options.setTemperature(0.5);
 
+        long start = System.nanoTime();
         ChatCompletions completions = openAIClient.getChatCompletions(deploymentName, options);
+        long elapsed = System.nanoTime() - start;
+
+        // Fall back to an estimate when the service does not report usage
+        CompletionsUsage usage = completions.getUsage();
+        int promptTokens = usage != null
+                ? usage.getPromptTokens()
+                : TourCandidateRanker.estimateTokens(prompt) + TourCandidateRanker.estimateTokens(SYSTEM_PROMPT);
+        int completionTokens = usage != null ? usage.getCompletionTokens() : 0;
+        generationMetrics.recordAiCall(promptTokens, completionTokens, elapsed);
+        logger.info("OpenAI call took {} ms, {} prompt tokens, {} completion tokens",
+                TimeUnit.NANOSECONDS.toMillis(elapsed), promptTokens, completionTokens);
 
         if (!completions.getChoices().isEmpty()) {
             return completions.getChoices().get(0).getMessage().getContent();
@@ -579,16 +1110,22 @@ public class ToursService {
      * Map Tour entity to TourDTO
      */
     private TourDTO mapTourToDTO(Tour tour) {
+        return mapTourToDTO(tour, tour.getPlaces());
+    }
+
+    // With the given stops, e.g. edits written past the tour's loaded places
+    private TourDTO mapTourToDTO(Tour tour, List<Place> stops) {
         TourDTO dto = new TourDTO();
         dto.setId(tour.getId());
         dto.setTitle(tour.getTitle());
         dto.setDateCreated(tour.getDateCreated());
+        dto.setStartTime(tour.getStartTime());
         dto.setUserId(tour.getUser().getId());
         dto.setUserName(tour.getUser().getUsername());
         dto.setPreferenceId(tour.getPreference().getId());
         dto.setPreferenceDescription(tour.getPreference().getDescription());
 
-        List<PlaceDTO> placeDTOs = tour.getPlaces().stream()
+        List<PlaceDTO> placeDTOs = stops.stream()
                 .map(place -> {
                     PlaceDTO placeDTO = new PlaceDTO();
                     placeDTO.setId(place.getId());
@@ -606,6 +1143,52 @@ public class ToursService {
                 .collect(Collectors.toList());
 
         dto.setPlaces(placeDTOs);
+
+        List<List<Place>> days = TourItineraryPlanner.split(stops, dayCount(tour));
+        double totalDistance = 0;
+        for (int i = 0; i < days.size(); i++) {
+            TourDTO.Day day = new TourDTO.Day();
+            day.setDay(i + 1);
+            day.setPlaceIds(days.get(i).stream().map(Place::getId).collect(Collectors.toList()));
+            day.setDistanceMeters(TourRouteOptimizer.pathMeters(days.get(i)));
+            totalDistance += day.getDistanceMeters();
+            if (tour.getStartTime() != null) {
+                for (TourScheduler.Visit visit : tourScheduler.simulate(days.get(i), tour.getStartTime().plusDays(i))) {
+                    TourDTO.Stop stop = new TourDTO.Stop();
+                    stop.setPlaceId(visit.place().getId());
+                    stop.setArrival(visit.arrival());
+                    stop.setDeparture(visit.departure());
+                    stop.setOpen(visit.open());
+                    day.getStops().add(stop);
+                }
+            }
+            dto.getDays().add(day);
+        }
+        dto.setTotalDistanceMeters(totalDistance);
         return dto;
     }
+
+    /**
+     * Everything createTour reads before generating places: the user-selected places, the
+     * template to copy or the candidates to generate from
+     */
+    private record TourDraft(User user, Preference preference, List<Place> selectedPlaces, TourCandidates candidates,
+                             TourTemplateService.Template template) {
+    }
+
+    /**
+     * Places chosen for a new tour; {@code lateAiPlaces} is the AI call that missed the deadline, if any
+     */
+    private record PlaceSelection(List<Place> places, CompletableFuture<List<Place>> lateAiPlaces) {
+    }
+
+    /**
+     * Candidate places of a preference, grouped by type, best first
+     */
+    private record TourCandidates(Map<PlaceType, List<Place>> byType) {
+
+        List<Place> ofType(PlaceType placeType) {
+            return byType.getOrDefault(placeType, List.of());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.classteam.skopjetourismguide.repository;
+
+import com.classteam.skopjetourismguide.dto.PlaceDTO;
+import com.classteam.skopjetourismguide.dto.PlaceSummary;
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.service.DtoMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the entity-hydrating listing queries with the {@link PlaceSummary} projections
+ * on an in-memory H2 database, per page of 20, 100 and 500 places.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class PlaceRepositoryProjectionBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaceRepositoryProjectionBenchmarkTest.class);
+
+    private static final int PLACE_COUNT = 2_000;
+    private static final int ITERATIONS = 30;
+
+    @Autowired
+    private PlaceRepository placeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final DtoMapper dtoMapper = new DtoMapper();
+
+    @BeforeEach
+    void insertPlaces() {
+        String longText = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(20);
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i < PLACE_COUNT; i++) {
+            Place place = new Place("Place " + i, "Street " + i, "Description of place " + i,
+                    PlaceType.values()[i % PlaceType.values().length], (i % 50) / 10f, null);
+            place.setLatitude(42.0 + i * 1e-4);
+            place.setLongitude(21.4 + i * 1e-4);
+            place.setVicinity(longText);
+            place.setSocialMedia(longText);
+            place.setWebsiteURL(longText);
+            place.setPhotoReference(longText);
+            places.add(place);
+        }
+        placeRepository.saveAll(places);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void projectionMatchesEntityMappingWithoutManagedEntities() {
+        Pageable pageable = PageRequest.of(1, 20, Sort.by("id")); // Ties on averageRating broken by id
+        List<PlaceDTO> fromEntities = placeRepository.findAll(pageable).map(dtoMapper::toPlaceDto).getContent();
+        entityManager.clear();
+        List<PlaceDTO> fromProjection = placeRepository.findAllSummaries(pageable).map(dtoMapper::toPlaceDto).getContent();
+
+        assertEquals(fromEntities, fromProjection);
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    void projectionReducesAllocationAndLatencyPerPage() {
+        for (int size : new int[]{20, 100, 500}) {
+            Pageable pageable = PageRequest.of(1, size);
+            Measurement entities = measure(() -> placeRepository.findAll(pageable).map(dtoMapper::toPlaceDto));
+            Measurement projections = measure(() -> placeRepository.findAllSummaries(pageable).map(dtoMapper::toPlaceDto));
+
+            logger.info("Page of {}: entities {} KB in {} ms, projections {} KB in {} ms", size,
+                    entities.bytes / 1024, "%.3f".formatted(entities.millis),
+                    projections.bytes / 1024, "%.3f".formatted(projections.millis));
+            if (size >= 100) {
+                assertTrue(projections.bytes < entities.bytes,
+                        "Projection allocated " + projections.bytes + " bytes vs " + entities.bytes + " for entities");
+            }
+        }
+    }
+
+    private Measurement measure(Supplier<Page<PlaceDTO>> query) {
+        for (int i = 0; i < ITERATIONS; i++) { // Warm up
+            query.get();
+            entityManager.clear();
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+            entityManager.clear(); // Every request starts with a fresh persistence context
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new Measurement(bytes / ITERATIONS, elapsed / 1_000_000.0 / ITERATIONS);
+    }
+
+    private record Measurement(long bytes, double millis) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.ReviewDTO;
+import com.classteam.skopjetourismguide.exception.IdempotencyKeyReusedException;
+import com.classteam.skopjetourismguide.exception.IdempotentRequestInProgressException;
+import com.classteam.skopjetourismguide.exception.InvalidIdempotencyKeyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    private final IdempotencyService idempotency =
+            new IdempotencyService(OBJECT_MAPPER, Duration.ofHours(1), 100, Duration.ofSeconds(5));
+
+    @Test
+    void retriesWhileTheFirstRequestRunsWaitForIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ReviewDTO request = review("Lovely view");
+
+        ExecutorService clients = Executors.newFixedThreadPool(5);
+        List<Future<String>> responses = new ArrayList<>();
+        responses.add(clients.submit(() -> idempotency.execute("reviews", "key-1", request, () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "review " + runs.get();
+        })));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            responses.add(clients.submit(() -> idempotency.execute("reviews", "key-1", review("Lovely view"), () -> {
+                runs.incrementAndGet();
+                return "duplicate";
+            })));
+        }
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (idempotency.stats().coalesced() < 4 && System.nanoTime() < waitUntil) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (Future<String> response : responses) {
+            assertEquals("review 1", response.get(5, TimeUnit.SECONDS));
+        }
+        clients.shutdown();
+        assertEquals(1, runs.get());
+        assertEquals(4, idempotency.stats().coalesced());
+
+        // A later retry is answered from the stored result
+        assertEquals("review 1", idempotency.execute("reviews", "key-1", request, () -> "again"));
+        assertEquals(1, idempotency.stats().replays());
+    }
+
+    @Test
+    void rejectsAKeyReusedForAnotherRequest() {
+        idempotency.execute("reviews", "key-2", review("Great"), () -> "first");
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotency.execute("reviews", "key-2", review("Awful"), () -> "second"));
+        // Equal hash codes are not equal bodies
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        idempotency.execute("tours", "key-5", "Aa", () -> "first");
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotency.execute("tours", "key-5", "BB", () -> "second"));
+        // Keys of different endpoints do not meet
+        assertEquals("tour", idempotency.execute("tours", "key-2", review("Awful"), () -> "tour"));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                () -> idempotency.execute("tours", " ", review("Great"), () -> "blank"));
+        assertEquals("no key", idempotency.execute("tours", null, null, () -> "no key"));
+    }
+
+    @Test
+    void forgetsFailedRequestsAndExpiredOrEvictedKeys() {
+        assertThrows(IllegalArgumentException.class, () -> idempotency.execute("reviews", "key-3", review("x"), () -> {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }));
+        assertEquals("retried", idempotency.execute("reviews", "key-3", review("x"), () -> "retried"));
+
+        IdempotencyService expiring = new IdempotencyService(OBJECT_MAPPER, Duration.ZERO, 100, Duration.ofSeconds(5));
+        expiring.execute("tours", "key-4", "request", () -> "first");
+        assertEquals("second", expiring.execute("tours", "key-4", "request", () -> "second"));
+
+        IdempotencyService bounded =
+                new IdempotencyService(OBJECT_MAPPER, Duration.ofHours(1), 2, Duration.ofSeconds(5));
+        for (int i = 0; i < 3; i++) {
+            bounded.execute("tours", "key-" + i, "request", () -> "first");
+        }
+        assertEquals(2, bounded.stats().size());
+        assertEquals("evicted", bounded.execute("tours", "key-0", "request", () -> "evicted"));
+    }
+
+    @Test
+    void retriesGiveUpWaitingForALongRequestAndItIsNeverEvicted() throws Exception {
+        IdempotencyService bounded =
+                new IdempotencyService(OBJECT_MAPPER, Duration.ofHours(1), 2, Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        Future<String> first = client.submit(() -> bounded.execute("tours", "slow", "request", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "tour";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // A retry is answered 409 instead of holding its thread until the tour is generated
+        assertThrows(IdempotentRequestInProgressException.class,
+                () -> bounded.execute("tours", "slow", "request", () -> "duplicate"));
+        // Newer keys fill the map beyond its limit; the running entry is skipped by eviction
+        for (int i = 0; i < 3; i++) {
+            bounded.execute("tours", "key-" + i, "request", () -> "done");
+        }
+        assertEquals(2, bounded.stats().size());
+        assertThrows(IdempotentRequestInProgressException.class,
+                () -> bounded.execute("tours", "slow", "request", () -> "duplicate"));
+
+        release.countDown();
+        assertEquals("tour", first.get(5, TimeUnit.SECONDS));
+        client.shutdown();
+        assertEquals("tour", bounded.execute("tours", "slow", "request", () -> "duplicate"));
+        assertEquals(1, runs.get());
+    }
+
+    private static ReviewDTO review(String comment) {
+        ReviewDTO review = new ReviewDTO();
+        review.setRating(5);
+        review.setComment(comment);
+        review.setUserId(1L);
+        return review;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
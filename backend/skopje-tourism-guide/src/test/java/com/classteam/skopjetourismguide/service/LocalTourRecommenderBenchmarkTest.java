@@ -0,0 +1,147 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.DrinkType;
+import com.classteam.skopjetourismguide.model.enumerations.FoodType;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Latency and quality of the local recommender against the previous algorithmic tour
+ * (top two places per requested type by rating, truncated), on 2000 synthetic places around Skopje.
+ * The AI path is network-bound; compare it in production through the per-source
+ * statistics of GET /api/tours/metrics.
+ */
+class LocalTourRecommenderBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalTourRecommenderBenchmarkTest.class);
+
+    private static final int PLACE_COUNT = 2_000;
+    private static final int ITERATIONS = 2_000;
+    private static final PlaceType[] TYPES = {
+            PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.LANDMARKS, PlaceType.PARKS,
+            PlaceType.RESTAURANT, PlaceType.CAFE_BAR, PlaceType.BAR, PlaceType.MALL};
+
+    private final LocalTourRecommender recommender = new LocalTourRecommender();
+
+    @Test
+    void localEngineIsFastAndBeatsTheOldAlgorithm() {
+        List<Place> places = places();
+        for (int i = 0; i < ITERATIONS; i++) { // JIT warm-up
+            recommender.recommend(preference(TourLength.FULL_DAY), places, 5);
+        }
+        for (TourLength tourLength : TourLength.values()) {
+            Preference preference = preference(tourLength);
+            int maxPlaces = maxPlaces(tourLength);
+
+            long[] nanos = new long[ITERATIONS];
+            List<Place> local = List.of();
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                local = recommender.recommend(preference, places, maxPlaces);
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            List<Place> previous = previousAlgorithm(preference, places, maxPlaces);
+
+            LocalTourRecommender.TourQuality localQuality = LocalTourRecommender.evaluate(preference, local);
+            LocalTourRecommender.TourQuality previousQuality = LocalTourRecommender.evaluate(preference, previous);
+            print(tourLength, "local", nanos[ITERATIONS / 2] / 1_000, nanos[ITERATIONS * 99 / 100] / 1_000, localQuality);
+            print(tourLength, "previous", -1, -1, previousQuality);
+
+            assertEquals(maxPlaces, local.size());
+            assertEquals(maxPlaces, local.stream().map(Place::getId).distinct().count());
+            assertTrue(nanos[ITERATIONS / 2] < 5_000_000, "p50 should stay in the low milliseconds");
+            assertTrue(localQuality.coverage() >= previousQuality.coverage());
+            assertTrue(localQuality.meanSpreadMeters() < previousQuality.meanSpreadMeters());
+        }
+    }
+
+    @Test
+    void respectsCategoryCapsAndIsDeterministic() {
+        List<Place> places = places();
+        Preference preference = preference(TourLength.FOUR_SEVEN_DAYS);
+
+        List<Place> first = recommender.recommend(preference, places, 12);
+        List<Place> second = recommender.recommend(preference, new ArrayList<>(places), 12);
+        assertEquals(first, second);
+
+        Map<PlaceType, Long> perType = first.stream().collect(Collectors.groupingBy(Place::getPlaceType, Collectors.counting()));
+        assertTrue(perType.getOrDefault(PlaceType.RESTAURANT, 0L) <= 3);
+        assertTrue(perType.getOrDefault(PlaceType.CAFE_BAR, 0L) + perType.getOrDefault(PlaceType.BAR, 0L) <= 3);
+        assertTrue(perType.getOrDefault(PlaceType.MALL, 0L) <= 1);
+    }
+
+    // The algorithmic tour ToursService used before the local engine
+    private static List<Place> previousAlgorithm(Preference preference, List<Place> places, int maxPlaces) {
+        Comparator<Place> byRating = Comparator.comparing(Place::getAverageRating, Comparator.reverseOrder());
+        List<Place> selected = new ArrayList<>();
+        for (PlaceType type : List.of(PlaceType.HISTORICAL, PlaceType.MUSEUMS)) {
+            places.stream().filter(p -> p.getPlaceType() == type).sorted(byRating).limit(2).forEach(selected::add);
+        }
+        places.stream().filter(p -> p.getPlaceType() == PlaceType.RESTAURANT).limit(2).forEach(selected::add);
+        places.stream().filter(p -> p.getPlaceType() == PlaceType.CAFE_BAR).limit(2).forEach(selected::add);
+        if (Boolean.TRUE.equals(preference.getIncludeShoppingMalls())) {
+            places.stream().filter(p -> p.getPlaceType() == PlaceType.MALL).limit(1).forEach(selected::add);
+        }
+        return selected.size() > maxPlaces ? selected.subList(0, maxPlaces) : selected;
+    }
+
+    private static void print(TourLength tourLength, String engine, long p50, long p99,
+                              LocalTourRecommender.TourQuality quality) {
+        logger.info("{} {}: p50 {} us, p99 {} us, rating {}, diversity {}, coverage {}, spread {} m", tourLength, engine,
+                p50 < 0 ? "-" : p50, p99 < 0 ? "-" : p99, "%.2f".formatted(quality.averageRating()),
+                "%.2f".formatted(quality.typeDiversity()), "%.2f".formatted(quality.coverage()),
+                Math.round(quality.meanSpreadMeters()));
+    }
+
+    private static int maxPlaces(TourLength tourLength) {
+        return switch (tourLength) {
+            case HALF_DAY -> 3;
+            case FULL_DAY -> 5;
+            case TWO_THREE_DAYS -> 8;
+            case FOUR_SEVEN_DAYS -> 12;
+        };
+    }
+
+    private static Preference preference(TourLength tourLength) {
+        Preference preference = new Preference();
+        preference.setDescription("Authentic old town and food");
+        preference.setTourLength(tourLength);
+        preference.setBudgetLevel(BudgetLevel.MODERATE);
+        preference.setIncludeShoppingMalls(true);
+        preference.setAttractionTypePreferences(List.of(AttractionType.HISTORICAL, AttractionType.MUSEUMS));
+        preference.setFoodTypePreferences(List.of(FoodType.BALKAN));
+        preference.setDrinkTypePreferences(List.of(DrinkType.COFFEE));
+        return preference;
+    }
+
+    // Spread over ~15 x 10 km around the centre of Skopje
+    private static List<Place> places() {
+        Random random = new Random(42);
+        String[] tags = {"Authentic", "Historical", "Popular", "Trendy", "Peaceful", "Romantic"};
+        List<Place> places = new ArrayList<>(PLACE_COUNT);
+        for (int i = 0; i < PLACE_COUNT; i++) {
+            PlaceType type = TYPES[i % TYPES.length];
+            Place place = new Place("Place " + i, "Street " + i, null, type,
+                    Math.round((3.0f + random.nextFloat() * 2.0f) * 10) / 10f, tags[random.nextInt(tags.length)]);
+            place.setId((long) i + 1);
+            place.setUserRatingsTotal(random.nextInt(3_000));
+            place.setLatitude(41.96 + random.nextDouble() * 0.09);
+            place.setLongitude(21.36 + random.nextDouble() * 0.18);
+            places.add(place);
+        }
+        return places;
+    }
+}
@@ -0,0 +1,102 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaceAutocompleteIndexTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaceAutocompleteIndexTest.class);
+
+    private static final String[] WORDS = {
+            "old", "bazaar", "stone", "bridge", "museum", "gallery", "park", "square", "tower", "church",
+            "mosque", "fortress", "lake", "canyon", "cafe", "restaurant", "hotel", "garden", "palace", "monument",
+            "city", "river", "market", "house", "theatre", "street", "hill", "cave", "monastery", "spring"
+    };
+
+    private static PlaceCatalogEntry place(long id, String name, String vicinity, float rating) {
+        return new PlaceCatalogEntry(id, name, null, PlaceType.HISTORICAL, 42.0, 21.4,
+                null, vicinity, rating, 100, null, null, null, 0);
+    }
+
+    private static List<String> names(List<PlaceCatalogEntry> entries) {
+        return entries.stream().map(PlaceCatalogEntry::name).toList();
+    }
+
+    private static PlaceCatalog sample() {
+        return PlaceCatalog.of(List.of(
+                place(1, "Kale Fortress", "Samoilova, Skopje", 4.6f),
+                place(2, "Matka Canyon", "Matka", 4.8f),
+                place(3, "Old Bazaar", "Čaršija, Skopje", 4.5f),
+                place(4, "Stone Bridge", "Skopje", 4.4f),
+                place(5, "Kaleidoscope Cafe", "Debar Maalo", 3.9f)));
+    }
+
+    @Test
+    void matchesLatinAndCyrillicSpellings() {
+        PlaceCatalog catalog = sample();
+
+        assertEquals("Kale Fortress", catalog.suggest("Kale", 5).get(0).name());
+        assertEquals("Kale Fortress", catalog.suggest("Кале", 5).get(0).name());
+        assertTrue(names(catalog.suggest("kal", 5)).containsAll(List.of("Kale Fortress", "Kaleidoscope Cafe")));
+        assertEquals("Old Bazaar", catalog.suggest("Чаршија", 5).get(0).name());
+        assertEquals("Old Bazaar", catalog.suggest("charsija", 5).get(0).name());
+    }
+
+    @Test
+    void toleratesTypos() {
+        PlaceCatalog catalog = sample();
+
+        assertEquals("Matka Canyon", catalog.suggest("matka kanyon", 5).get(0).name());
+        assertEquals("Kale Fortress", catalog.suggest("fortres", 5).get(0).name());
+        assertEquals("Stone Bridge", catalog.suggest("stnoe brigde", 5).get(0).name());
+        assertTrue(catalog.suggest("xyzzy", 5).isEmpty());
+    }
+
+    @Test
+    void followsIncrementalWrites() {
+        PlaceCatalog catalog = sample()
+                .withUpsert(place(6, "Vodno Cross", "Vodno", 4.7f))
+                .withUpsert(place(4, "Art Bridge", "Skopje", 4.0f))
+                .withRemoval(1L);
+
+        assertEquals("Vodno Cross", catalog.suggest("vodn", 5).get(0).name());
+        assertTrue(names(catalog.suggest("stone", 5)).isEmpty());
+        assertEquals(List.of("Art Bridge"), names(catalog.suggest("bridge", 5)));
+        assertEquals(List.of("Kaleidoscope Cafe"), names(catalog.suggest("kale", 5)));
+    }
+
+    @Test
+    void keystrokeThroughputOnLargeCatalog() {
+        Random random = new Random(42);
+        List<PlaceCatalogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            entries.add(place(i, name, WORDS[random.nextInt(WORDS.length)] + " district", random.nextFloat() * 5));
+        }
+        PlaceCatalog catalog = PlaceCatalog.of(entries);
+
+        String[] typed = {"m", "mo", "mon", "mona", "monas", "monast", "monaster", "monsatery", "monastery s",
+                "monastery spr", "monastery sprnig", "b", "ba", "baz", "bazar", "bazaar ol", "gallery paark"};
+        for (int i = 0; i < 200; i++) { // Warm up the JIT
+            catalog.suggest(typed[i % typed.length], 8);
+        }
+
+        int iterations = 2_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertFalse(catalog.suggest(typed[i % typed.length], 8).isEmpty());
+        }
+        double averageMillis = (System.nanoTime() - start) / 1_000_000.0 / iterations;
+        logger.info("Autocomplete over {} places: {} ms per keystroke", entries.size(), "%.3f".formatted(averageMillis));
+        assertTrue(averageMillis < 5, "Average keystroke latency was " + averageMillis + " ms");
+    }
+}
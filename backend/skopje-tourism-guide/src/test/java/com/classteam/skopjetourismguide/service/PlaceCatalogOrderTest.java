@@ -0,0 +1,85 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.dto.PlaceSummary;
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rating-sorted listings served from the catalog order places like the database queries
+ * they replace: unrated places last in both directions
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class PlaceCatalogOrderTest {
+
+    private static final int PAGE_SIZE = 7;
+
+    @Autowired
+    private PlaceRepository placeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private PlaceCatalog catalog;
+
+    @BeforeEach
+    void insertPlaces() {
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Float rating = i % 5 == 0 ? null : (i % 8) / 2f; // Unrated places and ties
+            places.add(new Place("Place " + i, "Street " + i, "Description " + i, PlaceType.HISTORICAL, rating, null));
+        }
+        placeRepository.saveAll(places);
+        entityManager.flush();
+        entityManager.clear();
+        catalog = new PlaceCatalogService(placeRepository, new CatalogVersionService()).current();
+    }
+
+    @Test
+    void descendingMatchesTheProjectionQuery() {
+        for (int page = 0; page * PAGE_SIZE < catalog.size(); page++) {
+            // The query orders by rating alone; ties come in id order, as in the catalog
+            List<Long> fromDatabase = placeRepository.findAllSummaries(PageRequest.of(page, PAGE_SIZE, Sort.by("id")))
+                    .map(PlaceSummary::id).getContent();
+            assertEquals(fromDatabase, catalogPage(page, Sort.Direction.DESC), "Page " + page);
+        }
+    }
+
+    @Test
+    void ascendingKeepsUnratedPlacesLast() {
+        for (int page = 0; page * PAGE_SIZE < catalog.size(); page++) {
+            // Ascending is the rating order reversed, so ties come in descending id order
+            List<Long> fromDatabase = entityManager.createQuery(
+                            "SELECT p.id FROM Place p ORDER BY p.averageRating ASC NULLS LAST, p.id DESC", Long.class)
+                    .setFirstResult(page * PAGE_SIZE)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+            assertEquals(fromDatabase, catalogPage(page, Sort.Direction.ASC), "Page " + page);
+        }
+
+        List<PlaceCatalogEntry> all = PlaceCatalog.page(catalog.all(),
+                PageRequest.of(0, catalog.size(), Sort.by(Sort.Direction.ASC, "averageRating")), true).getContent();
+        assertNotNull(all.get(0).averageRating());
+        assertNull(all.get(all.size() - 1).averageRating());
+    }
+
+    private List<Long> catalogPage(int page, Sort.Direction direction) {
+        Pageable pageable = PageRequest.of(page, PAGE_SIZE, Sort.by(direction, "averageRating"));
+        return PlaceCatalog.page(catalog.all(), pageable, direction.isAscending())
+                .map(PlaceCatalogEntry::id).getContent();
+    }
+}
@@ -0,0 +1,130 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaceFacetIndexTest {
+
+    private static final PlaceType[] TYPES = {PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.RESTAURANT,
+            PlaceType.CAFE_BAR, PlaceType.PARKS, null};
+    private static final String[] TAGS = {"romantic", "family", "Lively", " quiet ", "", null};
+    private static final Integer[] RATINGS_TOTALS = {null, 0, 12, 75, 450, 2_300};
+    private static final Boolean[] OPEN_NOW = {true, false, null};
+
+    private static PlaceCatalogEntry place(long id, PlaceType type, String tag, Float rating, Integer ratingsTotal,
+                                           Boolean openNow) {
+        return new PlaceCatalogEntry(id, "Place " + id, null, type, 42.0, 21.4,
+                null, null, rating, ratingsTotal, tag, null, openNow, 0);
+    }
+
+    // 1,000 places, so the last bitmap word is only partly used
+    private static List<PlaceCatalogEntry> randomPlaces() {
+        Random random = new Random(7);
+        List<PlaceCatalogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            Float rating = random.nextInt(10) == 0 ? null : Math.round(random.nextFloat() * 50) / 10f;
+            entries.add(place(i, TYPES[random.nextInt(TYPES.length)], TAGS[random.nextInt(TAGS.length)], rating,
+                    RATINGS_TOTALS[random.nextInt(RATINGS_TOTALS.length)], OPEN_NOW[random.nextInt(OPEN_NOW.length)]));
+        }
+        return entries;
+    }
+
+    private static List<Map<PlaceFacet, Set<String>>> selections() {
+        List<Map<PlaceFacet, Set<String>>> selections = new ArrayList<>();
+        selections.add(Map.of());
+        selections.add(Map.of(PlaceFacet.TYPE, Set.of()));
+        selections.add(Map.of(PlaceFacet.TYPE, Set.of("MUSEUMS")));
+        selections.add(Map.of(PlaceFacet.TYPE, Set.of("MUSEUMS", "PARKS"), PlaceFacet.OPEN_NOW, Set.of("true")));
+        selections.add(Map.of(PlaceFacet.SENTIMENT, Set.of("lively", "quiet"),
+                PlaceFacet.RATING, Set.of("4.5-5", "4-4.5"), PlaceFacet.REVIEWS, Set.of("200-999", "1000-plus")));
+        selections.add(Map.of(PlaceFacet.TYPE, Set.of("RESTAURANT", "CAFE_BAR"), PlaceFacet.SENTIMENT, Set.of("family"),
+                PlaceFacet.RATING, Set.of("unrated", "0-3"), PlaceFacet.REVIEWS, Set.of("0"),
+                PlaceFacet.OPEN_NOW, Set.of("unknown", "false")));
+        selections.add(Map.of(PlaceFacet.SENTIMENT, Set.of("no-such-tag")));
+        return selections;
+    }
+
+    // Brute force: a place matches when, for every filtered facet but {@code skip}, its value is selected
+    private static List<Long> bruteForce(List<PlaceCatalogEntry> sorted, Map<PlaceFacet, Set<String>> selection,
+                                         PlaceFacet skip) {
+        List<Long> ids = new ArrayList<>();
+        for (PlaceCatalogEntry entry : sorted) {
+            boolean matches = true;
+            for (Map.Entry<PlaceFacet, Set<String>> filter : selection.entrySet()) {
+                String value = filter.getKey().valueOf(entry);
+                if (filter.getKey() != skip && !filter.getValue().isEmpty()
+                        && (value == null || !filter.getValue().contains(value))) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                ids.add(entry.id());
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void filterMatchesBruteForceInRatingOrder() {
+        PlaceCatalog catalog = PlaceCatalog.of(randomPlaces());
+
+        for (Map<PlaceFacet, Set<String>> selection : selections()) {
+            List<Long> filtered = catalog.filter(selection).stream().map(PlaceCatalogEntry::id).toList();
+            assertEquals(bruteForce(catalog.all(), selection, null), filtered, "Selection " + selection);
+        }
+        assertEquals(catalog.size(), catalog.filter(Map.of()).size());
+        assertTrue(catalog.filter(Map.of(PlaceFacet.SENTIMENT, Set.of("no-such-tag"))).isEmpty());
+    }
+
+    @Test
+    void facetCountsIgnoreOnlyTheirOwnFilter() {
+        PlaceCatalog catalog = PlaceCatalog.of(randomPlaces());
+
+        for (Map<PlaceFacet, Set<String>> selection : selections()) {
+            PlaceCatalog.FacetCounts counts = catalog.facetCounts(selection);
+            assertEquals(bruteForce(catalog.all(), selection, null).size(), counts.totalMatches(),
+                    "Selection " + selection);
+
+            for (PlaceFacet facet : PlaceFacet.values()) {
+                Map<String, Integer> valueCounts = counts.counts().get(facet);
+                List<Long> others = bruteForce(catalog.all(), selection, facet);
+                for (Map.Entry<String, Integer> value : valueCounts.entrySet()) {
+                    Map<PlaceFacet, Set<String>> narrowed = new EnumMap<>(PlaceFacet.class);
+                    narrowed.put(facet, Set.of(value.getKey()));
+                    long expected = bruteForce(catalog.all(), narrowed, null).stream().filter(others::contains).count();
+                    assertEquals(expected, value.getValue().longValue(),
+                            facet + "=" + value.getKey() + " under " + selection);
+                }
+            }
+        }
+    }
+
+    @Test
+    void listsBucketsInDisplayOrderAndDataValuesSorted() {
+        PlaceCatalog catalog = PlaceCatalog.of(List.of(
+                place(1, PlaceType.RESTAURANT, "Romantic", 4.7f, 1_500, true),
+                place(2, PlaceType.HISTORICAL, "family", 3.2f, 40, null),
+                place(3, PlaceType.MUSEUMS, null, null, null, false)));
+
+        Map<PlaceFacet, Map<String, Integer>> counts = catalog.facetCounts(Map.of()).counts();
+
+        assertEquals(List.of("HISTORICAL", "MUSEUMS", "RESTAURANT"), List.copyOf(counts.get(PlaceFacet.TYPE).keySet()));
+        assertEquals(Map.of("family", 1, "romantic", 1), counts.get(PlaceFacet.SENTIMENT));
+        assertEquals(List.of("4.5-5", "4-4.5", "3-4", "0-3", "unrated"),
+                List.copyOf(counts.get(PlaceFacet.RATING).keySet()));
+        assertEquals(List.of(1, 0, 1, 0, 1), List.copyOf(counts.get(PlaceFacet.RATING).values()));
+        assertEquals(List.of(1, 0, 0, 1, 1), List.copyOf(counts.get(PlaceFacet.REVIEWS).values()));
+        assertEquals(List.of(1, 1, 1), List.copyOf(counts.get(PlaceFacet.OPEN_NOW).values()));
+    }
+}
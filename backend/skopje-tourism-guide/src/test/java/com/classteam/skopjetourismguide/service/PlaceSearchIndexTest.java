@@ -0,0 +1,83 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaceSearchIndexTest {
+
+    private static PlaceCatalogEntry place(long id, String name, String description, String address, String tag,
+                                           float rating, int ratingsTotal) {
+        return new PlaceCatalogEntry(id, name, description, PlaceType.HISTORICAL, 42.0, 21.4,
+                address, null, rating, ratingsTotal, tag, null, null, 0);
+    }
+
+    private static PlaceCatalog sample() {
+        return PlaceCatalog.of(List.of(
+                place(1, "Stone Bridge", "Ottoman bridge over the Vardar", "Macedonia Square", "historic", 4.4f, 5_000),
+                place(2, "Old Bazaar", "Market quarter next to the Stone Bridge", "Bitpazarska", "lively", 4.5f, 8_000),
+                place(3, "Bridge of Civilizations", "Pedestrian bridge with statues", "Vardar quay", "touristy", 3.9f, 300),
+                place(4, "Kapan An", "Restored caravanserai in the old bazaar", "Old Bazaar", "romantic", 4.3f, 900),
+                place(5, "Matka Canyon", "Lake and caves outside the city", "Matka", "romantic", 4.8f, 12_000),
+                place(6, "Kale Fortress", "Walls above the old town", "Samoilova", "historic", 4.6f, 4_000),
+                place(7, "Vodno Hut", "Mountain hut below the cross", "Vodno", "quiet", 4.0f, 10),
+                place(8, "Vodno Hut", "Mountain hut below the cross", "Vodno", "quiet", 4.0f, 2_000)));
+    }
+
+    private static List<Long> ids(List<PlaceCatalog.SearchHit> hits) {
+        return hits.stream().map(hit -> hit.entry().id()).toList();
+    }
+
+    @Test
+    void requiresEveryTermAndRanksNameMatchesFirst() {
+        PlaceCatalog catalog = sample();
+
+        // Both terms are in the name of the Stone Bridge but only in the description of the Old Bazaar
+        assertEquals(List.of(1L, 2L), ids(catalog.search("stone bridge ")));
+        // The Kale Fortress matches "old" but not "bazaar"
+        assertEquals(List.of(2L, 4L), ids(catalog.search("old bazaar ")));
+        assertEquals(List.of(4L), ids(catalog.search("bazaar romantic ")));
+    }
+
+    @Test
+    void matchesTheLastTermAsAPrefixWhileTyping() {
+        PlaceCatalog catalog = sample();
+
+        assertEquals(List.of(1L, 3L, 2L), ids(catalog.search("brid")));
+        assertTrue(catalog.search("brid ").isEmpty(), "A finished word is not expanded");
+        assertEquals(List.of(6L), ids(catalog.search("kal")));
+        assertTrue(catalog.search("k").isEmpty(), "Single letters are not expanded");
+    }
+
+    @Test
+    void foldsCyrillicAndDiacritics() {
+        PlaceCatalog catalog = sample();
+
+        assertEquals(List.of(6L), ids(catalog.search("Кале")));
+        assertEquals(List.of(5L), ids(catalog.search("Матка ")));
+        assertEquals(List.of(6L), ids(catalog.search("Kalé ")));
+    }
+
+    @Test
+    void popularityBreaksTextTies() {
+        List<PlaceCatalog.SearchHit> hits = sample().search("vodno hut ");
+
+        assertEquals(List.of(8L, 7L), ids(hits));
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void fallsBackToPartialMatchesWhenNoPlaceHasAllTerms() {
+        PlaceCatalog catalog = sample();
+
+        List<Long> partial = ids(catalog.search("caravanserai canyon "));
+        assertEquals(2, partial.size());
+        assertTrue(partial.containsAll(List.of(4L, 5L)));
+        assertTrue(catalog.search("xyzzy ").isEmpty());
+        assertTrue(catalog.search("  ").isEmpty());
+    }
+}
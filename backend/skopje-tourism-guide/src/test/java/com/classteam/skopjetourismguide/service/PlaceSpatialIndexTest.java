@@ -0,0 +1,126 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PlaceCatalogEntry;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaceSpatialIndexTest {
+
+    private static PlaceCatalogEntry place(long id, Double latitude, Double longitude, PlaceType type, float rating) {
+        return new PlaceCatalogEntry(id, "Place " + id, null, type, latitude, longitude,
+                null, null, rating, 100, null, null, null, 0);
+    }
+
+    // Places scattered over greater Skopje and around the origin, where cells have negative indices
+    private static PlaceCatalog randomCatalog() {
+        Random random = new Random(11);
+        PlaceType[] types = {PlaceType.HISTORICAL, PlaceType.RESTAURANT, PlaceType.PARKS};
+        List<PlaceCatalogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            PlaceType type = types[i % types.length];
+            float rating = random.nextInt(50) / 10f;
+            if (i % 100 == 0) {
+                entries.add(place(i, null, null, type, rating));
+            } else if (i % 10 == 0) {
+                entries.add(place(i, (random.nextDouble() - 0.5) * 0.1, (random.nextDouble() - 0.5) * 0.1, type, rating));
+            } else {
+                entries.add(place(i, 41.95 + random.nextDouble() * 0.1, 21.35 + random.nextDouble() * 0.15, type, rating));
+            }
+        }
+        return PlaceCatalog.of(entries);
+    }
+
+    private static List<Integer> positions(List<PlaceCatalog.GeoMatch> matches) {
+        return matches.stream().map(PlaceCatalog.GeoMatch::position).toList();
+    }
+
+    private static List<Integer> scanWithin(PlaceCatalog catalog, double latitude, double longitude, double radiusMeters,
+                                            Predicate<PlaceCatalogEntry> filter) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            PlaceCatalogEntry entry = catalog.all().get(i);
+            if (PlaceSpatialIndex.hasCoordinates(entry) && filter.test(entry)
+                    && GeoDistance.haversineMeters(latitude, longitude, entry.latitude(), entry.longitude()) <= radiusMeters) {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    private static List<Integer> scanBox(PlaceCatalog catalog, double south, double west, double north, double east,
+                                         Predicate<PlaceCatalogEntry> filter) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            PlaceCatalogEntry entry = catalog.all().get(i);
+            if (PlaceSpatialIndex.hasCoordinates(entry) && filter.test(entry)
+                    && entry.latitude() >= south && entry.latitude() <= north
+                    && entry.longitude() >= west && entry.longitude() <= east) {
+                positions.add(i);
+            }
+        }
+        return positions;
+    }
+
+    @Test
+    void radiusQueriesMatchALinearScan() {
+        PlaceCatalog catalog = randomCatalog();
+        Predicate<PlaceCatalogEntry> restaurants = entry -> entry.placeType() == PlaceType.RESTAURANT;
+        double[][] queries = {
+                {41.9981, 21.4254, 300}, {41.9981, 21.4254, 1_500}, {42.0, 21.4, 5_000},
+                {41.95, 21.35, 800}, {0.0, 0.0, 2_000}, {-0.0012, 0.0031, 700}, {42.0, 21.4, 0},
+                {42.0, 21.4, 200_000}};
+
+        for (double[] query : queries) {
+            List<PlaceCatalog.GeoMatch> matches = catalog.nearby(query[0], query[1], query[2], entry -> true);
+            assertEquals(scanWithin(catalog, query[0], query[1], query[2], entry -> true), positions(matches),
+                    "Radius query " + List.of(query[0], query[1], query[2]));
+            assertEquals(scanWithin(catalog, query[0], query[1], query[2], restaurants),
+                    positions(catalog.nearby(query[0], query[1], query[2], restaurants)));
+
+            for (PlaceCatalog.GeoMatch match : matches) {
+                assertSame(catalog.all().get(match.position()), match.entry());
+                assertEquals(GeoDistance.haversineMeters(query[0], query[1],
+                        match.entry().latitude(), match.entry().longitude()), match.distanceMeters(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void boundingBoxQueriesMatchALinearScan() {
+        PlaceCatalog catalog = randomCatalog();
+        Predicate<PlaceCatalogEntry> parks = entry -> entry.placeType() == PlaceType.PARKS;
+        double[][] boxes = {
+                {41.99, 21.42, 42.01, 21.44}, {41.95, 21.35, 42.05, 21.5}, {42.0, 21.4, 42.0, 21.4},
+                {-0.02, -0.03, 0.01, 0.02}, {-10, -10, 50, 50}, {43.0, 22.0, 43.1, 22.1}};
+
+        for (double[] box : boxes) {
+            assertEquals(scanBox(catalog, box[0], box[1], box[2], box[3], entry -> true),
+                    positions(catalog.inBoundingBox(box[0], box[1], box[2], box[3], entry -> true)),
+                    "Bounding box " + List.of(box[0], box[1], box[2], box[3]));
+            assertEquals(scanBox(catalog, box[0], box[1], box[2], box[3], parks),
+                    positions(catalog.inBoundingBox(box[0], box[1], box[2], box[3], parks)));
+        }
+    }
+
+    @Test
+    void skipsPlacesWithoutCoordinates() {
+        PlaceCatalog catalog = PlaceCatalog.of(List.of(
+                place(1, 42.0, 21.4, PlaceType.HISTORICAL, 4.5f),
+                place(2, null, 21.4, PlaceType.HISTORICAL, 4.8f),
+                place(3, 42.0, null, PlaceType.HISTORICAL, 4.9f),
+                place(4, 42.001, 21.4, PlaceType.HISTORICAL, 3.0f)));
+
+        assertEquals(2, new PlaceSpatialIndex(catalog.all()).indexedCount());
+        List<PlaceCatalog.GeoMatch> matches = catalog.nearby(42.0, 21.4, 500, entry -> true);
+        assertEquals(List.of(1L, 4L), matches.stream().map(match -> match.entry().id()).toList());
+        assertEquals(0, matches.get(0).distanceMeters(), 1e-9);
+        assertEquals(111.2, matches.get(1).distanceMeters(), 0.1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.azure.ai.openai.OpenAIClient;
+import com.classteam.skopjetourismguide.dto.TourBulkEditDTO;
+import com.classteam.skopjetourismguide.dto.TourDTO;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * A bulk edit of saved tours' stops writes only the changed join-table rows, in JDBC batches,
+ * and takes the same number of Hibernate statements whatever the number of tours
+ */
+class TourBulkEditQueryTest extends TourServiceTestSupport {
+
+    @Test
+    void bulkEditsWriteOnlyTheChangedStopRows() {
+        ToursService toursService = toursService(mock(OpenAIClient.class), Duration.ofSeconds(10), false, 2);
+        List<Long> tourIds = saveToursWithPlaces(30, 5);
+        Long extraPlaceId = placeRepository.findAll().get(299).getId();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Statistics statistics = statistics();
+
+        List<Long> statements = new ArrayList<>();
+        for (List<Long> batch : List.of(tourIds.subList(0, 3), tourIds.subList(3, 30))) {
+            Map<Long, List<Long>> before = new HashMap<>();
+            batch.forEach(tourId -> before.put(tourId, stops(jdbcTemplate, tourId)));
+            TourBulkEditDTO bulkEdit = new TourBulkEditDTO();
+            for (int i = 0; i < batch.size(); i++) {
+                TourBulkEditDTO.Edit edit = new TourBulkEditDTO.Edit();
+                edit.setTourId(batch.get(i));
+                List<Long> stops = before.get(batch.get(i));
+                switch (i % 3) {
+                    case 0 -> { // Last stop first
+                        List<Long> order = new ArrayList<>(stops);
+                        order.add(0, order.remove(order.size() - 1));
+                        edit.setOrder(order);
+                    }
+                    case 1 -> edit.setRemovePlaceIds(List.of(stops.get(1)));
+                    default -> edit.setAddPlaceIds(List.of(extraPlaceId));
+                }
+                bulkEdit.getEdits().add(edit);
+            }
+
+            statistics.clear();
+            List<TourDTO> edited = new TransactionTemplate(transactionManager).execute(status -> toursService.editTours(bulkEdit));
+            statements.add(statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getCollectionRecreateCount() + statistics.getCollectionUpdateCount());
+
+            for (int i = 0; i < batch.size(); i++) {
+                List<Long> stops = new ArrayList<>(before.get(batch.get(i)));
+                switch (i % 3) {
+                    case 0 -> stops.add(0, stops.remove(stops.size() - 1));
+                    case 1 -> stops.remove(1);
+                    default -> stops.add(extraPlaceId);
+                }
+                assertEquals(stops, stops(jdbcTemplate, batch.get(i)));
+                assertEquals(stops, edited.get(i).getPlaces().stream().map(place -> place.getId()).toList());
+            }
+        }
+        assertEquals(statements.get(0), statements.get(1), "Statements grew with the number of tours");
+        assertTrue(statements.get(0) <= 2);
+    }
+
+    private static List<Long> stops(JdbcTemplate jdbcTemplate, Long tourId) {
+        return jdbcTemplate.queryForList(
+                "SELECT place_id FROM tour_places_skopje WHERE tour_id = ? ORDER BY stop_order", Long.class, tourId);
+    }
+}
@@ -0,0 +1,149 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Candidates chosen on the in-memory store and loaded by id in one query, against the per-type
+ * repository loops with in-Java filtering they replace, on H2
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tour-candidate-pool;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TourCandidatePoolTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourCandidatePoolTest.class);
+
+    private static final int PER_TYPE = 40;
+    private static final Set<PlaceType> SHAPE = EnumSet.of(
+            PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.RESTAURANT, PlaceType.CAFE_BAR, PlaceType.BAR);
+
+    @Autowired
+    private PlaceRepository placeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private PlaceCatalogService placeCatalogService;
+    private TourCandidatePool pool;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        placeRepository.deleteAll();
+        Random random = new Random(3);
+        PlaceType[] types = {PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.RESTAURANT, PlaceType.CAFE_BAR,
+                PlaceType.BAR, PlaceType.MALL, PlaceType.PARKS};
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            Place place = new Place("Place " + i, "Street " + i, null, types[i % types.length],
+                    random.nextInt(10) == 0 ? null : 1 + random.nextInt(41) / 10f, null);
+            place.setUserRatingsTotal(random.nextInt(20) == 0 ? 0 : random.nextInt(3_000));
+            places.add(place);
+        }
+        placeRepository.saveAll(places);
+
+        placeCatalogService = new PlaceCatalogService(placeRepository, new CatalogVersionService());
+        placeCatalogService.current();
+        pool = new TourCandidatePool(placeRepository, placeCatalogService, PER_TYPE);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void loadsTheBestEligiblePlacesOfEveryTypeInOneQuery() {
+        statistics.clear();
+        Map<PlaceType, List<Place>> loops = perTypeLoops();
+        long loopQueries = statistics.getPrepareStatementCount();
+        long loopLoads = statistics.getEntityLoadCount();
+
+        statistics.clear();
+        Map<PlaceType, List<Place>> candidates = pool.candidates(SHAPE);
+        long poolQueries = statistics.getPrepareStatementCount();
+        long poolLoads = statistics.getEntityLoadCount();
+
+        // Another shape made of types already loaded
+        statistics.clear();
+        Map<PlaceType, List<Place>> subset = pool.candidates(EnumSet.of(PlaceType.MUSEUMS, PlaceType.BAR));
+        long cachedQueries = statistics.getPrepareStatementCount();
+
+        logger.info("Per-type loops: {} queries, {} places loaded; one query: {} queries, {} places loaded; "
+                + "cached shape: {} queries", loopQueries, loopLoads, poolQueries, poolLoads, cachedQueries);
+
+        assertEquals(SHAPE, candidates.keySet());
+        for (PlaceType placeType : SHAPE) {
+            List<Place> expected = loops.get(placeType).stream()
+                    .sorted(Comparator.comparingDouble(TourCandidatePoolTest::bayesianRating).reversed()
+                            .thenComparing(Place::getId))
+                    .limit(PER_TYPE)
+                    .toList();
+            assertEquals(ids(expected), ids(candidates.get(placeType)), placeType.name());
+        }
+        assertEquals(1, poolQueries);
+        assertEquals(0, cachedQueries);
+        assertEquals(candidates.get(PlaceType.MUSEUMS), subset.get(PlaceType.MUSEUMS));
+        assertTrue(poolLoads <= (long) SHAPE.size() * PER_TYPE);
+        assertTrue(poolLoads < loopLoads / 2);
+    }
+
+    @Test
+    void reloadsTypesOnceThePlaceCatalogChanges() {
+        pool.candidates(SHAPE);
+
+        Place place = placeRepository.findAll().get(0);
+        place.setAverageRating(5.0f);
+        place.setUserRatingsTotal(10_000);
+        placeRepository.save(place);
+        placeCatalogService.upsert(place);
+
+        statistics.clear();
+        Map<PlaceType, List<Place>> candidates = pool.candidates(SHAPE);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(place.getId(), candidates.get(place.getPlaceType()).get(0).getId());
+    }
+
+    // What tour generation did before: every place of each type, filtered in Java
+    private Map<PlaceType, List<Place>> perTypeLoops() {
+        Map<PlaceType, List<Place>> byType = new EnumMap<>(PlaceType.class);
+        for (PlaceType placeType : SHAPE) {
+            byType.put(placeType, placeRepository.findByPlaceType(placeType).stream()
+                    .filter(place -> place.getAverageRating() == null || place.getAverageRating() >= 3.0f)
+                    .filter(place -> place.getUserRatingsTotal() == null || place.getUserRatingsTotal() > 0)
+                    .toList());
+        }
+        return byType;
+    }
+
+    private static double bayesianRating(Place place) {
+        double rating = place.getAverageRating() != null ? place.getAverageRating() : 0;
+        double votes = place.getUserRatingsTotal() != null ? place.getUserRatingsTotal() : 0;
+        return (rating * votes + 3.5 * 20) / (votes + 20);
+    }
+
+    private static List<Long> ids(List<Place> places) {
+        return places.stream().map(Place::getId).toList();
+    }
+}
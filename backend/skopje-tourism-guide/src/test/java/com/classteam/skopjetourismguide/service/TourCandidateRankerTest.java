@@ -0,0 +1,91 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.FoodType;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourCandidateRankerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourCandidateRankerTest.class);
+
+    @Test
+    void keepsTopKPerTypeWithinTheTokenBudget() {
+        List<Place> eligible = new ArrayList<>();
+        eligible.addAll(places(PlaceType.RESTAURANT, 600, 1));
+        eligible.addAll(places(PlaceType.HISTORICAL, 40, 10_000));
+        eligible.addAll(places(PlaceType.MUSEUMS, 30, 20_000));
+
+        TourCandidateRanker ranker = new TourCandidateRanker(12, 2_000);
+        List<Place> ranked = ranker.rank(preference(), eligible);
+
+        Map<PlaceType, Long> perType = ranked.stream()
+                .collect(Collectors.groupingBy(Place::getPlaceType, Collectors.counting()));
+        assertEquals(Map.of(PlaceType.RESTAURANT, 12L, PlaceType.HISTORICAL, 12L, PlaceType.MUSEUMS, 12L), perType);
+
+        int before = tokens(eligible);
+        int after = tokens(ranked);
+        logger.info("Prompt candidates: {} places / ~{} tokens -> {} places / ~{} tokens",
+                eligible.size(), before, ranked.size(), after);
+        assertTrue(after <= 2_000);
+
+        // A tight budget cuts every type short instead of dropping whole types
+        List<Place> tight = new TourCandidateRanker(12, 300).rank(preference(), eligible);
+        assertTrue(tokens(tight) <= 300);
+        assertEquals(3, tight.stream().map(Place::getPlaceType).distinct().count());
+    }
+
+    @Test
+    void prefersWellReviewedPlacesAndMatchingSentiment() {
+        Place fewReviews = place(1, PlaceType.RESTAURANT, 5.0f, 3, null);
+        Place manyReviews = place(2, PlaceType.RESTAURANT, 4.6f, 2_000, null);
+        Place authentic = place(3, PlaceType.RESTAURANT, 4.6f, 2_000, "Authentic, Popular");
+
+        List<Place> ranked = new TourCandidateRanker(2, 2_000)
+                .rank(preference(), List.of(fewReviews, manyReviews, authentic));
+
+        assertEquals(List.of(authentic, manyReviews), ranked);
+    }
+
+    private static Preference preference() {
+        Preference preference = new Preference();
+        preference.setDescription("Old town walk");
+        preference.setTourLength(TourLength.FULL_DAY);
+        preference.setBudgetLevel(BudgetLevel.MODERATE);
+        preference.setAttractionTypePreferences(List.of(AttractionType.HISTORICAL, AttractionType.MUSEUMS));
+        preference.setFoodTypePreferences(List.of(FoodType.BALKAN));
+        return preference;
+    }
+
+    private static List<Place> places(PlaceType placeType, int count, long firstId) {
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            places.add(place(firstId + i, placeType, 3.0f + (i % 20) / 10f, 5 * i, null));
+        }
+        return places;
+    }
+
+    private static Place place(long id, PlaceType placeType, float rating, int ratings, String sentimentTag) {
+        Place place = new Place("Place " + id, "Street " + id, null, placeType, rating, sentimentTag);
+        place.setId(id);
+        place.setUserRatingsTotal(ratings);
+        return place;
+    }
+
+    private static int tokens(List<Place> places) {
+        return places.stream().mapToInt(place -> TourCandidateRanker.estimateTokens(TourCandidateRanker.promptLine(place))).sum();
+    }
+}
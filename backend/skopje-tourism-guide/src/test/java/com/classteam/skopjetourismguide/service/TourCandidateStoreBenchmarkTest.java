@@ -0,0 +1,207 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.SentimentTag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of the struct-of-arrays selection and scoring kernels over 10k to 1M synthetic
+ * candidates, against the same selection over {@link Place} entities with stream filters
+ */
+class TourCandidateStoreBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourCandidateStoreBenchmarkTest.class);
+
+    private static final int PER_TYPE = 60;
+    private static final PlaceType[] TYPES = {
+            PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.LANDMARKS, PlaceType.PARKS,
+            PlaceType.RESTAURANT, PlaceType.CAFE_BAR, PlaceType.BAR, PlaceType.MALL};
+    // The types of a preference with sights, food and drinks
+    private static final PlaceType[] SHAPE = {
+            PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.RESTAURANT, PlaceType.CAFE_BAR, PlaceType.BAR};
+    private static final String[] SENTIMENTS = {null, "AUTHENTIC", "Trendy, Popular", "peaceful; family-friendly",
+            "HISTORICAL, UNIQUE, crowded", "ROMANTIC"};
+
+    @Test
+    void selectsTheSameCandidatesAsTheEntityFilters() {
+        List<Place> places = places(10_000, new Random(11));
+        TourCandidateStore store = store(places);
+        int[] selected = new int[PER_TYPE];
+        double[] keys = new double[PER_TYPE];
+
+        for (PlaceType placeType : SHAPE) {
+            int count = store.selectBest(placeType, TourCandidatePool.MIN_RATING, PER_TYPE, selected, keys);
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                ids.add(store.id(selected[i]));
+            }
+            assertEquals(selectOnEntities(places, placeType).stream().map(Place::getId).toList(), ids,
+                    placeType.name());
+        }
+
+        Set<SentimentTag> wanted = EnumSet.of(SentimentTag.AUTHENTIC, SentimentTag.PEACEFUL);
+        int wantedBits = TourCandidateStore.sentimentBits(wanted);
+        Map<Long, Place> byId = new HashMap<>();
+        places.forEach(place -> byId.put(place.getId(), place));
+        for (int i = 0; i < store.size(); i++) {
+            assertEquals(TourCandidateRanker.score(byId.get(store.id(i)), wanted), store.score(i, wantedBits), 1e-12);
+        }
+    }
+
+    @Test
+    void selectionThroughputFromTenThousandToOneMillionCandidates() {
+        int[] selected = new int[PER_TYPE];
+        double[] keys = new double[PER_TYPE];
+        int wantedBits = TourCandidateStore.sentimentBits(EnumSet.of(SentimentTag.AUTHENTIC, SentimentTag.TRENDY));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int size : new int[]{10_000, 100_000, 1_000_000}) {
+            TourCandidateStore store = store(size, new Random(size));
+            int rounds = Math.max(20, 20_000_000 / size);
+
+            long checksum = 0;
+            for (int i = 0; i < rounds; i++) { // JIT warm-up
+                checksum += selectShape(store, selected, keys) + scoreAll(store, wantedBits);
+            }
+
+            long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            long selectNanos = 0;
+            long scoreNanos = 0;
+            for (int i = 0; i < rounds; i++) {
+                long start = System.nanoTime();
+                checksum += selectShape(store, selected, keys);
+                long selectedAt = System.nanoTime();
+                checksum += scoreAll(store, wantedBits);
+                scoreNanos += System.nanoTime() - selectedAt;
+                selectNanos += selectedAt - start;
+            }
+            long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+
+            double selectionsPerSecond = rounds * 1e9 / selectNanos;
+            double scoresPerSecond = (double) rounds * size * 1e9 / scoreNanos;
+            logger.info("{} candidates: {} five-type selections/s ({} candidates/s), {} scores/s, "
+                            + "{} bytes allocated over {} rounds (checksum {})", size, Math.round(selectionsPerSecond),
+                    Math.round(selectionsPerSecond * size), Math.round(scoresPerSecond), allocated, rounds, checksum);
+
+            // Nothing per round; a few bytes may come from the measurement itself
+            assertTrue(allocated < 1_024, "allocated " + allocated + " bytes");
+            // A million candidates selected well within a request
+            assertTrue(selectNanos / rounds < 50_000_000);
+        }
+    }
+
+    @Test
+    void outpacesTheEntityFiltersOnOneHundredThousandCandidates() {
+        List<Place> places = places(100_000, new Random(7));
+        TourCandidateStore store = store(places);
+        int[] selected = new int[PER_TYPE];
+        double[] keys = new double[PER_TYPE];
+
+        long checksum = 0;
+        for (int i = 0; i < 20; i++) { // JIT warm-up
+            checksum += selectShape(store, selected, keys);
+            for (PlaceType placeType : SHAPE) {
+                checksum += selectOnEntities(places, placeType).size();
+            }
+        }
+        int rounds = 50;
+        long storeNanos = 0;
+        long entityNanos = 0;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            checksum += selectShape(store, selected, keys);
+            long storeDone = System.nanoTime();
+            for (PlaceType placeType : SHAPE) {
+                checksum += selectOnEntities(places, placeType).size();
+            }
+            entityNanos += System.nanoTime() - storeDone;
+            storeNanos += storeDone - start;
+        }
+        logger.info("100,000 candidates, five types: arrays {} us, entities {} us per selection (checksum {})",
+                storeNanos / rounds / 1_000, entityNanos / rounds / 1_000, checksum);
+        assertTrue(storeNanos < entityNanos);
+    }
+
+    private static int selectShape(TourCandidateStore store, int[] selected, double[] keys) {
+        int total = 0;
+        for (PlaceType placeType : SHAPE) {
+            int count = store.selectBest(placeType, TourCandidatePool.MIN_RATING, PER_TYPE, selected, keys);
+            total += count > 0 ? (int) store.id(selected[0]) : 0;
+        }
+        return total;
+    }
+
+    private static long scoreAll(TourCandidateStore store, int wantedBits) {
+        double sum = 0;
+        for (int i = 0; i < store.size(); i++) {
+            sum += store.score(i, wantedBits);
+        }
+        return (long) sum;
+    }
+
+    // What the candidate selection does on entities: filter, Bayesian sort, limit
+    private static List<Place> selectOnEntities(List<Place> places, PlaceType placeType) {
+        return places.stream()
+                .filter(place -> place.getPlaceType() == placeType)
+                .filter(place -> place.getAverageRating() == null || place.getAverageRating() >= TourCandidatePool.MIN_RATING)
+                .filter(place -> place.getUserRatingsTotal() == null || place.getUserRatingsTotal() > 0)
+                .sorted(Comparator.comparingDouble(TourCandidateStoreBenchmarkTest::bayesianRating).reversed()
+                        .thenComparing(Place::getId))
+                .limit(PER_TYPE)
+                .toList();
+    }
+
+    private static double bayesianRating(Place place) {
+        double rating = place.getAverageRating() != null ? place.getAverageRating() : 0;
+        double votes = place.getUserRatingsTotal() != null ? place.getUserRatingsTotal() : 0;
+        return (rating * votes + 3.5 * 20) / (votes + 20);
+    }
+
+    private static List<Place> places(int count, Random random) {
+        List<Place> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Place place = new Place("Place " + i, "Street " + i, null, TYPES[random.nextInt(TYPES.length)],
+                    random.nextInt(10) == 0 ? null : 1 + random.nextInt(41) / 10f, null);
+            place.setId((long) i + 1);
+            place.setUserRatingsTotal(random.nextInt(20) == 0 ? null : random.nextInt(3_000));
+            place.setLatitude(41.96 + random.nextDouble() * 0.07);
+            place.setLongitude(21.37 + random.nextDouble() * 0.12);
+            place.setSentimentTag(SENTIMENTS[random.nextInt(SENTIMENTS.length)]);
+            places.add(place);
+        }
+        return places;
+    }
+
+    private static TourCandidateStore store(List<Place> places) {
+        TourCandidateStore.Builder builder = new TourCandidateStore.Builder(places.size());
+        for (Place place : places) {
+            builder.add(place.getId(), place.getPlaceType(),
+                    place.getAverageRating() != null ? place.getAverageRating() : Float.NaN,
+                    place.getUserRatingsTotal() != null ? place.getUserRatingsTotal() : -1,
+                    place.getLatitude(), place.getLongitude(), TourCandidateStore.sentiment(place.getSentimentTag()));
+        }
+        return builder.build(null);
+    }
+
+    // Straight into the arrays, without a million entities
+    private static TourCandidateStore store(int count, Random random) {
+        int[] sentiments = Arrays.stream(SENTIMENTS).mapToInt(TourCandidateStore::sentiment).toArray();
+        TourCandidateStore.Builder builder = new TourCandidateStore.Builder(count);
+        for (int i = 0; i < count; i++) {
+            builder.add(i + 1, TYPES[random.nextInt(TYPES.length)],
+                    random.nextInt(10) == 0 ? Float.NaN : 1 + random.nextInt(41) / 10f,
+                    random.nextInt(20) == 0 ? -1 : random.nextInt(3_000),
+                    41.96 + random.nextDouble() * 0.07, 21.37 + random.nextDouble() * 0.12,
+                    sentiments[random.nextInt(sentiments.length)]);
+        }
+        return builder.build(null);
+    }
+}
@@ -0,0 +1,205 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.azure.ai.openai.OpenAIClient;
+import com.classteam.skopjetourismguide.dto.PreferenceDTO;
+import com.classteam.skopjetourismguide.dto.TourCreateDTO;
+import com.classteam.skopjetourismguide.dto.TourDTO;
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.User;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.FoodType;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.Role;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import com.classteam.skopjetourismguide.repository.PreferenceRepository;
+import com.classteam.skopjetourismguide.repository.TourRepository;
+import com.classteam.skopjetourismguide.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link TourGenerationLoadTest} through the HTTP layer of the running application, with the
+ * production JPA settings: tours generated by POST /api/tours must not hold a pooled connection
+ * while they wait for the AI, and every read endpoint must still find its lazy associations
+ * loaded once the request has no open session.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:tours-http;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.connectionTimeout=3000",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "azure.openai.endpoint=http://localhost",
+        "azure.openai.key=test",
+        "google.maps.api.key=test",
+        "app.jwt.secret=dGVzdC1zZWNyZXQtdGhhdC1pcy1sb25nLWVub3VnaC1mb3ItaHMyNTYtc2lnbmluZw==",
+        "tours.ai.threads=10",
+        "tours.recommendation-cache.ttl=PT0S",
+        "tours.recommendation-cache.max-size=0"})
+class TourGenerationHttpLoadTest {
+
+    private static final int CONCURRENT_TOURS = 10;
+    private static final long AI_LATENCY_MS = 1_500;
+
+    private static final CountDownLatch aiCallsStarted = new CountDownLatch(CONCURRENT_TOURS);
+
+    @TestConfiguration
+    static class SlowOpenAIConfig {
+
+        @Bean
+        @Primary
+        OpenAIClient slowOpenAIClient() {
+            return TourServiceTestSupport.openAIClient(AI_LATENCY_MS, aiCallsStarted::countDown);
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlaceRepository placeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private PreferenceRepository preferenceRepository;
+
+    @Autowired
+    private PlaceCatalogService placeCatalogService;
+
+    private Long userId;
+
+    @BeforeEach
+    void savePlacesAndUser() {
+        tourRepository.deleteAll();
+        preferenceRepository.deleteAll();
+        userRepository.deleteAll();
+        placeRepository.deleteAll();
+
+        List<Place> places = new ArrayList<>();
+        PlaceType[] types = {PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.RESTAURANT};
+        for (int i = 0; i < 300; i++) {
+            Place place = new Place("Place " + i, "Street " + i, "Description of place " + i,
+                    types[i % types.length], 3.5f + (i % 15) / 10f, null);
+            place.setUserRatingsTotal(10 + i);
+            places.add(place);
+        }
+        placeRepository.saveAll(places);
+        placeCatalogService.reload();
+
+        User user = new User();
+        user.setUsername("tours-http-test");
+        user.setEmail("tours-http-test@example.com");
+        user.setPassword("secret");
+        user.setRole(Role.ROLE_USER);
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void placeReadsNeverWaitForAConnectionWhileToursAreGenerated() throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        assertEquals(5, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize());
+        // Sorting by name bypasses the in-memory catalog, so every read needs a pooled connection
+        String byName = "/api/places?sortBy=name&sortDir=asc";
+        for (int i = 0; i < 20; i++) {
+            assertEquals(HttpStatus.OK, restTemplate.getForEntity(byName, String.class).getStatusCode()); // Warm-up
+        }
+
+        ExecutorService generators = Executors.newFixedThreadPool(CONCURRENT_TOURS);
+        List<Future<ResponseEntity<TourDTO>>> tours = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_TOURS; i++) {
+            TourCreateDTO request = tourRequest(i);
+            tours.add(generators.submit(() -> restTemplate.postForEntity("/api/tours", request, TourDTO.class)));
+        }
+
+        // Every generation is now waiting for the AI; with open-in-view each request kept its connection
+        assertTrue(aiCallsStarted.await(10, TimeUnit.SECONDS));
+        long aiCallsEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AI_LATENCY_MS - 300);
+        int reads = 0;
+        int maxAwaiting = 0;
+        int maxActive = 0;
+        while (System.nanoTime() < aiCallsEnd) {
+            maxActive = Math.max(maxActive, pool.getActiveConnections());
+            assertEquals(HttpStatus.OK, restTemplate.getForEntity(byName, String.class).getStatusCode());
+            reads++;
+            maxAwaiting = Math.max(maxAwaiting, pool.getThreadsAwaitingConnection());
+        }
+
+        List<TourDTO> created = new ArrayList<>();
+        for (Future<ResponseEntity<TourDTO>> tour : tours) {
+            ResponseEntity<TourDTO> response = tour.get(30, TimeUnit.SECONDS);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+            created.add(response.getBody());
+        }
+        generators.shutdown();
+
+        assertTrue(reads > 0);
+        // Between reads nothing is borrowed: the generations waiting for the AI hold no connection
+        assertEquals(0, maxActive, "Tour requests held connections while waiting for the AI");
+        assertEquals(0, maxAwaiting, "Place reads waited for a connection while tours were being generated");
+        assertEquals(CONCURRENT_TOURS, tourRepository.count());
+
+        // The responses are written after the session is closed, so the lazy associations must be loaded
+        TourDTO tour = created.get(0);
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/tours/" + tour.getId(), String.class)
+                .getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/tours", String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/tours/user/" + userId, String.class)
+                .getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/tours/preference/" + tour.getPreferenceId(),
+                String.class).getStatusCode());
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("/api/tours/search?title=Test", String.class)
+                .getStatusCode());
+        ResponseEntity<String> legacyPlace = restTemplate.getForEntity(
+                "/api/places/legacy/" + tour.getPlaces().get(0).getId(), String.class);
+        assertEquals(HttpStatus.OK, legacyPlace.getStatusCode());
+        assertTrue(legacyPlace.getBody().contains(tour.getTitle()), "The place lists the tours it is part of");
+    }
+
+    private TourCreateDTO tourRequest(int index) {
+        PreferenceDTO preference = new PreferenceDTO();
+        preference.setDescription("Test preference " + index);
+        preference.setTourLength(TourLength.FULL_DAY);
+        preference.setBudgetLevel(BudgetLevel.values()[0]);
+        preference.setAttractionTypePreferences(List.of(AttractionType.HISTORICAL, AttractionType.MUSEUMS));
+        preference.setFoodTypePreferences(List.of(FoodType.values()[0]));
+
+        TourCreateDTO request = new TourCreateDTO();
+        request.setTitle("Test tour " + index);
+        request.setUserId(userId);
+        request.setPreferenceDTO(preference);
+        return request;
+    }
+}
@@ -0,0 +1,165 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.TourCreateDTO;
+import com.classteam.skopjetourismguide.dto.TourDTO;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Generates tours with an AI call that takes seconds. Checks that tours waiting for the AI hold
+ * no pooled connection, so database-backed place listings never wait for one while twice as many
+ * tours are generated as the pool has connections, and that tour creation does not wait for the
+ * AI beyond its deadline.
+ */
+class TourGenerationLoadTest extends TourServiceTestSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourGenerationLoadTest.class);
+
+    private static final int CONCURRENT_TOURS = 10;
+    private static final long AI_LATENCY_MS = 1_500;
+
+    private final CountDownLatch aiCallsStarted = new CountDownLatch(CONCURRENT_TOURS);
+
+    private ToursService toursService;
+    private PlacesService placesService;
+
+    @BeforeEach
+    void setUp() {
+        toursService = toursService(Duration.ofSeconds(10), false);
+        placesService = new PlacesService(placeRepository, reviewRepository, mock(GoogleMapsService.class),
+                new DtoMapper(), mock(PlaceCatalogService.class), transactionManager, new ObjectMapper(), event -> {
+                });
+    }
+
+    @Test
+    void placeReadsNeverWaitForAConnectionWhileToursAreGenerated() throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        // Sorting by name bypasses the in-memory catalog, so every read needs a pooled connection
+        Pageable byName = PageRequest.of(0, 20, Sort.by("name"));
+        measureReads(byName, 50); // Warm-up
+        List<Long> baseline = measureReads(byName, 20);
+
+        ExecutorService generators = Executors.newFixedThreadPool(CONCURRENT_TOURS);
+        List<Future<?>> tours = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_TOURS; i++) {
+            TourCreateDTO request = tourRequest(i);
+            tours.add(generators.submit(() -> toursService.createTour(request)));
+        }
+
+        // Every generation is now waiting for the AI, which used to hold all five connections
+        assertTrue(aiCallsStarted.await(10, TimeUnit.SECONDS));
+        long aiCallsEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AI_LATENCY_MS - 300);
+        List<Long> underLoad = new ArrayList<>();
+        int maxAwaiting = 0;
+        int maxActive = 0;
+        while (System.nanoTime() < aiCallsEnd) {
+            maxActive = Math.max(maxActive, pool.getActiveConnections());
+            underLoad.addAll(measureReads(byName, 1));
+            maxAwaiting = Math.max(maxAwaiting, pool.getThreadsAwaitingConnection());
+        }
+
+        for (Future<?> tour : tours) {
+            tour.get(30, TimeUnit.SECONDS);
+        }
+        generators.shutdown();
+
+        logger.info("Place reads: baseline {} reads, p50 {} ms, max {} ms; while generating {} reads, p50 {} ms, max {} ms",
+                baseline.size(), percentile(baseline, 50), percentile(baseline, 100),
+                underLoad.size(), percentile(underLoad, 50), percentile(underLoad, 100));
+
+        assertEquals(CONCURRENT_TOURS, tourRepository.count());
+        assertFalse(underLoad.isEmpty());
+        // Between reads nothing is borrowed: the generations waiting for the AI hold no connection
+        assertEquals(0, maxActive, "Tours held connections while waiting for the AI");
+        assertEquals(0, maxAwaiting, "Place reads waited for a connection while tours were being generated");
+    }
+
+    @Test
+    void tourCreationIsBoundedByTheAiDeadline() throws Exception {
+        Duration deadline = Duration.ofMillis(200);
+        // The AI answers only once released, so every tour below is saved without its answer
+        CountDownLatch aiAnswers = new CountDownLatch(1);
+        ToursService hedgedService = toursService(openAIClient(0, () -> await(aiAnswers)), deadline, true,
+                CONCURRENT_TOURS);
+
+        List<Long> tourIds = new ArrayList<>();
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            TourDTO tour = hedgedService.createTour(tourRequest(i));
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            tourIds.add(tour.getId());
+            assertEquals(5, tour.getPlaces().size()); // The fallback places
+        }
+        logger.info("Tour creation with a {} ms deadline and an AI that never answered: max {} ms",
+                deadline.toMillis(), percentile(latencies, 100));
+        assertEquals(5, metrics.snapshot().getAiCalls().getDeadlineMisses());
+        assertEquals(0, metrics.snapshot().getAiCalls().getBackgroundUpgrades());
+        aiAnswers.countDown();
+
+        // The late AI answers replace the fallback places of the saved tours
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (metrics.snapshot().getAiCalls().getBackgroundUpgrades() < 5 && System.nanoTime() < waitUntil) {
+            Thread.sleep(50);
+        }
+        assertEquals(5, metrics.snapshot().getAiCalls().getBackgroundUpgrades());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            for (Long tourId : tourIds) {
+                assertEquals(5, tourRepository.findById(tourId).orElseThrow().getPlaces().size());
+            }
+        });
+    }
+
+    private ToursService toursService(Duration aiDeadline, boolean upgradeInBackground) {
+        return toursService(openAIClient(AI_LATENCY_MS, aiCallsStarted::countDown), aiDeadline, upgradeInBackground,
+                CONCURRENT_TOURS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Long> measureReads(Pageable pageable, int count) {
+        List<Long> latencies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            assertEquals(20, placesService.getAllPlacesPaginated(pageable).getContent().size());
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return latencies;
+    }
+
+    private static long percentile(List<Long> latencies, int percentile) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+}
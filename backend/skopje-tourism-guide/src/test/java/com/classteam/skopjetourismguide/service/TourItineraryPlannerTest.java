@@ -0,0 +1,101 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourItineraryPlannerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourItineraryPlannerTest.class);
+
+    // Old Bazaar, City Park, Vodno and Aerodrom
+    private static final double[][] NEIGHBOURHOODS = {
+            {42.0010, 21.4370}, {42.0050, 21.4150}, {41.9760, 21.4100}, {41.9850, 21.4650}};
+
+    private final TourItineraryPlanner planner = new TourItineraryPlanner(new TourRouteOptimizer());
+
+    @Test
+    void givesEachNeighbourhoodItsOwnDay() {
+        Random random = new Random(5);
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            double[] centre = NEIGHBOURHOODS[i % NEIGHBOURHOODS.length];
+            places.add(place(i + 1, centre[0] + random.nextGaussian() * 0.002, centre[1] + random.nextGaussian() * 0.002));
+        }
+        Collections.shuffle(places, random);
+
+        List<List<Place>> days = planner.plan(places, 4, null, null);
+
+        assertEquals(4, days.size());
+        for (List<Place> day : days) {
+            assertEquals(3, day.size());
+            assertEquals(1, day.stream().map(place -> (place.getId() - 1) % NEIGHBOURHOODS.length).distinct().count());
+        }
+        // Same places in another order, same plan
+        List<Place> reordered = new ArrayList<>(places);
+        Collections.reverse(reordered);
+        assertEquals(days, planner.plan(reordered, 4, null, null));
+    }
+
+    @Test
+    void balancesDaysAndSplitsTheSavedOrderBack() {
+        Random random = new Random(9);
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            places.add(place(i + 1, 41.97 + random.nextDouble() * 0.05, 21.39 + random.nextDouble() * 0.08));
+        }
+        places.add(place(8, null, null));
+
+        List<List<Place>> days = planner.plan(places, 3, new TourRouteOptimizer.Point(41.9961, 21.4316), null);
+
+        assertEquals(List.of(3, 3, 2), days.stream().map(List::size).toList());
+        List<Place> saved = days.stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals(new HashSet<>(places), new HashSet<>(saved));
+        assertEquals(days, TourItineraryPlanner.split(saved, 3));
+
+        // Fewer places than days: one place a day
+        assertEquals(2, TourItineraryPlanner.split(saved.subList(0, 2), 3).size());
+    }
+
+    @Test
+    void plansTwelvePlacesFastEnoughForTheRequestPath() {
+        Random random = new Random(1);
+        List<List<Place>> tours = new ArrayList<>();
+        for (int t = 0; t < 100; t++) {
+            List<Place> places = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                places.add(place(i + 1, 41.96 + random.nextDouble() * 0.07, 21.37 + random.nextDouble() * 0.12));
+            }
+            tours.add(places);
+        }
+
+        for (int i = 0; i < 2_000; i++) { // JIT warm-up
+            planner.plan(tours.get(i % tours.size()), 4, null, null);
+        }
+        long[] nanos = new long[5_000];
+        for (int i = 0; i < nanos.length; i++) {
+            long start = System.nanoTime();
+            planner.plan(tours.get(i % tours.size()), 4, null, null);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        logger.info("12 places over 4 days: p50 {} us, p99 {} us",
+                nanos[nanos.length / 2] / 1_000, nanos[nanos.length * 99 / 100] / 1_000);
+        assertTrue(nanos[nanos.length / 2] < 1_000_000);
+    }
+
+    private static Place place(long id, Double latitude, Double longitude) {
+        Place place = new Place("Place " + id, "Street " + id, null, PlaceType.LANDMARKS, 4.5f, null);
+        place.setId(id);
+        place.setLatitude(latitude);
+        place.setLongitude(longitude);
+        return place;
+    }
+}
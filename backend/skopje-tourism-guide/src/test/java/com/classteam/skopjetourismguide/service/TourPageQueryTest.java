@@ -0,0 +1,70 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.azure.ai.openai.OpenAIClient;
+import com.classteam.skopjetourismguide.dto.PageResponseDTO;
+import com.classteam.skopjetourismguide.dto.TourDTO;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * A page of saved tours, with their user, preference and places, takes the same few queries
+ * whatever its size; the unpaginated listing takes several per tour
+ */
+class TourPageQueryTest extends TourServiceTestSupport {
+
+    @Test
+    void tourPagesTakeTheSameQueriesWhateverTheirSize() {
+        ToursService toursService = toursService(mock(OpenAIClient.class), Duration.ofSeconds(10), false, 2);
+        List<Long> tourIds = saveToursWithPlaces(60, 5);
+        Statistics statistics = statistics();
+
+        // The unpaginated listing loads user, preference and places lazily, tour by tour
+        statistics.clear();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> toursService.getToursByUser(userId));
+        long listStatements = statistics.getPrepareStatementCount();
+
+        List<Long> pageStatements = new ArrayList<>();
+        for (int size : new int[]{5, 20, 50}) {
+            statistics.clear();
+            PageResponseDTO<TourDTO> page = toursService.getToursByUserByCursor(userId, "", size);
+            pageStatements.add(statistics.getPrepareStatementCount());
+            assertEquals(size, page.getContent().size());
+            assertTrue(page.getContent().stream().allMatch(tour -> tour.getPlaces().size() == 5));
+        }
+        statistics.clear();
+        toursService.getAllToursByCursor("", 50);
+        long allStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(1, pageStatements.stream().distinct().count(), "Statements grew with the page size");
+        assertTrue(pageStatements.get(0) <= 4);
+        assertTrue(allStatements <= pageStatements.get(0));
+        assertTrue(listStatements > tourIds.size());
+    }
+
+    @Test
+    void followingTheCursorsVisitsEveryTourOnceNewestFirst() {
+        ToursService toursService = toursService(mock(OpenAIClient.class), Duration.ofSeconds(10), false, 2);
+        List<Long> tourIds = saveToursWithPlaces(60, 5);
+
+        List<Long> visited = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            PageResponseDTO<TourDTO> page = toursService.getToursByUserByCursor(userId, cursor, 7);
+            page.getContent().forEach(tour -> visited.add(tour.getId()));
+            assertEquals(tourIds.size(), page.getPagination().getTotalElements());
+            cursor = page.getPagination().getNextCursor();
+        }
+        List<Long> newestFirst = new ArrayList<>(tourIds);
+        Collections.reverse(newestFirst);
+        assertEquals(newestFirst, visited);
+    }
+}
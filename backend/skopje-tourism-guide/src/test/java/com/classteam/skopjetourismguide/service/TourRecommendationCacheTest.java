@@ -0,0 +1,120 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourRecommendationCacheTest {
+
+    @Test
+    void servesEqualPreferencesRegardlessOfDescriptionAndOrder() {
+        TourRecommendationCache cache = new TourRecommendationCache(Duration.ofHours(1), 10);
+        List<Place> candidates = candidates(10);
+        cache.put(preference("Old town", AttractionType.HISTORICAL, AttractionType.MUSEUMS), candidates, List.of(3L, 1L));
+
+        Preference sameChoices = preference("Something else", AttractionType.MUSEUMS, AttractionType.HISTORICAL);
+        assertEquals(Optional.of(List.of(3L, 1L)), cache.get(sameChoices, reversed(candidates)));
+        assertTrue(cache.get(preference("Parks", AttractionType.PARKS), candidates).isEmpty());
+
+        TourRecommendationCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void keepsDescriptionsAskingForOtherSentimentsApart() {
+        TourRecommendationCache cache = new TourRecommendationCache(Duration.ofHours(1), 10);
+        List<Place> candidates = candidates(10);
+        cache.put(preference("Something romantic", AttractionType.HISTORICAL), candidates, List.of(3L, 1L));
+
+        // The description steers the ranking, so a different sentiment is a different tour
+        assertTrue(cache.get(preference("Family-friendly please", AttractionType.HISTORICAL), candidates).isEmpty());
+        assertEquals(Optional.of(List.of(3L, 1L)),
+                cache.get(preference("A ROMANTIC evening", AttractionType.HISTORICAL), candidates));
+
+        PreferenceKey key = PreferenceKey.of(preference("Trendy and family friendly", AttractionType.HISTORICAL));
+        assertEquals(key, PreferenceKey.parse(key.text()));
+        assertEquals(key, PreferenceKey.of(key.toPreference()));
+        assertThrows(IllegalArgumentException.class, () -> PreferenceKey.parse("FULL_DAY|MODERATE|false|HISTORICAL||"));
+    }
+
+    @Test
+    void dropsEntryWhenCandidatesChange() {
+        TourRecommendationCache cache = new TourRecommendationCache(Duration.ofHours(1), 10);
+        Preference preference = preference("Museums", AttractionType.MUSEUMS);
+        List<Place> candidates = candidates(10);
+        cache.put(preference, candidates, List.of(1L, 2L));
+
+        List<Place> rerated = candidates(10);
+        rerated.get(4).setAverageRating(2.0f);
+        assertTrue(cache.get(preference, rerated).isEmpty());
+        assertTrue(cache.get(preference, candidates).isEmpty()); // Gone, not just skipped
+        assertTrue(cache.get(preference, candidates(11)).isEmpty());
+
+        assertEquals(1, cache.stats().invalidations());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    void expiresAndEvictsLeastRecentlyUsed() throws InterruptedException {
+        TourRecommendationCache expiring = new TourRecommendationCache(Duration.ofMillis(1), 10);
+        Preference preference = preference("Parks", AttractionType.PARKS);
+        expiring.put(preference, candidates(5), List.of(1L));
+        Thread.sleep(5);
+        assertTrue(expiring.get(preference, candidates(5)).isEmpty());
+        assertEquals(1, expiring.stats().expirations());
+
+        TourRecommendationCache bounded = new TourRecommendationCache(Duration.ofHours(1), 2);
+        Preference parks = preference("Parks", AttractionType.PARKS);
+        Preference museums = preference("Museums", AttractionType.MUSEUMS);
+        Preference nature = preference("Nature", AttractionType.NATURE);
+        bounded.put(parks, candidates(5), List.of(1L));
+        bounded.put(museums, candidates(5), List.of(2L));
+        bounded.get(parks, candidates(5)); // Museums is now least recently used
+        bounded.put(nature, candidates(5), List.of(3L));
+
+        assertTrue(bounded.get(parks, candidates(5)).isPresent());
+        assertTrue(bounded.get(museums, candidates(5)).isEmpty());
+        assertEquals(1, bounded.stats().evictions());
+    }
+
+    private static Preference preference(String description, AttractionType... attractionTypes) {
+        Preference preference = new Preference();
+        preference.setDescription(description);
+        preference.setTourLength(TourLength.FULL_DAY);
+        preference.setBudgetLevel(BudgetLevel.values()[0]);
+        preference.setIncludeShoppingMalls(false);
+        preference.setAttractionTypePreferences(new ArrayList<>(List.of(attractionTypes)));
+        return preference;
+    }
+
+    private static List<Place> candidates(int count) {
+        List<Place> places = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Place place = new Place("Place " + i, "Street " + i, null, PlaceType.MUSEUMS, 4.0f, null);
+            place.setId((long) i);
+            place.setUserRatingsTotal(100);
+            places.add(place);
+        }
+        return places;
+    }
+
+    private static List<Place> reversed(List<Place> places) {
+        List<Place> copy = new ArrayList<>(places);
+        Collections.reverse(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,140 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TourRouteOptimizerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourRouteOptimizerTest.class);
+
+    private final TourRouteOptimizer optimizer = new TourRouteOptimizer();
+
+    @Test
+    void findsNearOptimalRoutes() {
+        Random random = new Random(7);
+        double gapSum = 0;
+        double worstGap = 0;
+        int instances = 60;
+        for (int n = 0; n < instances; n++) {
+            List<Place> places = places(random, 7);
+            TourRouteOptimizer.Point start = n % 2 == 0 ? point(random) : null;
+            TourRouteOptimizer.Point end = n % 3 == 0 ? point(random) : null;
+
+            TourRouteOptimizer.Route route = optimizer.optimize(places, start, end);
+            double optimum = bruteForce(places, start, end);
+            double gap = route.distanceMeters() / optimum - 1;
+            gapSum += gap;
+            worstGap = Math.max(worstGap, gap);
+
+            assertEquals(places.size(), route.stops().size());
+            assertEquals(route.distanceMeters(), length(route.stops(), start, end), 1e-6);
+        }
+        logger.info("Route length above optimum: mean {}%, worst {}%",
+                "%.2f".formatted(100 * gapSum / instances), "%.2f".formatted(100 * worstGap));
+        assertTrue(worstGap < 0.01);
+    }
+
+    @Test
+    void shortensTheSelectionOrderAndKeepsPlacesWithoutCoordinatesLast() {
+        List<Place> places = places(new Random(11), 12);
+        Place unlocated = place(99, null, null);
+        List<Place> selection = new ArrayList<>(places);
+        selection.add(3, unlocated);
+
+        TourRouteOptimizer.Route route = optimizer.optimize(selection, null, null);
+
+        assertEquals(unlocated, route.stops().get(route.stops().size() - 1));
+        assertTrue(route.distanceMeters() < TourRouteOptimizer.pathMeters(selection));
+        assertEquals(route.distanceMeters(), TourRouteOptimizer.pathMeters(route.stops()), 1e-6);
+        logger.info("12 stops: {} m in selection order, {} m optimized",
+                Math.round(TourRouteOptimizer.pathMeters(selection)), Math.round(route.distanceMeters()));
+    }
+
+    @Test
+    void ordersTwelveStopsWellUnderAMillisecond() {
+        Random random = new Random(3);
+        List<List<Place>> tours = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tours.add(places(random, 12));
+        }
+        TourRouteOptimizer.Point hotel = new TourRouteOptimizer.Point(41.9961, 21.4316);
+
+        for (int i = 0; i < 5_000; i++) { // JIT warm-up
+            optimizer.optimize(tours.get(i % tours.size()), i % 2 == 0 ? hotel : null, hotel);
+        }
+        long[] nanos = new long[10_000];
+        for (int i = 0; i < nanos.length; i++) {
+            List<Place> tour = tours.get(i % tours.size());
+            long start = System.nanoTime();
+            optimizer.optimize(tour, i % 2 == 0 ? hotel : null, hotel);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        long p50 = nanos[nanos.length / 2];
+        long p99 = nanos[nanos.length * 99 / 100];
+        logger.info("12 stops: p50 {} us, p99 {} us", p50 / 1_000, p99 / 1_000);
+        assertTrue(p50 < 1_000_000);
+    }
+
+    private static double bruteForce(List<Place> places, TourRouteOptimizer.Point start, TourRouteOptimizer.Point end) {
+        return permute(new ArrayList<>(places), 0, start, end);
+    }
+
+    private static double permute(List<Place> places, int from, TourRouteOptimizer.Point start, TourRouteOptimizer.Point end) {
+        if (from == places.size()) {
+            return length(places, start, end);
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = from; i < places.size(); i++) {
+            Collections.swap(places, from, i);
+            best = Math.min(best, permute(places, from + 1, start, end));
+            Collections.swap(places, from, i);
+        }
+        return best;
+    }
+
+    private static double length(List<Place> stops, TourRouteOptimizer.Point start, TourRouteOptimizer.Point end) {
+        List<Place> route = new ArrayList<>();
+        if (start != null) {
+            route.add(place(-1, start.latitude(), start.longitude()));
+        }
+        route.addAll(stops);
+        if (end != null) {
+            route.add(place(-2, end.latitude(), end.longitude()));
+        }
+        return TourRouteOptimizer.pathMeters(route);
+    }
+
+    // Around the centre of Skopje, a few kilometres across
+    private static List<Place> places(Random random, int count) {
+        List<Place> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TourRouteOptimizer.Point point = point(random);
+            places.add(place(i + 1, point.latitude(), point.longitude()));
+        }
+        return places;
+    }
+
+    private static TourRouteOptimizer.Point point(Random random) {
+        return new TourRouteOptimizer.Point(41.97 + random.nextDouble() * 0.05, 21.39 + random.nextDouble() * 0.08);
+    }
+
+    private static Place place(long id, Double latitude, Double longitude) {
+        Place place = new Place("Place " + id, "Street " + id, null, PlaceType.LANDMARKS, 4.5f, null);
+        place.setId(id);
+        place.setLatitude(latitude);
+        place.setLongitude(longitude);
+        return place;
+    }
+}
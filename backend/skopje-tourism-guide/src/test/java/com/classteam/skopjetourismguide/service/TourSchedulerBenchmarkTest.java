@@ -0,0 +1,175 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Opening-hours scheduling of synthetic 12-stop tours starting on a Monday morning, when the
+ * museums are closed and the bars open only in the evening
+ */
+class TourSchedulerBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TourSchedulerBenchmarkTest.class);
+
+    private static final LocalDateTime MONDAY_MORNING = LocalDateTime.of(2025, 6, 2, 9, 0);
+    private static final PlaceType[] TYPES = {
+            PlaceType.MUSEUMS, PlaceType.HISTORICAL, PlaceType.LANDMARKS, PlaceType.PARKS,
+            PlaceType.RESTAURANT, PlaceType.CAFE_BAR, PlaceType.BAR, PlaceType.MALL};
+
+    private final TourScheduler scheduler =
+            new TourScheduler(1.2, Duration.ofHours(1), LocalTime.of(9, 0), ZoneId.of("Europe/Skopje"));
+    private final TourItineraryPlanner planner = new TourItineraryPlanner(new TourRouteOptimizer());
+
+    @Test
+    void parsesStoredAndGoogleOpeningHours() {
+        OpeningHours museum = OpeningHours.parse("TUE 10:00-18:00, WED 10:00-18:00");
+        int mondayNine = OpeningHours.minuteOfWeek(DayOfWeek.MONDAY, 9 * 60);
+        assertEquals(OpeningHours.minuteOfWeek(DayOfWeek.TUESDAY, 10 * 60), museum.earliestStart(mondayNine, 90));
+        assertEquals(-1, OpeningHours.parse("TUE 10:00-11:00").earliestStart(mondayNine, 90));
+
+        // Open past midnight on Sunday: still open early on Monday
+        OpeningHours bar = OpeningHours.parse("SUN 18:00-03:00");
+        assertEquals(60, bar.earliestStart(60, 90));
+        assertEquals(mondayNine, OpeningHours.parse(OpeningHours.ALWAYS_OPEN).earliestStart(mondayNine, 600));
+
+        List<Map<String, Object>> periods = List.of(
+                Map.of("open", Map.of("day", 5, "time", "1800"), "close", Map.of("day", 6, "time", "0200")),
+                Map.of("open", Map.of("day", 0, "time", "1000"), "close", Map.of("day", 0, "time", "1600")));
+        assertEquals("FRI 18:00-02:00, SUN 10:00-16:00", OpeningHours.fromGooglePeriods(periods));
+        assertEquals(OpeningHours.ALWAYS_OPEN, OpeningHours.fromGooglePeriods(
+                List.of(Map.of("open", Map.of("day", 0, "time", "0000")))));
+    }
+
+    @Test
+    void schedulesTwelveStopToursAroundOpeningHours() {
+        Random random = new Random(17);
+        List<Place> pool = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            pool.add(place(i + 1, TYPES[i % TYPES.length], random));
+        }
+
+        int tours = 200;
+        int closedInRouteOrder = 0;
+        int closedResequenced = 0;
+        int closedReplaced = 0;
+        long[] nanos = new long[tours];
+        for (int t = 0; t < tours + 50; t++) {
+            List<Place> shuffled = new ArrayList<>(pool);
+            Collections.shuffle(shuffled, random);
+            List<Place> stops = shuffled.subList(0, 12);
+            List<Place> alternatives = shuffled.subList(12, shuffled.size());
+            List<List<Place>> days = planner.plan(stops, 4, null, null);
+
+            long start = System.nanoTime();
+            List<List<Place>> scheduled = scheduler.schedule(days, MONDAY_MORNING, alternatives);
+            long elapsed = System.nanoTime() - start;
+            if (t < 50) { // JIT warm-up
+                continue;
+            }
+            nanos[t - 50] = elapsed;
+
+            closedInRouteOrder += closed(days);
+            closedResequenced += closed(scheduler.schedule(days, MONDAY_MORNING, null));
+            closedReplaced += closed(scheduled);
+            assertEquals(days.stream().map(List::size).toList(), scheduled.stream().map(List::size).toList());
+        }
+        Arrays.sort(nanos);
+        logger.info("{} tours of 12 stops over 4 days: closed on arrival {} in route order, "
+                        + "{} re-sequenced, {} with replacements; p50 {} us, p99 {} us",
+                tours, closedInRouteOrder, closedResequenced, closedReplaced,
+                nanos[tours / 2] / 1_000, nanos[tours * 99 / 100] / 1_000);
+
+        assertTrue(closedResequenced < closedInRouteOrder);
+        assertTrue(closedReplaced <= closedResequenced);
+        assertTrue(nanos[tours / 2] < 5_000_000);
+    }
+
+    @Test
+    void resequencesASingleTwelveStopDay() {
+        Random random = new Random(23);
+        List<Place> stops = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            stops.add(place(i + 1, TYPES[i % TYPES.length], random));
+        }
+        LocalDateTime tuesday = MONDAY_MORNING.plusDays(1);
+
+        int before = closed(List.of(stops), tuesday);
+        for (int i = 0; i < 200; i++) { // JIT warm-up
+            scheduler.schedule(List.of(stops), tuesday, null);
+        }
+        long start = System.nanoTime();
+        List<List<Place>> scheduled = scheduler.schedule(List.of(stops), tuesday, null);
+        long elapsed = System.nanoTime() - start;
+        int after = closed(scheduled, tuesday);
+
+        logger.info("One 12-stop day: {} closed on arrival in the given order, {} re-sequenced, {} us",
+                before, after, elapsed / 1_000);
+        assertTrue(after < before);
+        assertEquals(new HashSet<>(stops), new HashSet<>(scheduled.get(0)));
+    }
+
+    private int closed(List<List<Place>> days) {
+        return closed(days, MONDAY_MORNING);
+    }
+
+    private int closed(List<List<Place>> days, LocalDateTime start) {
+        int closed = 0;
+        for (int i = 0; i < days.size(); i++) {
+            for (TourScheduler.Visit visit : scheduler.simulate(days.get(i), start.plusDays(i))) {
+                if (Boolean.FALSE.equals(visit.open())) {
+                    closed++;
+                }
+            }
+        }
+        return closed;
+    }
+
+    private static Place place(long id, PlaceType placeType, Random random) {
+        Place place = new Place("Place " + id, "Street " + id, null, placeType, 4.5f, null);
+        place.setId(id);
+        place.setLatitude(41.98 + random.nextDouble() * 0.04);
+        place.setLongitude(21.40 + random.nextDouble() * 0.07);
+        place.setOpeningHours(openingHours(placeType, random.nextInt(10) < 3 ? random.nextInt(7) : -1));
+        return place;
+    }
+
+    // Typical hours per type; closedDay (0 = Monday) is a weekly day off, -1 for none
+    private static String openingHours(PlaceType placeType, int closedDay) {
+        String hours = switch (placeType) {
+            case MUSEUMS -> "10:00-18:00";
+            case HISTORICAL -> "09:00-17:00";
+            case PARKS -> "06:00-22:00";
+            case RESTAURANT -> "12:00-23:00";
+            case CAFE_BAR -> "08:00-23:00";
+            case BAR -> "18:00-02:00";
+            case MALL -> "10:00-22:00";
+            default -> null;
+        };
+        if (hours == null) {
+            return OpeningHours.ALWAYS_OPEN;
+        }
+        if (placeType == PlaceType.MUSEUMS) {
+            closedDay = 0;
+        }
+        String[] days = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+        List<String> periods = new ArrayList<>();
+        for (int day = 0; day < days.length; day++) {
+            if (day != closedDay) {
+                periods.add(days[day] + " " + hours);
+            }
+        }
+        return String.join(", ", periods);
+    }
+}
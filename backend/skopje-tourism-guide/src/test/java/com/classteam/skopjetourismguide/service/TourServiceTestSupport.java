@@ -0,0 +1,237 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.models.ChatChoice;
+import com.azure.ai.openai.models.ChatCompletions;
+import com.azure.ai.openai.models.ChatCompletionsOptions;
+import com.azure.ai.openai.models.ChatRequestUserMessage;
+import com.azure.ai.openai.models.ChatResponseMessage;
+import com.classteam.skopjetourismguide.dto.PreferenceDTO;
+import com.classteam.skopjetourismguide.dto.TourCreateDTO;
+import com.classteam.skopjetourismguide.model.Place;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.Tour;
+import com.classteam.skopjetourismguide.model.User;
+import com.classteam.skopjetourismguide.model.enumerations.AttractionType;
+import com.classteam.skopjetourismguide.model.enumerations.BudgetLevel;
+import com.classteam.skopjetourismguide.model.enumerations.FoodType;
+import com.classteam.skopjetourismguide.model.enumerations.PlaceType;
+import com.classteam.skopjetourismguide.model.enumerations.RecommenderEngine;
+import com.classteam.skopjetourismguide.model.enumerations.Role;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import com.classteam.skopjetourismguide.repository.PlaceRepository;
+import com.classteam.skopjetourismguide.repository.PreferenceRepository;
+import com.classteam.skopjetourismguide.repository.ReviewRepository;
+import com.classteam.skopjetourismguide.repository.TourRepository;
+import com.classteam.skopjetourismguide.repository.TourStopRepository;
+import com.classteam.skopjetourismguide.repository.TourTemplateRepository;
+import com.classteam.skopjetourismguide.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Shared set-up of the tests that drive a real {@link ToursService}: 300 places and one user
+ * in H2 behind a Hikari pool of five connections, like production, with Hibernate statistics
+ * on. Tests run outside a test transaction so every service call opens its own transactions.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tours-service;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.maximumPoolSize=5",
+        "spring.datasource.hikari.connectionTimeout=3000",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class TourServiceTestSupport {
+
+    private static final Pattern OFFERED_ID = Pattern.compile("ID: (\\d+)");
+
+    @Autowired
+    protected PlaceRepository placeRepository;
+
+    @Autowired
+    protected ReviewRepository reviewRepository;
+
+    @Autowired
+    protected TourRepository tourRepository;
+
+    @Autowired
+    protected PreferenceRepository preferenceRepository;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected TourTemplateRepository tourTemplateRepository;
+
+    @Autowired
+    protected PlatformTransactionManager transactionManager;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    protected DataSource dataSource;
+
+    protected TourGenerationMetrics metrics;
+    protected Long userId;
+
+    @BeforeEach
+    void savePlacesAndUser() {
+        tourRepository.deleteAll();
+        tourTemplateRepository.deleteAll();
+        preferenceRepository.deleteAll();
+        userRepository.deleteAll();
+        placeRepository.deleteAll();
+
+        List<Place> places = new ArrayList<>();
+        PlaceType[] types = {PlaceType.HISTORICAL, PlaceType.MUSEUMS, PlaceType.RESTAURANT};
+        for (int i = 0; i < 300; i++) {
+            Place place = new Place("Place " + i, "Street " + i, "Description of place " + i,
+                    types[i % types.length], 3.5f + (i % 15) / 10f, null);
+            place.setUserRatingsTotal(10 + i);
+            places.add(place);
+        }
+        placeRepository.saveAll(places);
+
+        User user = new User();
+        user.setUsername("tours-test");
+        user.setEmail("tours-test@example.com");
+        user.setPassword("secret");
+        user.setRole(Role.ROLE_USER);
+        userId = userRepository.save(user).getId();
+    }
+
+    /**
+     * A tours service on the test database with the recommendation cache disabled, so that
+     * every AI generation really calls the client; replaces {@link #metrics}
+     */
+    protected ToursService toursService(OpenAIClient openAIClient, Duration aiDeadline, boolean upgradeInBackground,
+                                        int aiThreads) {
+        TourRecommendationCache recommendationCache = new TourRecommendationCache(Duration.ZERO, 0);
+        metrics = new TourGenerationMetrics(recommendationCache,
+                new IdempotencyService(new ObjectMapper(), Duration.ofHours(1), 100, Duration.ofSeconds(5)));
+        PlaceCatalogService placeCatalogService = new PlaceCatalogService(placeRepository, new CatalogVersionService());
+        placeCatalogService.current(); // Loaded at startup in production
+        return new ToursService(tourRepository, placeRepository, preferenceRepository, userRepository,
+                new TourStopRepository(new JdbcTemplate(dataSource)),
+                openAIClient, new CatalogVersionService(), recommendationCache, metrics,
+                new TourCandidateRanker(12, 2000), new TourCandidatePool(placeRepository, placeCatalogService, 60),
+                new LocalTourRecommender(),
+                new TourItineraryPlanner(new TourRouteOptimizer()),
+                new TourScheduler(1.2, Duration.ofHours(1), LocalTime.of(9, 0), ZoneId.of("Europe/Skopje")),
+                new TourTemplateService(tourTemplateRepository, preferenceRepository, placeRepository,
+                        placeCatalogService, transactionManager),
+                new DtoMapper(),
+                transactionManager,
+                "test-deployment", aiDeadline, upgradeInBackground, aiThreads, RecommenderEngine.AI, 1);
+    }
+
+    /**
+     * An OpenAI client that picks the first five offered places, running {@code onCall} and then
+     * blocking for the latency like a real completion request
+     */
+    protected static OpenAIClient openAIClient(long latencyMillis, Runnable onCall) {
+        OpenAIClient client = mock(OpenAIClient.class);
+        when(client.getChatCompletions(anyString(), any(ChatCompletionsOptions.class))).thenAnswer(invocation -> {
+            onCall.run();
+            ChatCompletionsOptions options = invocation.getArgument(1);
+            String prompt = ((ChatRequestUserMessage) options.getMessages().get(1)).getContent().toString();
+            String answer = OFFERED_ID.matcher(prompt).results()
+                    .limit(5)
+                    .map(match -> match.group(1))
+                    .collect(Collectors.joining(","));
+            Thread.sleep(latencyMillis);
+            return completions(answer);
+        });
+        return client;
+    }
+
+    protected TourCreateDTO tourRequest(int index) {
+        PreferenceDTO preference = new PreferenceDTO();
+        preference.setDescription("Test preference " + index);
+        preference.setTourLength(TourLength.FULL_DAY);
+        preference.setBudgetLevel(BudgetLevel.values()[0]);
+        preference.setAttractionTypePreferences(List.of(AttractionType.HISTORICAL, AttractionType.MUSEUMS));
+        preference.setFoodTypePreferences(List.of(FoodType.values()[0]));
+
+        TourCreateDTO request = new TourCreateDTO();
+        request.setTitle("Test tour " + index);
+        request.setUserId(userId);
+        request.setPreferenceDTO(preference);
+        return request;
+    }
+
+    /**
+     * Save tours of the test user, each with its own preference and the next places in turn;
+     * returns their ids, oldest first
+     */
+    protected List<Long> saveToursWithPlaces(int tours, int placesPerTour) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            User user = userRepository.getReferenceById(userId);
+            List<Place> places = placeRepository.findAll();
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < tours; i++) {
+                Preference preference = new Preference();
+                preference.setTourLength(TourLength.FULL_DAY);
+                preference.setBudgetLevel(BudgetLevel.MODERATE);
+                preference.setDescription("Preference " + i);
+                preference.setUser(user);
+                preference = preferenceRepository.save(preference);
+
+                Tour tour = new Tour();
+                tour.setTitle("Saved tour " + i);
+                tour.setUser(user);
+                tour.setPreference(preference);
+                for (int p = 0; p < placesPerTour; p++) {
+                    tour.addPlace(places.get((i * placesPerTour + p) % places.size()));
+                }
+                ids.add(tourRepository.save(tour).getId());
+            }
+            return ids;
+        });
+    }
+
+    protected Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static ChatCompletions completions(String answer) {
+        ChatResponseMessage message = mock(ChatResponseMessage.class);
+        when(message.getContent()).thenReturn(answer);
+        ChatChoice choice = mock(ChatChoice.class);
+        when(choice.getMessage()).thenReturn(message);
+        ChatCompletions completions = mock(ChatCompletions.class);
+        when(completions.getChoices()).thenReturn(List.of(choice));
+        return completions;
+    }
+}
@@ -0,0 +1,75 @@
+package com.classteam.skopjetourismguide.service;
+
+import com.classteam.skopjetourismguide.dto.PreferenceDTO;
+import com.classteam.skopjetourismguide.dto.TourCreateDTO;
+import com.classteam.skopjetourismguide.dto.TourDTO;
+import com.classteam.skopjetourismguide.model.Preference;
+import com.classteam.skopjetourismguide.model.Tour;
+import com.classteam.skopjetourismguide.model.User;
+import com.classteam.skopjetourismguide.model.enumerations.TourLength;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tours of the most requested preference combination are copied from its template without
+ * loading candidates or asking the AI; other combinations are still generated
+ */
+class TourTemplateCopyTest extends TourServiceTestSupport {
+
+    @Test
+    void mostRequestedCombinationIsCopiedFromItsTemplate() {
+        AtomicInteger aiCalls = new AtomicInteger();
+        ToursService toursService = toursService(openAIClient(0, aiCalls::incrementAndGet),
+                Duration.ofSeconds(10), false, 2);
+
+        // Three earlier tours with the test combination, one with a half-day variant of it
+        for (int i = 0; i < 3; i++) {
+            saveRequestedTour(tourRequest(i).getPreferenceDTO());
+        }
+        PreferenceDTO halfDay = tourRequest(3).getPreferenceDTO();
+        halfDay.setTourLength(TourLength.HALF_DAY);
+        saveRequestedTour(halfDay);
+
+        assertEquals(1, toursService.rebuildTemplates()); // One template at most, for the most requested combination
+        int rebuildCalls = aiCalls.get();
+        Statistics statistics = statistics();
+
+        statistics.clear();
+        TourDTO copied = toursService.createTour(tourRequest(4));
+        assertEquals(5, copied.getPlaces().size());
+        assertEquals(rebuildCalls, aiCalls.get(), "The template copy asked the AI");
+        assertTrue(statistics.getEntityLoadCount() < 5, "The template copy loaded candidate places");
+        assertEquals(1, metrics.snapshot().getGenerations().get("TEMPLATE").getCount());
+
+        TourCreateDTO halfDayRequest = tourRequest(5);
+        halfDayRequest.setPreferenceDTO(halfDay);
+        toursService.createTour(halfDayRequest);
+        assertEquals(rebuildCalls + 1, aiCalls.get(), "The half-day variant has no template and is generated");
+    }
+
+    private void saveRequestedTour(PreferenceDTO preferenceDTO) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = userRepository.getReferenceById(userId);
+            Preference preference = new Preference();
+            preference.setTourLength(preferenceDTO.getTourLength());
+            preference.setBudgetLevel(preferenceDTO.getBudgetLevel());
+            preference.setAttractionTypePreferences(new ArrayList<>(preferenceDTO.getAttractionTypePreferences()));
+            preference.setFoodTypePreferences(new ArrayList<>(preferenceDTO.getFoodTypePreferences()));
+            preference.setUser(user);
+            preference = preferenceRepository.save(preference);
+
+            Tour tour = new Tour();
+            tour.setTitle("Earlier tour");
+            tour.setUser(user);
+            tour.setPreference(preference);
+            tourRepository.save(tour);
+        });
+    }
+}
@@ -5,6 +5,7 @@ export interface PaginationInfo {
   totalElements: number;
   totalPages: number;
   last: boolean;
+  nextCursor?: string; // Only present in cursor (keyset) mode
 }
 
 export interface PageResponse<T> {
@@ -31,6 +31,8 @@ export interface PlaceDetailDTO extends PlaceDTO {
   websiteURL?: string;
   socialMedia?: string;
   sentimentTag?: string;
+  userAverageRating?: number; // Average of our users' reviews, next to the Google rating
+  ratingHistogram?: number[]; // Review count per star, index 0 = one star
   recentReviews?: ReviewDTO[];
 }
 
@@ -51,6 +53,7 @@ export interface PaginationInfo {
   totalElements: number;
   totalPages: number;
   last: boolean;
+  nextCursor?: string; // Only present in cursor (keyset) mode
 }
 
 // Paginated response from API
@@ -61,6 +61,23 @@ export interface TourDTO {
   preferenceId: number;
   preferenceDescription?: string;
   places: PlaceDTO[];
+  totalDistanceMeters?: number;
+  startTime?: string;
+  days: TourDayDTO[];
+}
+
+export interface TourDayDTO {
+  day: number;
+  placeIds: number[];
+  distanceMeters?: number;
+  stops?: TourStopDTO[];
+}
+
+export interface TourStopDTO {
+  placeId: number;
+  arrival: string;
+  departure: string;
+  open?: boolean;
 }
 
 export interface TourCreateDTO {
@@ -69,6 +86,24 @@ export interface TourCreateDTO {
   preferenceId?: number;
   preferenceDTO?: PreferenceDTO;
   placeIds?: number[];
+  engine?: 'AI' | 'LOCAL';
+  startLatitude?: number;
+  startLongitude?: number;
+  endLatitude?: number;
+  endLongitude?: number;
+  optimizeRoute?: boolean;
+  startTime?: string;
+}
+
+export type TourJobStatus = 'PENDING' | 'RUNNING' | 'COMPLETED' | 'FAILED';
+
+export interface TourJobDTO {
+  id: number;
+  status: TourJobStatus;
+  tourId?: number;
+  error?: string;
+  createdAt: string;
+  updatedAt: string;
 }
 
 export interface TourFilter {